@@ -0,0 +1,43 @@
+package auth.proj.sam.config;
+
+import auth.proj.sam.model.Role;
+import auth.proj.sam.model.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CustomUserDetails.getAuthorities is evaluated on every authorization check and template
+ * security expression, so it is measured per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CustomUserDetailsBenchmark {
+
+    @Param({"1", "3"})
+    public int roleCount;
+
+    private CustomUserDetails userDetails;
+
+    @Setup
+    public void setUp() {
+        String[] roleNames = {"ROLE_STUDENT", "ROLE_TEACHER", "ROLE_DEPARTMENT"};
+        User user = new User();
+        user.setUsername("22-1-02000");
+        for (int i = 0; i < roleCount; i++) {
+            user.getRoles().add(new Role(roleNames[i]));
+        }
+        userDetails = new CustomUserDetails(user);
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return userDetails.getAuthorities();
+    }
+}
@@ -0,0 +1,70 @@
+package auth.proj.sam.config;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of the password encoder choices available to SecurityConfig:
+ * plain bcrypt at several strengths, the {bcrypt}-prefixed delegating encoder, the bounded
+ * hashing pool wrapper, and PBKDF2 as a reference point.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordEncoderBenchmark {
+
+    private static final String PASSWORD = "DelaCruz";
+
+    @Param({"bcrypt-10", "bcrypt-12", "delegating-bcrypt-10", "bounded-bcrypt-10", "pbkdf2"})
+    public String encoderName;
+
+    private PasswordEncoder encoder;
+    private String storedHash;
+
+    @Setup
+    public void setUp() {
+        encoder = switch (encoderName) {
+            case "bcrypt-10" -> new BCryptPasswordEncoder(10);
+            case "bcrypt-12" -> new BCryptPasswordEncoder(12);
+            case "delegating-bcrypt-10" -> delegating(10);
+            case "bounded-bcrypt-10" -> new BoundedPasswordEncoder(delegating(10),
+                    Runtime.getRuntime().availableProcessors(), 200, 60_000);
+            case "pbkdf2" -> Pbkdf2PasswordEncoder.defaultsForSpringSecurity_v5_8();
+            default -> throw new IllegalArgumentException("Unknown encoder: " + encoderName);
+        };
+        storedHash = encoder.encode(PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (encoder instanceof BoundedPasswordEncoder bounded) {
+            bounded.shutdown();
+        }
+    }
+
+    @Benchmark
+    public String encode() {
+        return encoder.encode(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches(PASSWORD, storedHash);
+    }
+
+    private static PasswordEncoder delegating(int strength) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return delegating;
+    }
+}
@@ -0,0 +1,37 @@
+package auth.proj.sam.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building the Brevo JSON body for the verification/credentials emails.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmailPayloadBenchmark {
+
+    private EmailService emailService;
+    private Map<String, String> params;
+
+    @Setup
+    public void setUp() {
+        // Workers are never started, so nothing is sent
+        emailService = new EmailService("benchmark", "http://localhost", 0, 1, 50, 0, 1, 0, 0, 1000, 1000);
+        params = new LinkedHashMap<>();
+        params.put("studentId", "22-1-02000");
+        params.put("password", "DelaCruz");
+        params.put("firstName", "Juan");
+    }
+
+    @Benchmark
+    public String buildPayload() {
+        return emailService.buildPayload("juan.delacruz@example.com", 3L, params);
+    }
+}
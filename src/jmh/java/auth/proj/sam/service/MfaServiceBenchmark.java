@@ -0,0 +1,57 @@
+package auth.proj.sam.service;
+
+import auth.proj.sam.repository.UserRepository;
+import dev.samstevens.totp.code.DefaultCodeGenerator;
+import dev.samstevens.totp.time.SystemTimeProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * TOTP verification (hit on every MFA login). QR code rendering is covered by {@link QrCodeServiceBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MfaServiceBenchmark {
+
+    private MfaService mfaService;
+    private String secret;
+    private String currentCode;
+    // Valid codes are single-use per user, so each call verifies as a different user
+    private long nextUserId;
+
+    @Setup
+    public void setUp() {
+        // The replay claim is a single-row UPDATE in production; stubbed so only the code check is measured
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.claimMfaStep(anyLong(), anyLong())).thenReturn(1);
+        mfaService = new MfaService(new TotpVerifier(1, 10_000), userRepository);
+        secret = mfaService.generateNewSecret();
+    }
+
+    // The valid code changes every 30 seconds, so it is recomputed per iteration
+    @Setup(Level.Iteration)
+    public void refreshCode() throws Exception {
+        long bucket = new SystemTimeProvider().getTime() / 30;
+        currentCode = new DefaultCodeGenerator().generate(secret, bucket);
+    }
+
+    @Benchmark
+    public boolean isTotpValidWithCurrentCode() {
+        return mfaService.isTotpValid(++nextUserId, secret, currentCode);
+    }
+
+    // Worst case: every time window in the allowed drift is checked before rejecting
+    @Benchmark
+    public boolean isTotpValidWithWrongCode() {
+        return mfaService.isTotpValid(1L, secret, "000000");
+    }
+}
@@ -0,0 +1,44 @@
+package auth.proj.sam.service;
+
+import dev.samstevens.totp.secret.DefaultSecretGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MFA setup QR code (hit on every settings view for users without MFA): a cold render versus
+ * a repeat view served from the cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QrCodeServiceBenchmark {
+
+    private QrCodeService qrCodeService;
+    private String secret;
+
+    @Setup
+    public void setUp() {
+        qrCodeService = new QrCodeService(8 * 1024 * 1024, 30, 2, 50, 5000);
+        secret = new DefaultSecretGenerator().generate();
+        qrCodeService.getQrImage(secret);
+    }
+
+    @TearDown
+    public void tearDown() {
+        qrCodeService.shutdown();
+    }
+
+    @Benchmark
+    public QrCodeService.QrImage renderUncached() {
+        return qrCodeService.render(secret);
+    }
+
+    @Benchmark
+    public QrCodeService.QrImage cachedImage() {
+        return qrCodeService.getQrImage(secret);
+    }
+}
@@ -0,0 +1,71 @@
+package auth.proj.sam.service;
+
+import auth.proj.sam.SamApplication;
+import auth.proj.sam.dto.StudentRegistrationDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end UserService.registerStudent (lookups, password hash, insert) against an embedded
+ * H2 database in MySQL mode. The bcrypt strength is pinned so results are comparable across hosts.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegisterStudentBenchmark {
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private PrintStream originalOut;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(SamApplication.class)
+                .web(WebApplicationType.NONE)
+                // Passed as command-line arguments so they override application.properties
+                .run("--spring.datasource.url=jdbc:h2:mem:sam-bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.sql.init.mode=never",
+                        "--BREVO_API_KEY=benchmark",
+                        "--spring.profiles.active=dev",
+                        "--app.security.bcrypt.strength=10");
+        userService = context.getBean(UserService.class);
+
+        // registerStudent logs every generated ID to stdout; keep the benchmark output readable
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(originalOut);
+        context.close();
+    }
+
+    @Benchmark
+    public String registerStudent() {
+        long n = sequence.incrementAndGet();
+        StudentRegistrationDto dto = new StudentRegistrationDto();
+        dto.setFirstName("Juan");
+        dto.setLastName("DelaCruz");
+        dto.setMiddleName("Santos");
+        dto.setEmail("student" + n + "@bench.sam.edu");
+        return userService.registerStudent(dto);
+    }
+}
@@ -0,0 +1,52 @@
+package auth.proj.sam.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building a student's week for /student/schedule: parsing every schedule string on each request
+ * versus laying out the cached meetings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScheduleServiceBenchmark {
+
+    private static final String[] SCHEDULES = {
+            "MWF 8:30 AM - 9:30 AM R 10:30 AM - 12:30 PM", "MW 1:30 PM - 3:00 PM", "TTh 9:30 AM - 11:00 AM",
+            "F 3:30 PM - 5:30 PM", "Sat 7:30 AM - 9:30 AM", "TTh 1:00 PM - 2:30 PM", "W 6:30 PM - 8:30 PM"
+    };
+
+    private ScheduleService scheduleService;
+    private List<ScheduleService.ClassTime> classes;
+
+    @Setup
+    public void setUp() {
+        scheduleService = new ScheduleService(30, 7, 22, 1000);
+        classes = new ArrayList<>();
+        for (int i = 0; i < SCHEDULES.length; i++) {
+            classes.add(new ScheduleService.ClassTime("SUBJ" + i, SCHEDULES[i]));
+        }
+        scheduleService.layOut(classes);
+    }
+
+    @Benchmark
+    public int parseEveryRequest() {
+        int meetings = 0;
+        for (ScheduleService.ClassTime classTime : classes) {
+            meetings += ScheduleService.parse(classTime.schedule()).size();
+        }
+        return meetings;
+    }
+
+    @Benchmark
+    public ScheduleService.Week layOutCached() {
+        return scheduleService.layOut(classes);
+    }
+}
@@ -0,0 +1,13 @@
+package auth.proj.sam.config;
+
+import java.security.Principal;
+import java.util.List;
+
+// The caller of an /api/** request, taken from its access token without loading the user
+public record ApiPrincipal(Long userId, String username, List<String> roles) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
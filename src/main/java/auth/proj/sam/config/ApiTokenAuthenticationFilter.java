@@ -0,0 +1,85 @@
+package auth.proj.sam.config;
+
+import auth.proj.sam.model.User;
+import auth.proj.sam.service.ApiTokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Authenticates /api/** requests from a "Bearer" access token. Everything needed comes from the
+ * signed token, so no session is created and no user is loaded. Requests without a valid token
+ * continue unauthenticated and are rejected with 401 by the API filter chain.
+ *
+ * Pages of the web app (dashboard.js) call the same API with their session cookie instead. That is
+ * only honoured for GET and HEAD, since the API chain has no CSRF protection, and the session is
+ * only read, never created.
+ */
+public class ApiTokenAuthenticationFilter extends OncePerRequestFilter {
+
+    // Why the token was rejected, for the 401 response
+    public static final String ERROR_ATTRIBUTE = ApiTokenAuthenticationFilter.class.getName() + ".error";
+
+    private static final String BEARER = "Bearer ";
+
+    private final ApiTokenService apiTokenService;
+
+    public ApiTokenAuthenticationFilter(ApiTokenService apiTokenService) {
+        this.apiTokenService = apiTokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null && isSafe(request)) {
+            authenticateFromSession(request);
+        } else if (header != null && header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            try {
+                ApiTokenService.Claims claims = apiTokenService.parse(header.substring(BEARER.length()).trim(), ApiTokenService.Type.ACCESS);
+                if (claims.status() == User.AccountStatus.ACTIVE) {
+                    authenticate(new ApiPrincipal(claims.userId(), claims.username(), claims.roles()));
+                }
+            } catch (ApiTokenService.InvalidTokenException e) {
+                request.setAttribute(ERROR_ATTRIBUTE, e.getMessage());
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static boolean isSafe(HttpServletRequest request) {
+        return "GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod());
+    }
+
+    private static void authenticateFromSession(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session == null) {
+            return;
+        }
+        if (session.getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY) instanceof SecurityContext stored
+                && stored.getAuthentication() != null && stored.getAuthentication().getPrincipal() instanceof CustomUserDetails details) {
+            authenticate(new ApiPrincipal(details.getUserId(), details.getUsername(),
+                    details.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList()));
+        }
+    }
+
+    private static void authenticate(ApiPrincipal principal) {
+        UsernamePasswordAuthenticationToken authentication = UsernamePasswordAuthenticationToken.authenticated(
+                principal, null, principal.roles().stream().map(SimpleGrantedAuthority::new).toList());
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(authentication);
+        SecurityContextHolder.setContext(context);
+    }
+}
@@ -0,0 +1,40 @@
+package auth.proj.sam.config;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Picks the bcrypt work factor for this machine: the highest strength whose hash time stays
+ * within the target, never below the configured minimum.
+ */
+public final class BcryptCalibrator {
+
+    private static final String SAMPLE_PASSWORD = "calibration-Sample-1234";
+    private static final int SAMPLES_PER_STRENGTH = 3;
+
+    private BcryptCalibrator() {
+    }
+
+    public static int calibrate(long targetMillis, int minStrength, int maxStrength) {
+        int chosen = minStrength;
+        for (int strength = minStrength; strength <= maxStrength; strength++) {
+            long millis = measure(strength);
+            System.out.println("🔐 bcrypt strength " + strength + " takes ~" + millis + " ms per hash");
+            if (millis > targetMillis) {
+                break;
+            }
+            chosen = strength;
+        }
+        return chosen;
+    }
+
+    // Average wall time of one encode at the given strength (the first run warms up the JIT)
+    static long measure(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        encoder.encode(SAMPLE_PASSWORD);
+        long start = System.nanoTime();
+        for (int i = 0; i < SAMPLES_PER_STRENGTH; i++) {
+            encoder.encode(SAMPLE_PASSWORD);
+        }
+        return (System.nanoTime() - start) / SAMPLES_PER_STRENGTH / 1_000_000;
+    }
+}
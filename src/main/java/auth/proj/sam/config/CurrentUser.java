@@ -0,0 +1,13 @@
+package auth.proj.sam.config;
+
+import java.lang.annotation.*;
+
+/**
+ * Injects the signed-in {@link auth.proj.sam.model.User} into a controller method, loaded at most once
+ * per request (see {@link CurrentUserArgumentResolver}).
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+}
@@ -0,0 +1,66 @@
+package auth.proj.sam.config;
+
+import auth.proj.sam.model.User;
+import auth.proj.sam.service.UserLookupService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.time.Duration;
+
+/**
+ * Resolves {@link CurrentUser} parameters. The user is looked up once and kept as a request attribute,
+ * so several parameters, interceptors or nested handlers in one request share it. A principal loaded
+ * only moments ago (at sign-in, or by a handler refreshing it) is used as is; otherwise the user
+ * comes from the user cache, which is evicted on every write, and only a cache miss reaches the database.
+ */
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    static final String REQUEST_ATTRIBUTE = CurrentUserArgumentResolver.class.getName() + ".user";
+
+    private final UserLookupService userLookupService;
+    private final Duration principalMaxAge;
+
+    public CurrentUserArgumentResolver(UserLookupService userLookupService,
+                                       @Value("${app.current-user.principal-max-age-seconds:5}") long principalMaxAgeSeconds) {
+        this.userLookupService = userLookupService;
+        this.principalMaxAge = Duration.ofSeconds(Math.max(0, principalMaxAgeSeconds));
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUser.class) && User.class.isAssignableFrom(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Object resolved = webRequest.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (resolved instanceof User user) {
+            return user;
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || "anonymousUser".equals(authentication.getPrincipal())) {
+            throw new RuntimeException("User not found");
+        }
+
+        User user;
+        if (authentication.getPrincipal() instanceof CustomUserDetails details && details.isLoadedWithin(principalMaxAge)) {
+            user = details.getUser();
+        } else {
+            user = userLookupService.findByUsername(authentication.getName())
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+        }
+        webRequest.setAttribute(REQUEST_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+        return user;
+    }
+}
@@ -1,8 +1,8 @@
 package auth.proj.sam.config;
 
-import auth.proj.sam.model.TrustedDevice;
 import auth.proj.sam.model.User;
 import auth.proj.sam.repository.TrustedDeviceRepository;
+import auth.proj.sam.service.SecurityTokenService;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -15,7 +15,6 @@ import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
-import java.util.Optional;
 
 @Component
 public class CustomLoginSuccessHandler implements AuthenticationSuccessHandler {
@@ -49,8 +48,9 @@ public class CustomLoginSuccessHandler implements AuthenticationSuccessHandler {
             if (cookies != null) {
                 for (Cookie cookie : cookies) {
                     if ("remember-me".equals(cookie.getName())) {
-                        Optional<TrustedDevice> trustedDevice = trustedDeviceRepository.findByToken(cookie.getValue());
-                        if (trustedDevice.isPresent() && trustedDevice.get().getUser().getId().equals(userDetails.getUser().getId()) && trustedDevice.get().getExpiryDate().isAfter(LocalDateTime.now())) {
+                        // Devices are stored by the hash of their cookie
+                        if (trustedDeviceRepository.existsByTokenAndUser_IdAndExpiryDateAfter(
+                                SecurityTokenService.sha256Hex(cookie.getValue()), user.getId(), LocalDateTime.now())) {
                             redirectToDashboard(response, authentication);
                             return;
                         }
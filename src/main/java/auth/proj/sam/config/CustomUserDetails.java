@@ -1,43 +1,90 @@
 package auth.proj.sam.config;
 
+import auth.proj.sam.model.Role;
 import auth.proj.sam.model.User;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.Collection;
-import java.util.stream.Collectors;
+import java.util.List;
 
+/**
+ * The signed-in principal. Only a compact snapshot (id, username, roles, status) is serialized into the
+ * session; the full User is transient and re-attached from the user cache after the session is read
+ * back (see SessionPrincipalFilter).
+ */
 public class CustomUserDetails implements UserDetails {
 
-    private final User user;
+    private static final long serialVersionUID = 1L;
+
+    private final Long userId;
+    private final String username;
+    private final List<String> roles;
+    private final boolean enabled;
+    private final User.AccountStatus accountStatus;
+    private final LocalDateTime timeoutUntil;
+
+    private transient volatile User user;
+    private transient volatile Instant loadedAt; // when the user was read; lets CurrentUserArgumentResolver trust a fresh principal
 
     public CustomUserDetails(User user) {
-        this.user = user;
+        this.userId = user.getId();
+        this.username = user.getUsername();
+        this.roles = user.getRoles() == null ? List.of() : user.getRoles().stream().map(Role::getName).toList();
+        this.enabled = user.isEnabled();
+        this.accountStatus = user.getAccountStatus();
+        this.timeoutUntil = user.getTimeoutUntil();
+        attachUser(user);
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority(role.getName()))
-                .collect(Collectors.toList());
+        return roles.stream().map(SimpleGrantedAuthority::new).toList();
     }
 
+    // Only known while the full user is attached; the hash is never written to the session store
     @Override
     public String getPassword() {
-        return user.getPassword();
+        User current = user;
+        return current != null ? current.getPassword() : null;
     }
 
     @Override
     public String getUsername() {
-        return user.getUsername();
+        return username;
+    }
+
+    public Long getUserId() {
+        return userId;
     }
-    
+
     public User getUser() {
         return user;
     }
 
+    public boolean hasUser() {
+        return user != null;
+    }
+
+    public void attachUser(User user) {
+        attachUser(user, Instant.now());
+    }
+
+    // With an explicit load time, e.g. to stand in for a principal read some time ago
+    void attachUser(User user, Instant loadedAt) {
+        this.user = user;
+        this.loadedAt = loadedAt;
+    }
+
+    public boolean isLoadedWithin(Duration maxAge) {
+        Instant loaded = loadedAt;
+        return user != null && loaded != null && Duration.between(loaded, Instant.now()).compareTo(maxAge) <= 0;
+    }
+
     @Override
     public boolean isAccountNonExpired() {
         return true;
@@ -45,11 +92,11 @@ public class CustomUserDetails implements UserDetails {
 
     @Override
     public boolean isAccountNonLocked() {
-        if (user.getAccountStatus() == User.AccountStatus.BLOCKED) {
+        if (accountStatus == User.AccountStatus.BLOCKED) {
             return false;
         }
-        if (user.getAccountStatus() == User.AccountStatus.TIMED_OUT) {
-            return user.getTimeoutUntil() == null || LocalDateTime.now().isAfter(user.getTimeoutUntil());
+        if (accountStatus == User.AccountStatus.TIMED_OUT) {
+            return timeoutUntil == null || LocalDateTime.now().isAfter(timeoutUntil);
         }
         return true;
     }
@@ -61,6 +108,6 @@ public class CustomUserDetails implements UserDetails {
 
     @Override
     public boolean isEnabled() {
-        return user.isEnabled();
+        return enabled;
     }
-}
\ No newline at end of file
+}
@@ -1,11 +1,14 @@
 package auth.proj.sam.config;
 
 import auth.proj.sam.model.Role;
+import auth.proj.sam.model.Section;
 import auth.proj.sam.model.Subject;
 import auth.proj.sam.model.User;
 import auth.proj.sam.repository.RoleRepository;
+import auth.proj.sam.repository.SectionRepository;
 import auth.proj.sam.repository.SubjectRepository;
 import auth.proj.sam.repository.UserRepository;
+import auth.proj.sam.service.EnrollmentService;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
@@ -13,7 +16,7 @@ import org.springframework.stereotype.Component;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 @Component
 public class DataInitializer implements CommandLineRunner {
@@ -21,18 +24,24 @@ public class DataInitializer implements CommandLineRunner {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final SubjectRepository subjectRepository; // Injected SubjectRepository
+    private final SectionRepository sectionRepository;
+    private final EnrollmentService enrollmentService;
     private final PasswordEncoder passwordEncoder;
 
     // Constant for the default DEPARTMENT user
     private static final String DEFAULT_DEPT_EMAIL = "department@sam.edu";
     private static final String DEFAULT_DEPT_USERNAME = "department";
     private static final String DEFAULT_DEPT_PASSWORD = "departmentpass";
+    private static final String DEFAULT_SECTION_CODE = "BSIT 1-1";
 
     public DataInitializer(UserRepository userRepository, RoleRepository roleRepository,
-                           SubjectRepository subjectRepository, PasswordEncoder passwordEncoder) {
+                           SubjectRepository subjectRepository, SectionRepository sectionRepository,
+                           EnrollmentService enrollmentService, PasswordEncoder passwordEncoder) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.subjectRepository = subjectRepository;
+        this.sectionRepository = sectionRepository;
+        this.enrollmentService = enrollmentService;
         this.passwordEncoder = passwordEncoder;
     }
 
@@ -40,6 +49,7 @@ public class DataInitializer implements CommandLineRunner {
     public void run(String... args) throws Exception {
         createRolesIfNotFound();
         createSubjectsIfNotFound();
+        createSectionsIfNotFound();
         createDepartmentUserIfNotFound();
     }
 
@@ -61,11 +71,11 @@ public class DataInitializer implements CommandLineRunner {
 
     private void createSubjectsIfNotFound() {
         List<Subject> subjects = Arrays.asList(
-            new Subject("IT101", "Introduction to IT", 3, 0, 3, null, "MWF 8:30 AM - 9:30 AM R 10:30 AM - 12:30 PM"),
-            new Subject("CS202", "Data Structures", 2, 1, 3, null, "MW 1:30 PM - 3:00 PM"),
-            new Subject("MATE1", "College Algebra", 3, 0, 3, null, "TTh 9:30 AM - 11:00 AM"),
-            new Subject("FIL12", "Filipino Subject", 3, 0, 3, null, "F 3:30 PM - 5:30 PM"),
-            new Subject("PE301", "Physical Fitness", 2, 0, 2, null, "Sat 7:30 AM - 9:30 AM")
+            new Subject("IT101", "Introduction to IT", 3, 0, 3),
+            new Subject("CS202", "Data Structures", 2, 1, 3),
+            new Subject("MATE1", "College Algebra", 3, 0, 3),
+            new Subject("FIL12", "Filipino Subject", 3, 0, 3),
+            new Subject("PE301", "Physical Fitness", 2, 0, 2)
         );
 
         for (Subject subject : subjects) {
@@ -78,6 +88,30 @@ public class DataInitializer implements CommandLineRunner {
         }
     }
 
+    // One default section per subject for the current term, unassigned until the department picks a teacher
+    private void createSectionsIfNotFound() {
+        EnrollmentService.Term term = enrollmentService.getCurrentTerm();
+        Map<String, String> schedules = Map.of(
+            "IT101", "MWF 8:30 AM - 9:30 AM R 10:30 AM - 12:30 PM",
+            "CS202", "MW 1:30 PM - 3:00 PM",
+            "MATE1", "TTh 9:30 AM - 11:00 AM",
+            "FIL12", "F 3:30 PM - 5:30 PM",
+            "PE301", "Sat 7:30 AM - 9:30 AM"
+        );
+
+        schedules.forEach((subjectCode, schedule) -> {
+            if (sectionRepository.findOffering(subjectCode, DEFAULT_SECTION_CODE, term.schoolYear(), term.term()).isPresent()) {
+                System.out.println("ℹ️ Section " + subjectCode + " " + DEFAULT_SECTION_CODE + " already exists.");
+                return;
+            }
+            subjectRepository.findByCode(subjectCode).ifPresent(subject -> {
+                sectionRepository.save(new Section(subject, DEFAULT_SECTION_CODE, term.schoolYear(), term.term(), schedule));
+                System.out.println("✅ Created and saved section: " + subjectCode + " " + DEFAULT_SECTION_CODE
+                        + " (" + term.schoolYear() + ", " + term.term() + ")");
+            });
+        });
+    }
+
     private void createDepartmentUserIfNotFound() {
         if (userRepository.findByUsername(DEFAULT_DEPT_USERNAME).isEmpty()) {
             Role deptRole = roleRepository.findByName("ROLE_DEPARTMENT")
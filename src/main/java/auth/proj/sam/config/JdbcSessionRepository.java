@@ -0,0 +1,315 @@
+package auth.proj.sam.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.core.ConfigurableObjectInputStream;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Spring Session repository over the shared http_sessions table, so any instance can serve any request.
+ *
+ * Sessions read back are kept in a small in-process near-cache for a few seconds, so a burst of requests
+ * (a page and its fragments, redirects) does not re-read and deserialize the row every time; another
+ * instance's attribute changes become visible here once the entry expires. A signed-in session served from
+ * the near-cache is first checked to still have its row (a primary-key read), so signing out or expiring
+ * on one instance ends the session everywhere at once. Only what changed is written: changed
+ * attributes are merged into the stored ones under a row lock (so concurrent requests changing different
+ * attributes do not overwrite each other), and a request that only touched the session updates the
+ * last-access time at most once per touch interval.
+ */
+public class JdbcSessionRepository implements SessionRepository<JdbcSessionRepository.StoredSession> {
+
+    // Session state as last written to (or read from) the table
+    private record Snapshot(MapSession session, Instant persistedAccessTime) {
+    }
+
+    public final class StoredSession implements Session {
+        private final MapSession delegate;
+        private String originalId; // id in the table; null until first saved
+        private final Set<String> changedAttributes = new HashSet<>();
+        private boolean intervalChanged;
+        private Instant persistedAccessTime;
+
+        private StoredSession(MapSession delegate, String originalId, Instant persistedAccessTime) {
+            this.delegate = delegate;
+            this.originalId = originalId;
+            this.persistedAccessTime = persistedAccessTime;
+        }
+
+        @Override public String getId() { return delegate.getId(); }
+        @Override public String changeSessionId() { return delegate.changeSessionId(); }
+        @Override public <T> T getAttribute(String attributeName) { return delegate.getAttribute(attributeName); }
+        @Override public Set<String> getAttributeNames() { return delegate.getAttributeNames(); }
+        @Override public Instant getCreationTime() { return delegate.getCreationTime(); }
+        @Override public Instant getLastAccessedTime() { return delegate.getLastAccessedTime(); }
+        @Override public void setLastAccessedTime(Instant lastAccessedTime) { delegate.setLastAccessedTime(lastAccessedTime); }
+        @Override public Duration getMaxInactiveInterval() { return delegate.getMaxInactiveInterval(); }
+        @Override public boolean isExpired() { return delegate.isExpired(); }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            delegate.setAttribute(attributeName, attributeValue);
+            changedAttributes.add(attributeName);
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            delegate.removeAttribute(attributeName);
+            changedAttributes.add(attributeName);
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            delegate.setMaxInactiveInterval(interval);
+            intervalChanged = true;
+        }
+
+        // save() may run more than once per request (response commit, then the end of the filter)
+        private void persisted() {
+            originalId = delegate.getId();
+            persistedAccessTime = delegate.getLastAccessedTime();
+            changedAttributes.clear();
+            intervalChanged = false;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration defaultMaxInactiveInterval;
+    private final Duration touchInterval;
+    private final Cache<String, Snapshot> nearCache; // null when disabled
+
+    public JdbcSessionRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 Duration defaultMaxInactiveInterval, Duration touchInterval,
+                                 Duration nearCacheTtl, long nearCacheSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+        this.touchInterval = touchInterval;
+        this.nearCache = nearCacheTtl.isZero() || nearCacheTtl.isNegative() ? null : Caffeine.newBuilder()
+                .maximumSize(nearCacheSize)
+                .expireAfterWrite(nearCacheTtl)
+                .build();
+    }
+
+    @Override
+    public StoredSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(defaultMaxInactiveInterval);
+        return new StoredSession(session, null, null);
+    }
+
+    @Override
+    public void save(StoredSession session) {
+        MapSession state = session.delegate;
+        if (session.originalId == null) {
+            Map<String, byte[]> attributes = new LinkedHashMap<>();
+            for (String name : state.getAttributeNames()) {
+                attributes.put(name, serialize(name, state.getAttribute(name)));
+            }
+            jdbcTemplate.update("INSERT INTO http_sessions (session_id, principal_name, creation_time, last_access_time, " +
+                            "max_inactive_seconds, expiry_time, attributes) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                    state.getId(), principalName(state), state.getCreationTime().toEpochMilli(),
+                    state.getLastAccessedTime().toEpochMilli(), (int) state.getMaxInactiveInterval().toSeconds(),
+                    expiryTime(state), encode(attributes));
+        } else if (!session.changedAttributes.isEmpty() || session.intervalChanged || !state.getId().equals(session.originalId)) {
+            // The merged row may hold attributes other instances wrote, so the next read reloads it
+            update(session);
+            if (nearCache != null) {
+                nearCache.invalidate(session.originalId);
+                nearCache.invalidate(state.getId());
+            }
+            session.persisted();
+            return;
+        } else if (Duration.between(session.persistedAccessTime, state.getLastAccessedTime()).compareTo(touchInterval) >= 0) {
+            int updated = jdbcTemplate.update("UPDATE http_sessions SET last_access_time = ?, expiry_time = ? WHERE session_id = ?",
+                    state.getLastAccessedTime().toEpochMilli(), expiryTime(state), state.getId());
+            if (updated == 0) {
+                // Signed out elsewhere or swept meanwhile; the next request must not find it in the near-cache
+                if (nearCache != null) {
+                    nearCache.invalidate(state.getId());
+                }
+                return;
+            }
+        } else {
+            return; // nothing worth a write
+        }
+
+        session.persisted();
+        if (nearCache != null) {
+            nearCache.put(state.getId(), new Snapshot(new MapSession(state), session.persistedAccessTime));
+        }
+    }
+
+    // Merges this request's attribute changes into the stored row; a row deleted meanwhile (signed out
+    // elsewhere or expired) is not brought back
+    private void update(StoredSession session) {
+        MapSession state = session.delegate;
+        transactionTemplate.executeWithoutResult(status -> {
+            List<byte[]> stored = jdbcTemplate.query("SELECT attributes FROM http_sessions WHERE session_id = ? FOR UPDATE",
+                    (rs, rowNum) -> rs.getBytes(1), session.originalId);
+            if (stored.isEmpty()) {
+                return;
+            }
+            Map<String, byte[]> attributes = decode(stored.get(0));
+            for (String name : session.changedAttributes) {
+                Object value = state.getAttribute(name);
+                if (value == null) {
+                    attributes.remove(name);
+                } else {
+                    attributes.put(name, serialize(name, value));
+                }
+            }
+            jdbcTemplate.update("UPDATE http_sessions SET session_id = ?, principal_name = ?, last_access_time = ?, " +
+                            "max_inactive_seconds = ?, expiry_time = ?, attributes = ? WHERE session_id = ?",
+                    state.getId(), principalName(state), state.getLastAccessedTime().toEpochMilli(),
+                    (int) state.getMaxInactiveInterval().toSeconds(), expiryTime(state), encode(attributes), session.originalId);
+        });
+    }
+
+    @Override
+    public StoredSession findById(String id) {
+        Snapshot snapshot = nearCache != null ? nearCache.getIfPresent(id) : null;
+        if (snapshot != null && principalName(snapshot.session()) != null && !exists(id)) {
+            // Deleted by another instance since it was cached; never authenticate from that copy
+            nearCache.invalidate(id);
+            return null;
+        }
+        if (snapshot == null) {
+            snapshot = load(id);
+            if (snapshot == null) {
+                return null;
+            }
+            if (nearCache != null) {
+                nearCache.put(id, snapshot);
+            }
+        }
+        if (snapshot.session().isExpired()) {
+            deleteById(id);
+            return null;
+        }
+        // Each request works on its own copy; the cached snapshot only changes through save()
+        return new StoredSession(new MapSession(snapshot.session()), id, snapshot.persistedAccessTime());
+    }
+
+    private boolean exists(String id) {
+        return !jdbcTemplate.queryForList("SELECT 1 FROM http_sessions WHERE session_id = ?", Integer.class, id).isEmpty();
+    }
+
+    private Snapshot load(String id) {
+        List<Snapshot> rows = jdbcTemplate.query("SELECT creation_time, last_access_time, max_inactive_seconds, attributes " +
+                "FROM http_sessions WHERE session_id = ?", (rs, rowNum) -> {
+            MapSession session = new MapSession(id);
+            session.setCreationTime(Instant.ofEpochMilli(rs.getLong(1)));
+            session.setLastAccessedTime(Instant.ofEpochMilli(rs.getLong(2)));
+            session.setMaxInactiveInterval(Duration.ofSeconds(rs.getInt(3)));
+            try {
+                decode(rs.getBytes(4)).forEach((name, value) -> session.setAttribute(name, deserialize(value)));
+            } catch (RuntimeException e) {
+                // Typically a class changed incompatibly in a new release; the user just signs in again
+                System.out.println("⚠️ Discarding unreadable session: " + e.getMessage());
+                return null;
+            }
+            return new Snapshot(session, session.getLastAccessedTime());
+        }, id);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        if (rows.get(0) == null) {
+            deleteById(id);
+            return null;
+        }
+        return rows.get(0);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        jdbcTemplate.update("DELETE FROM http_sessions WHERE session_id = ?", id);
+        if (nearCache != null) {
+            nearCache.invalidate(id);
+        }
+    }
+
+    // One batch of the maintenance sweep (see MaintenanceSweeper)
+    public int purgeExpiredSessions(int limit) {
+        return jdbcTemplate.update("DELETE FROM http_sessions WHERE expiry_time < ? LIMIT ?", System.currentTimeMillis(), limit);
+    }
+
+    private static long expiryTime(MapSession session) {
+        return session.getLastAccessedTime().plus(session.getMaxInactiveInterval()).toEpochMilli();
+    }
+
+    private static String principalName(MapSession session) {
+        Object context = session.getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+        if (context instanceof SecurityContext securityContext && securityContext.getAuthentication() != null) {
+            return securityContext.getAuthentication().getName();
+        }
+        return null;
+    }
+
+    private static byte[] serialize(String name, Object value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            throw new RuntimeException("Session attribute '" + name + "' (" + value.getClass().getName() + ") is not serializable.", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] value) {
+        try (ObjectInputStream in = new ConfigurableObjectInputStream(new ByteArrayInputStream(value),
+                JdbcSessionRepository.class.getClassLoader())) {
+            return in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new RuntimeException("Could not read session attribute: " + e, e);
+        }
+    }
+
+    // Attribute count, then name, length and serialized value of each attribute
+    private static byte[] encode(Map<String, byte[]> attributes) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(attributes.size());
+            for (Map.Entry<String, byte[]> attribute : attributes.entrySet()) {
+                out.writeUTF(attribute.getKey());
+                out.writeInt(attribute.getValue().length);
+                out.write(attribute.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Map<String, byte[]> decode(byte[] encoded) {
+        Map<String, byte[]> attributes = new LinkedHashMap<>();
+        if (encoded == null || encoded.length == 0) {
+            return attributes;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                byte[] value = new byte[in.readInt()];
+                in.readFully(value);
+                attributes.put(name, value);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return attributes;
+    }
+}
@@ -2,10 +2,13 @@ package auth.proj.sam.config;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 
+import java.util.List;
+
 @Configuration
 public class MvcConfig implements WebMvcConfigurer {
 
@@ -13,6 +16,12 @@ public class MvcConfig implements WebMvcConfigurer {
     @Value("${app.upload.dir}")
     private String uploadDir;
 
+    private final CurrentUserArgumentResolver currentUserArgumentResolver;
+
+    public MvcConfig(CurrentUserArgumentResolver currentUserArgumentResolver) {
+        this.currentUserArgumentResolver = currentUserArgumentResolver;
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         // This maps the URL path "/uploads/**" to the external directory
@@ -26,4 +35,10 @@ public class MvcConfig implements WebMvcConfigurer {
         // Add a view controller to redirect the root path to /login
         registry.addViewController("/").setViewName("redirect:/login");
     }
-}
\ No newline at end of file
+
+    // --- NEW: @CurrentUser controller parameters ---
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(currentUserArgumentResolver);
+    }
+}
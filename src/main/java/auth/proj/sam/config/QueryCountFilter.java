@@ -0,0 +1,47 @@
+package auth.proj.sam.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Counts the queries of each request, security filters included. The total is left in the
+ * {@link #QUERY_COUNT} request attribute so tests can assert a query budget per endpoint, and
+ * requests over app.query-budget.per-request are logged.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    public static final String QUERY_COUNT = QueryCountFilter.class.getName() + ".count";
+
+    private final int budget;
+
+    public QueryCountFilter(@Value("${app.query-budget.per-request:10}") int budget) {
+        this.budget = budget;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryCountInspector.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int count = QueryCountInspector.stop();
+            request.setAttribute(QUERY_COUNT, count);
+            if (budget > 0 && count > budget) {
+                System.out.println("⚠️ " + request.getMethod() + " " + request.getRequestURI() + " ran " + count
+                        + " queries (budget " + budget + ").");
+            }
+        }
+    }
+}
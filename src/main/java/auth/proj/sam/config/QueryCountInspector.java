@@ -0,0 +1,48 @@
+package auth.proj.sam.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread while a count is open
+ * (QueryCountFilter opens one per request). JdbcTemplate statements bypass Hibernate and are not counted.
+ */
+@Component
+public class QueryCountInspector implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private static final ThreadLocal<int[]> COUNT = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        int[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    public static void start() {
+        COUNT.set(new int[1]);
+    }
+
+    // Statements counted since start(), or -1 when no count is open on this thread
+    public static int count() {
+        int[] count = COUNT.get();
+        return count != null ? count[0] : -1;
+    }
+
+    public static int stop() {
+        int count = count();
+        COUNT.remove();
+        return count;
+    }
+}
@@ -1,19 +1,34 @@
 package auth.proj.sam.config;
 
 import auth.proj.sam.model.User;
-import auth.proj.sam.repository.UserRepository;
+import auth.proj.sam.service.ApiTokenService;
+import auth.proj.sam.service.UserLookupService;
+import auth.proj.sam.service.UserService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.AuthenticationFailureHandler;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
+import org.springframework.security.web.context.DelegatingSecurityContextRepository;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextHolderFilter;
+import org.springframework.security.web.context.SecurityContextRepository;
+
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
@@ -27,31 +42,114 @@ public class SecurityConfig {
         this.customLoginSuccessHandler = customLoginSuccessHandler;
     }
 
+    // --- Password hashing: calibrated bcrypt behind a bounded hashing pool ---
+    @Value("${app.security.bcrypt.strength:0}")
+    private int bcryptStrength;
+
+    @Value("${app.security.bcrypt.target-ms:250}")
+    private long bcryptTargetMillis;
+
+    @Value("${app.security.bcrypt.min-strength:10}")
+    private int bcryptMinStrength;
+
+    @Value("${app.security.bcrypt.max-strength:14}")
+    private int bcryptMaxStrength;
+
+    @Value("${app.security.hashing.threads:0}")
+    private int hashingThreads;
+
+    @Value("${app.security.hashing.queue-capacity:200}")
+    private int hashingQueueCapacity;
+
+    @Value("${app.security.hashing.timeout-ms:10000}")
+    private long hashingTimeoutMillis;
+
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder() {
+        int strength = bcryptStrength > 0
+                ? bcryptStrength
+                : BcryptCalibrator.calibrate(bcryptTargetMillis, bcryptMinStrength, bcryptMaxStrength);
+        System.out.println("🔐 Using bcrypt strength " + strength + " for new password hashes.");
+
+        // New hashes are stored as {bcrypt}...; legacy hashes without a prefix are still matched by bcrypt
+        // and get re-encoded on the next successful login (see authenticationProvider).
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(delegating, threads, hashingQueueCapacity, hashingTimeoutMillis);
     }
 
     @Bean
-    public UserDetailsService userDetailsService(UserRepository userRepository) {
+    public UserDetailsService userDetailsService(UserLookupService userLookupService) {
+        // A cached user is only used after checking that the row has not changed since (see UserLookupService)
         return username -> {
-            User user = userRepository.findByUsername(username)
+            User user = userLookupService.findByUsername(username)
                     .orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
             return new CustomUserDetails(user);
         };
     }
 
     @Bean
-    public DaoAuthenticationProvider authenticationProvider(UserRepository userRepository) {
+    public DaoAuthenticationProvider authenticationProvider(UserLookupService userLookupService, UserService userService) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
-        authProvider.setUserDetailsService(userDetailsService(userRepository));
+        authProvider.setUserDetailsService(userDetailsService(userLookupService));
         authProvider.setPasswordEncoder(passwordEncoder());
+        // Transparently re-hash on successful login when the stored hash is weaker than the current setting
+        authProvider.setUserDetailsPasswordService((userDetails, newEncodedPassword) -> {
+            User user = ((CustomUserDetails) userDetails).getUser();
+            userService.upgradePasswordHash(user, newEncodedPassword);
+            return new CustomUserDetails(user);
+        });
         return authProvider;
     }
 
+    // --- NEW: Shared so controllers that replace the principal can save it back (see SecurityContextUpdater) ---
+    @Bean
+    public SecurityContextRepository securityContextRepository() {
+        return new DelegatingSecurityContextRepository(
+                new RequestAttributeSecurityContextRepository(), new HttpSessionSecurityContextRepository());
+    }
+
+    // --- NEW: Stateless /api/** surface: bearer access tokens only, no session and no CSRF (no cookies involved) ---
+    @Bean
+    @Order(1)
+    public SecurityFilterChain apiFilterChain(HttpSecurity http, ApiTokenService apiTokenService) throws Exception {
+        http
+            .securityMatcher("/api/**")
+            .csrf(csrf -> csrf.disable())
+            // Never rotate or create a session here, even when a browser call brings its session cookie
+            .sessionManagement(session -> session
+                .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                .sessionFixation(fixation -> fixation.none())
+            )
+            .requestCache(cache -> cache.disable())
+            .addFilterAfter(new ApiTokenAuthenticationFilter(apiTokenService), SecurityContextHolderFilter.class)
+            .authorizeHttpRequests(auth -> auth
+                .requestMatchers("/api/auth/**").permitAll()
+                .requestMatchers("/api/v1/students/**").hasRole("STUDENT")
+                .requestMatchers("/api/v1/department/**").hasRole("DEPARTMENT")
+                .anyRequest().authenticated()
+            )
+            .exceptionHandling(exceptions -> exceptions
+                .authenticationEntryPoint((request, response, e) -> {
+                    Object error = request.getAttribute(ApiTokenAuthenticationFilter.ERROR_ATTRIBUTE);
+                    response.setStatus(HttpStatus.UNAUTHORIZED.value());
+                    response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+                    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                    response.getWriter().write("{\"error\":\"" + (error != null ? error : "Authentication required.") + "\"}");
+                })
+            );
+        return http.build();
+    }
+
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, UserLookupService userLookupService) throws Exception {
         http
+            .securityContext(context -> context.securityContextRepository(securityContextRepository()))
+            // Sessions only store a compact principal; the full user is attached again per request
+            .addFilterAfter(new SessionPrincipalFilter(userLookupService), SecurityContextHolderFilter.class)
             .authorizeHttpRequests(auth -> auth
                 // ADD "/register/student" HERE
                 .requestMatchers("/", "/login", "/register", "/register/student", "/verify", "/forgot-password", "/reset-password", "/mfa-verify", "/css/**", "/js/**", "/images/**", "/uploads/**").permitAll()
@@ -0,0 +1,41 @@
+package auth.proj.sam.config;
+
+import auth.proj.sam.model.User;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Replaces the signed-in authentication and saves it explicitly. Changing the current context in place
+ * is not enough once sessions live outside the container: only attributes that are set again are
+ * written back to the session store.
+ */
+@Component
+public class SecurityContextUpdater {
+
+    private final SecurityContextRepository securityContextRepository;
+
+    public SecurityContextUpdater(SecurityContextRepository securityContextRepository) {
+        this.securityContextRepository = securityContextRepository;
+    }
+
+    // Swaps in a principal built from the freshly saved user, keeping the current authorities
+    public void updatePrincipal(User user) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        setAuthentication(new UsernamePasswordAuthenticationToken(
+                new CustomUserDetails(user), authentication.getCredentials(), authentication.getAuthorities()));
+    }
+
+    public void setAuthentication(Authentication authentication) {
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(authentication);
+        SecurityContextHolder.setContext(context);
+        ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+        securityContextRepository.saveContext(context, attributes.getRequest(), attributes.getResponse());
+    }
+}
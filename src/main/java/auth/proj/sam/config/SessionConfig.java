@@ -0,0 +1,33 @@
+package auth.proj.sam.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+/**
+ * Session store selection (app.session.store): "jdbc" keeps sessions in the shared http_sessions table
+ * so instances can run side by side without sticky sessions; "memory" leaves them in the servlet
+ * container of a single instance.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.session.store", havingValue = "jdbc", matchIfMissing = true)
+@EnableSpringHttpSession
+public class SessionConfig {
+
+    @Bean
+    public JdbcSessionRepository sessionRepository(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                                   @Value("${server.servlet.session.timeout:30m}") Duration timeout,
+                                                   @Value("${app.session.touch-interval-seconds:60}") long touchIntervalSeconds,
+                                                   @Value("${app.session.near-cache.ttl-seconds:5}") long nearCacheTtlSeconds,
+                                                   @Value("${app.session.near-cache.max-size:10000}") long nearCacheSize) {
+        System.out.println("🗄️ HTTP sessions are stored in the database (near-cache " + nearCacheTtlSeconds + "s).");
+        return new JdbcSessionRepository(jdbcTemplate, transactionManager, timeout, Duration.ofSeconds(touchIntervalSeconds),
+                Duration.ofSeconds(nearCacheTtlSeconds), nearCacheSize);
+    }
+}
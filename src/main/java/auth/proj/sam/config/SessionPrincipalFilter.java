@@ -0,0 +1,46 @@
+package auth.proj.sam.config;
+
+import auth.proj.sam.model.User;
+import auth.proj.sam.service.UserLookupService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Re-attaches the full User to a principal read back from the session store, which only carries the
+ * compact snapshot. The user comes from the user cache; if the account no longer exists the request
+ * continues unauthenticated. Registered in SecurityConfig right after the security context is loaded.
+ */
+public class SessionPrincipalFilter extends OncePerRequestFilter {
+
+    private final UserLookupService userLookupService;
+
+    public SessionPrincipalFilter(UserLookupService userLookupService) {
+        this.userLookupService = userLookupService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        // Without a session there is no stored principal; avoid resolving the deferred context at all
+        if (request.getSession(false) != null) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails details && !details.hasUser()) {
+                Optional<User> user = userLookupService.findByUsername(details.getUsername());
+                if (user.isPresent()) {
+                    details.attachUser(user.get());
+                } else {
+                    SecurityContextHolder.clearContext();
+                }
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,106 @@
+package auth.proj.sam.controller;
+
+import auth.proj.sam.config.CustomUserDetails;
+import auth.proj.sam.dto.ApiRefreshRequestDto;
+import auth.proj.sam.dto.ApiTokenRequestDto;
+import auth.proj.sam.model.User;
+import auth.proj.sam.repository.UserRepository;
+import auth.proj.sam.service.ApiTokenService;
+import auth.proj.sam.service.MfaService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AccountStatusException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Token endpoints of the stateless API: credentials (plus the MFA code when enabled) are exchanged for
+ * an access/refresh token pair, and a refresh token for a new pair once the account has been checked again.
+ */
+@RestController
+@RequestMapping("/api/auth")
+public class ApiAuthController {
+
+    private final DaoAuthenticationProvider authenticationProvider;
+    private final ApiTokenService apiTokenService;
+    private final MfaService mfaService;
+    private final UserRepository userRepository;
+
+    public ApiAuthController(DaoAuthenticationProvider authenticationProvider, ApiTokenService apiTokenService,
+                             MfaService mfaService, UserRepository userRepository) {
+        this.authenticationProvider = authenticationProvider;
+        this.apiTokenService = apiTokenService;
+        this.mfaService = mfaService;
+        this.userRepository = userRepository;
+    }
+
+    @PostMapping("/token")
+    public ResponseEntity<Map<String, Object>> token(@RequestBody ApiTokenRequestDto request) {
+        Authentication authentication;
+        try {
+            authentication = authenticationProvider.authenticate(
+                    UsernamePasswordAuthenticationToken.unauthenticated(request.getUsername(), request.getPassword()));
+        } catch (AccountStatusException e) {
+            return error(HttpStatus.FORBIDDEN, "Your account is locked or not verified.");
+        } catch (AuthenticationException e) {
+            return error(HttpStatus.UNAUTHORIZED, "Invalid username or password.");
+        }
+
+        User user = ((CustomUserDetails) authentication.getPrincipal()).getUser();
+        if (user.isMfaEnabled()) {
+            if (request.getCode() == null || request.getCode().isBlank()) {
+                return error(HttpStatus.UNAUTHORIZED, "MFA code required.");
+            }
+            if (!mfaService.isTotpValid(user.getId(), user.getMfaSecret(), request.getCode().trim())) {
+                return error(HttpStatus.UNAUTHORIZED, "Invalid MFA code.");
+            }
+        }
+        return ResponseEntity.ok(body(apiTokenService.issue(user)));
+    }
+
+    // Unlike access tokens, a refresh always reads the account from the database, so a block,
+    // timeout or password change takes effect at the next refresh at the latest
+    @PostMapping("/refresh")
+    public ResponseEntity<Map<String, Object>> refresh(@RequestBody ApiRefreshRequestDto request) {
+        ApiTokenService.Claims claims;
+        try {
+            claims = apiTokenService.parse(request.getRefreshToken(), ApiTokenService.Type.REFRESH);
+        } catch (ApiTokenService.InvalidTokenException e) {
+            return error(HttpStatus.UNAUTHORIZED, e.getMessage());
+        }
+
+        Optional<User> found = userRepository.findByUsername(claims.username());
+        if (found.isEmpty() || !found.get().getId().equals(claims.userId())
+                || !apiTokenService.passwordStamp(found.get()).equals(claims.passwordStamp())) {
+            return error(HttpStatus.UNAUTHORIZED, "Token has been revoked.");
+        }
+        User user = found.get();
+        if (!user.isEnabled() || ApiTokenService.effectiveStatus(user) != User.AccountStatus.ACTIVE) {
+            return error(HttpStatus.FORBIDDEN, "Your account is locked or not verified.");
+        }
+        return ResponseEntity.ok(body(apiTokenService.issue(user)));
+    }
+
+    private static Map<String, Object> body(ApiTokenService.TokenPair tokens) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("accessToken", tokens.accessToken());
+        body.put("refreshToken", tokens.refreshToken());
+        body.put("tokenType", "Bearer");
+        body.put("expiresIn", tokens.expiresIn());
+        return body;
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(Map.of("error", message));
+    }
+}
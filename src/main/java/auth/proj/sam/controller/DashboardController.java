@@ -1,62 +1,67 @@
 package auth.proj.sam.controller;
 
 import auth.proj.sam.config.CustomUserDetails;
+import auth.proj.sam.dto.GradeSubmissionDto;
+import auth.proj.sam.dto.RosterPage;
 import auth.proj.sam.model.User;
+import auth.proj.sam.repository.EnrollmentRepository.RosterEntry;
+import auth.proj.sam.repository.SectionRepository.TeacherSection;
 import auth.proj.sam.repository.UserRepository;
+import auth.proj.sam.service.EnrollmentService;
+import auth.proj.sam.service.GradeEntryService;
+import auth.proj.sam.service.GradeExportService;
 import auth.proj.sam.service.UserService;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
-import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.Arrays;
-import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @Controller
 public class DashboardController {
 
     private final UserService userService;
     private final UserRepository userRepository;
+    private final EnrollmentService enrollmentService;
+    private final GradeExportService gradeExportService;
+    private final GradeEntryService gradeEntryService;
 
-    public DashboardController(UserService userService, UserRepository userRepository) {
+    public DashboardController(UserService userService, UserRepository userRepository, EnrollmentService enrollmentService,
+                               GradeExportService gradeExportService, GradeEntryService gradeEntryService) {
         this.userService = userService;
         this.userRepository = userRepository;
+        this.enrollmentService = enrollmentService;
+        this.gradeExportService = gradeExportService;
+        this.gradeEntryService = gradeEntryService;
     }
     
-    // --- DUMMY DATA FOR TEACHER'S SUBJECTS AND STUDENTS ---
-    private List<Map<String, String>> getTeacherSubjects(User teacher) {
-        // Dummy data: assume teacher teaches these subjects.
-        return Arrays.asList(
-            Map.of("code", "IT101", "description", "Introduction to IT", "schedule", "MWF 8:30 AM", "count", "35"),
-            Map.of("code", "CS202", "description", "Data Structures", "schedule", "MW 1:30 PM", "count", "30")
-        );
+    // The requested section if the teacher handles it this term, otherwise their first one
+    private Optional<TeacherSection> pickSection(List<TeacherSection> sections, Long sectionId) {
+        return sections.stream()
+                .filter(section -> sectionId == null || section.getId().equals(sectionId))
+                .findFirst()
+                .or(() -> sections.stream().findFirst());
     }
-    
-    // FIX: ADDED "grade" FIELD TO EACH MAP
-    private List<Map<String, String>> getStudentsForSubject(String subjectCode) {
-        // Dummy data: a list of students in one of the teacher's classes.
-        if ("IT101".equals(subjectCode)) {
-            return Arrays.asList(
-                Map.of("id", "22-1-00001", "name", "John Smith", "course", "BSIT 1-1", "grade", "1.75"),
-                Map.of("id", "22-1-00002", "name", "Jane Doe", "course", "BSIT 1-1", "grade", "2.00"),
-                Map.of("id", "22-1-00003", "name", "Alice Brown", "course", "BSCS 2-1", "grade", "INC"),
-                Map.of("id", "22-1-00004", "name", "Bob Green", "course", "BSCS 2-1", "grade", "2.50"),
-                Map.of("id", "22-1-00005", "name", "Eva White", "course", "BSIT 1-2", "grade", "1.00")
-            );
-        } else {
-             return Collections.emptyList();
-        }
-    }
-    // --- END DUMMY DATA ---
 
     @GetMapping("/student/dashboard")
     public String studentDashboard(@AuthenticationPrincipal CustomUserDetails userDetails, Model model) {
         User currentUser = userDetails.getUser();
         model.addAttribute("user", currentUser);
+        model.addAttribute("education", userService.getEducationalInfo(currentUser));
+        model.addAttribute("family", userService.getFamilyInfo(currentUser));
 
         if (currentUser.getAccountStatus() == User.AccountStatus.TIMED_OUT && currentUser.getTimeoutUntil() != null) {
             long minutesLeft = ChronoUnit.MINUTES.between(LocalDateTime.now(), currentUser.getTimeoutUntil());
@@ -70,13 +75,15 @@ public class DashboardController {
         User teacher = userDetails.getUser();
         model.addAttribute("user", teacher); 
         
-        // Data for the teacher dashboard content
-        List<Map<String, String>> subjects = getTeacherSubjects(teacher);
-        model.addAttribute("subjects", subjects);
+        // The teacher's sections of the current term with their enrolled counts (one grouped query)
+        List<TeacherSection> sections = enrollmentService.getTeacherSections(teacher);
+        model.addAttribute("subjects", sections);
         
-        // Add one specific subject's student list as a dummy block
-        model.addAttribute("subjectStudents", getStudentsForSubject("IT101")); 
-        model.addAttribute("subjectTitle", "IT101 - Introduction to IT");
+        // First page of the first section's roster
+        Optional<TeacherSection> first = pickSection(sections, null);
+        model.addAttribute("subjectStudents", first.map(section -> enrollmentService.getRosterPage(section, "name", false, 0, 10).getStudents())
+                .orElse(List.of()));
+        model.addAttribute("subjectTitle", first.map(section -> section.getSubjectCode() + " - " + section.getSectionCode()).orElse("your sections"));
 
         return "teacher-dashboard"; 
     }
@@ -85,17 +92,126 @@ public class DashboardController {
      * Shows the dedicated student list page for the teacher.
      */
     @GetMapping("/teacher/students")
-    public String showManageStudentsPage(@AuthenticationPrincipal CustomUserDetails userDetails, Model model) {
+    public String showManageStudentsPage(@AuthenticationPrincipal CustomUserDetails userDetails,
+                                         @RequestParam(value = "sectionId", required = false) Long sectionId,
+                                         @RequestParam(value = "sort", defaultValue = "name") String sort,
+                                         @RequestParam(value = "dir", defaultValue = "asc") String dir,
+                                         @RequestParam(value = "page", defaultValue = "0") int page,
+                                         @RequestParam(value = "size", defaultValue = "50") int size,
+                                         Model model) {
         User teacher = userDetails.getUser();
         model.addAttribute("user", teacher);
         
-        // DUMMY: Assume the teacher is assigned to IT101 students
-        List<Map<String, String>> students = getStudentsForSubject("IT101");
+        // Only sections handled by this teacher can be opened; counts come from the same grouped query
+        List<TeacherSection> sections = enrollmentService.getTeacherSections(teacher);
+        Optional<TeacherSection> section = pickSection(sections, sectionId);
+        Optional<RosterPage> roster = section.map(s -> enrollmentService.getRosterPage(s, sort, "desc".equalsIgnoreCase(dir), page, size));
         
-        model.addAttribute("students", students);
-        model.addAttribute("course", "IT101 - Introduction to IT");
-        model.addAttribute("totalStudents", students.size());
+        model.addAttribute("sections", sections);
+        model.addAttribute("selectedSectionId", section.map(TeacherSection::getId).orElse(null));
+        model.addAttribute("roster", roster.orElse(null));
+        model.addAttribute("students", roster.map(RosterPage::getStudents).orElse(List.of()));
+        model.addAttribute("course", section.map(s -> s.getSubjectCode() + " - " + s.getDescription() + " (" + s.getSectionCode() + ")")
+                .orElse("No sections assigned this term"));
+        model.addAttribute("totalStudents", roster.map(RosterPage::getTotalStudents).orElse(0L));
+        model.addAttribute("gradeScale", GradeEntryService.GRADE_SCALE);
         
         return "manage-teacher-students"; 
     }
-}
\ No newline at end of file
+
+    /**
+     * Downloads a section's grade sheet as CSV or XLSX, streamed from the database while it is written.
+     */
+    @GetMapping("/teacher/sections/{sectionId}/export")
+    public ResponseEntity<StreamingResponseBody> exportSection(@AuthenticationPrincipal CustomUserDetails userDetails,
+                                                               @PathVariable Long sectionId,
+                                                               @RequestParam(value = "format", defaultValue = "csv") String format) {
+        // Only the teacher handling the section may export it
+        Optional<String> title = enrollmentService.getSectionTitle(sectionId, userDetails.getUser());
+        if (title.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        GradeExportService.Format exportFormat = GradeExportService.Format.of(format);
+        Optional<StreamingResponseBody> body = gradeExportService.reserveSlot(
+                out -> gradeExportService.exportSection(sectionId, title.get(), exportFormat, out));
+        if (body.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "30").build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(GradeExportService.fileName("grades", title.get(), exportFormat)).build().toString())
+                .body(body.get());
+    }
+
+    // --- NEW: BATCH GRADE ENTRY (JSON API, and the roster form posting a whole page at once) ---
+    @GetMapping(value = "/teacher/sections/{sectionId}/grades", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> gradeSheet(@AuthenticationPrincipal CustomUserDetails userDetails,
+                                                          @PathVariable Long sectionId) {
+        Optional<String> title = enrollmentService.getSectionTitle(sectionId, userDetails.getUser());
+        if (title.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        List<Map<String, Object>> grades = enrollmentService.getGradeSheet(sectionId).stream().map(DashboardController::gradeRow).toList();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("sectionId", sectionId);
+        body.put("section", title.get());
+        body.put("grades", grades);
+        return ResponseEntity.ok(body);
+    }
+
+    @PostMapping(value = "/teacher/sections/{sectionId}/grades", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> submitGrades(@AuthenticationPrincipal CustomUserDetails userDetails,
+                                                            @PathVariable Long sectionId,
+                                                            @RequestBody GradeSubmissionDto submission) {
+        if (enrollmentService.getSectionTitle(sectionId, userDetails.getUser()).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            GradeEntryService.Result result = gradeEntryService.submit(sectionId, userDetails.getUser(), submission.getGrades());
+            return ResponseEntity.ok(Map.of("updated", result.updated(), "unchanged", result.unchanged()));
+        } catch (GradeEntryService.InvalidGradesException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid grades.", "errors", e.getErrors()));
+        } catch (GradeEntryService.GradeConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage(), "conflicts", e.getConflicts()));
+        }
+    }
+
+    @PostMapping(value = "/teacher/sections/{sectionId}/grades", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public String submitGradesForm(@AuthenticationPrincipal CustomUserDetails userDetails,
+                                   @PathVariable Long sectionId,
+                                   @ModelAttribute GradeSubmissionDto submission,
+                                   @RequestParam(value = "sort", defaultValue = "name") String sort,
+                                   @RequestParam(value = "dir", defaultValue = "asc") String dir,
+                                   @RequestParam(value = "page", defaultValue = "0") int page,
+                                   @RequestParam(value = "size", defaultValue = "50") int size,
+                                   RedirectAttributes redirectAttributes) {
+        try {
+            GradeEntryService.Result result = gradeEntryService.submit(sectionId, userDetails.getUser(), submission.getGrades());
+            redirectAttributes.addFlashAttribute("message", "Saved " + result.updated() + " grade(s); " + result.unchanged() + " unchanged.");
+        } catch (GradeEntryService.GradeConflictException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage() + " Changed: "
+                    + String.join(", ", e.getConflicts().stream().map(GradeEntryService.Conflict::studentId).toList()) + ".");
+        } catch (RuntimeException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+        redirectAttributes.addAttribute("sectionId", sectionId);
+        redirectAttributes.addAttribute("sort", sort);
+        redirectAttributes.addAttribute("dir", dir);
+        redirectAttributes.addAttribute("page", page);
+        redirectAttributes.addAttribute("size", size);
+        return "redirect:/teacher/students";
+    }
+
+    private static Map<String, Object> gradeRow(RosterEntry student) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("studentId", student.getUsername());
+        row.put("lastName", student.getLastName());
+        row.put("firstName", student.getFirstName());
+        row.put("grade", student.getGrade());
+        row.put("version", student.getVersion());
+        return row;
+    }
+}
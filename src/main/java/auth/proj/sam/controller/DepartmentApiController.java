@@ -0,0 +1,75 @@
+package auth.proj.sam.controller;
+
+import auth.proj.sam.dto.ImportJob;
+import auth.proj.sam.dto.TeacherRegistrationDto;
+import auth.proj.sam.service.TeacherProvisioningService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batch teacher provisioning for scripts and integrations. Lives on the stateless /api/** chain (bearer
+ * token of a department account, no session cookie, so no CSRF token needed); the upload form stays on
+ * /department/teachers/provision.
+ */
+@RestController
+@RequestMapping("/api/v1/department/teachers/provision")
+public class DepartmentApiController {
+
+    private final TeacherProvisioningService teacherProvisioningService;
+
+    public DepartmentApiController(TeacherProvisioningService teacherProvisioningService) {
+        this.teacherProvisioningService = teacherProvisioningService;
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> provisionTeachers(@RequestBody List<TeacherRegistrationDto> teachers) {
+        try {
+            ImportJob job = teacherProvisioningService.startFromList(teachers);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(jobStatus(job));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> teacherProvisioningStatus(@PathVariable String jobId) {
+        return teacherProvisioningService.getJob(jobId)
+                .map(job -> ResponseEntity.ok(jobStatus(job)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{jobId}/report.csv")
+    public void downloadProvisioningReport(@PathVariable String jobId, HttpServletResponse response) throws IOException {
+        ImportJob job = teacherProvisioningService.getJob(jobId).orElse(null);
+        if (job == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        DepartmentController.writeProvisioningReport(job, response);
+    }
+
+    private static Map<String, Object> jobStatus(ImportJob job) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("jobId", job.getId());
+        status.put("status", job.getStatus());
+        status.put("rowsRead", job.getRowsRead());
+        status.put("created", job.getImported());
+        status.put("failed", job.getFailed());
+        status.put("message", job.getMessage());
+        status.put("reportUrl", "/api/v1/department/teachers/provision/" + job.getId() + "/report.csv");
+        return status;
+    }
+}
@@ -1,40 +1,67 @@
 package auth.proj.sam.controller;
 
 import auth.proj.sam.config.CustomUserDetails;
+import auth.proj.sam.dto.ImportJob;
+import auth.proj.sam.dto.TeacherDirectoryPage;
 import auth.proj.sam.dto.TeacherRegistrationDto;
 import auth.proj.sam.model.User;
+import auth.proj.sam.repository.EnrollmentRepository;
 import auth.proj.sam.repository.UserRepository;
+import auth.proj.sam.service.CsvWriter;
+import auth.proj.sam.service.EnrollmentService;
+import auth.proj.sam.service.GradeExportService;
+import auth.proj.sam.service.StudentImportService;
+import auth.proj.sam.service.SubjectCatalogService;
+import auth.proj.sam.service.TeacherProvisioningService;
 import auth.proj.sam.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Optional;
 
 @Controller
 public class DepartmentController {
 
     private final UserService userService;
     private final UserRepository userRepository;
+    private final StudentImportService studentImportService;
+    private final TeacherProvisioningService teacherProvisioningService;
+    private final SubjectCatalogService subjectCatalogService;
+    private final EnrollmentService enrollmentService;
+    private final GradeExportService gradeExportService;
 
-    // Mock list of available subjects/courses for assignment
-    private final List<String> availableSubjects = Arrays.asList(
-            "BSIT 101 - Intro to IT", 
-            "CS 202 - Data Structures", 
-            "CE 301 - Structural Design", 
-            "PE 101 - Physical Education"
-    );
-
-    public DepartmentController(UserService userService, UserRepository userRepository) {
+    public DepartmentController(UserService userService, UserRepository userRepository,
+                                StudentImportService studentImportService,
+                                TeacherProvisioningService teacherProvisioningService,
+                                SubjectCatalogService subjectCatalogService,
+                                EnrollmentService enrollmentService,
+                                GradeExportService gradeExportService) {
         this.userService = userService;
         this.userRepository = userRepository;
+        this.studentImportService = studentImportService;
+        this.teacherProvisioningService = teacherProvisioningService;
+        this.subjectCatalogService = subjectCatalogService;
+        this.enrollmentService = enrollmentService;
+        this.gradeExportService = gradeExportService;
     }
 
     @GetMapping("/department/dashboard")
@@ -52,14 +79,17 @@ public class DepartmentController {
     }
     
     @GetMapping("/department/teachers")
-    public String showManageTeachers(Model model) {
-        List<User> allUsers = userRepository.findAll();
-        List<User> teachers = allUsers.stream()
-            .filter(user -> user.getRoles().stream()
-                .anyMatch(role -> role.getName().equals("ROLE_TEACHER")))
-            .collect(Collectors.toList());
-            
-        model.addAttribute("teachers", teachers);
+    public String showManageTeachers(
+            @RequestParam(value = "q", required = false) String search,
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "dir", defaultValue = "asc") String dir,
+            @RequestParam(value = "size", defaultValue = "25") int size,
+            Model model
+    ) {
+        TeacherDirectoryPage page = userService.findTeachers(search, after, "desc".equalsIgnoreCase(dir), size);
+
+        model.addAttribute("page", page);
+        model.addAttribute("teachers", page.getTeachers());
         
         return "manage-teachers"; 
     }
@@ -74,64 +104,126 @@ public class DepartmentController {
                 .orElseThrow(() -> new RuntimeException("Teacher not found with ID: " + teacherId));
 
         model.addAttribute("teacher", teacher);
-        model.addAttribute("availableSubjects", availableSubjects);
-
-        // DUMMY: Mock assigned subjects based on whether the ID is default or not
-        List<String> assignedSubjectsMock = teacherId.equals("22-1-99999") 
-            ? Arrays.asList("BSIT 101 - Intro to IT", "CS 202 - Data Structures")
-            : Arrays.asList("PE 101 - Physical Education");
-            
-        model.addAttribute("assignedSubjects", assignedSubjectsMock);
+        // Current-term sections without a teacher, and the ones this teacher handles (with enrolled counts)
+        model.addAttribute("availableSections", enrollmentService.getUnassignedSections());
+        model.addAttribute("assignedSubjects", enrollmentService.getTeacherSections(teacher));
+        model.addAttribute("term", enrollmentService.getCurrentTerm());
 
         return "manage-assignments"; 
     }
     
-    // --- NEW: ASSIGN SUBJECT ACTION (POST) ---
+    // --- NEW: ASSIGN SECTION ACTION (POST) ---
     @PostMapping("/department/assign-subject")
     public String assignSubject(
             @RequestParam("teacherId") String teacherId,
-            @RequestParam("subjectCode") String subjectCode,
+            @RequestParam(value = "sectionId", required = false) Long sectionId,
             RedirectAttributes redirectAttributes
     ) {
-        // --- DUMMY ASSIGNMENT LOGIC START ---
-        if (subjectCode == null || subjectCode.isEmpty()) {
-            redirectAttributes.addFlashAttribute("error", "Please select a subject to assign.");
+        if (sectionId == null) {
+            redirectAttributes.addFlashAttribute("error", "Please select a section to assign.");
         } else {
-            // In a real application: Save the assignment to the database here.
-            redirectAttributes.addFlashAttribute("message", 
-                "SUCCESS: Subject '" + subjectCode + "' assigned to Teacher ID " + teacherId + " (Mock Action).");
+            try {
+                User teacher = userRepository.findByUsername(teacherId)
+                        .orElseThrow(() -> new RuntimeException("Teacher not found with ID: " + teacherId));
+                enrollmentService.assignTeacher(sectionId, teacher);
+                redirectAttributes.addFlashAttribute("message", "Section assigned to Teacher ID " + teacherId + ".");
+            } catch (RuntimeException e) {
+                redirectAttributes.addFlashAttribute("error", e.getMessage());
+            }
         }
-        // --- DUMMY ASSIGNMENT LOGIC END ---
         
-        // Redirect back to the assignment page to see the updated list (in reality, you'd fetch the DB list here)
         redirectAttributes.addAttribute("teacherId", teacherId);
         return "redirect:/department/manage-assignments";
     }
 
-    // --- NEW: REMOVE SUBJECT ACTION (POST) ---
+    // --- NEW: REMOVE SECTION ACTION (POST) ---
     @PostMapping("/department/remove-subject")
     public String removeSubject(
             @RequestParam("teacherId") String teacherId,
-            @RequestParam("subjectCode") String subjectCode,
+            @RequestParam("sectionId") Long sectionId,
             RedirectAttributes redirectAttributes
     ) {
-        // --- DUMMY REMOVAL LOGIC START ---
-        // In a real application: Delete the assignment from the database here.
-        redirectAttributes.addFlashAttribute("message", 
-            "SUCCESS: Subject '" + subjectCode + "' removed from Teacher ID " + teacherId + " (Mock Action).");
-        // --- DUMMY REMOVAL LOGIC END ---
+        try {
+            User teacher = userRepository.findByUsername(teacherId)
+                    .orElseThrow(() -> new RuntimeException("Teacher not found with ID: " + teacherId));
+            enrollmentService.unassignTeacher(sectionId, teacher);
+            redirectAttributes.addFlashAttribute("message", "Section removed from Teacher ID " + teacherId + ".");
+        } catch (RuntimeException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
         
         redirectAttributes.addAttribute("teacherId", teacherId);
         return "redirect:/department/manage-assignments";
     }
 
 
+    // --- NEW: STUDENT ENROLLMENTS (current term; schedule conflicts are rejected) ---
+    @GetMapping("/department/enrollments")
+    public String showEnrollments(@RequestParam(value = "studentId", required = false) String studentId, Model model) {
+        model.addAttribute("term", enrollmentService.getCurrentTerm());
+        if (studentId == null || studentId.isBlank()) {
+            return "manage-enrollments";
+        }
+        Optional<User> student = userRepository.findByUsername(studentId.trim());
+        if (student.isEmpty()) {
+            model.addAttribute("error", "Student not found with ID: " + studentId.trim());
+            return "manage-enrollments";
+        }
+        List<EnrollmentRepository.StudentSection> enrolled = enrollmentService.getEnrolledSections(student.get());
+        model.addAttribute("student", student.get());
+        model.addAttribute("enrolledSections", enrolled);
+        model.addAttribute("openSections", enrollmentService.getOpenSections(enrolled));
+        return "manage-enrollments";
+    }
+
+    @PostMapping("/department/enroll")
+    public String enrollStudent(
+            @RequestParam("studentId") String studentId,
+            @RequestParam(value = "sectionId", required = false) Long sectionId,
+            RedirectAttributes redirectAttributes
+    ) {
+        if (sectionId == null) {
+            redirectAttributes.addFlashAttribute("error", "Please select a section to enroll in.");
+        } else {
+            try {
+                User student = userRepository.findByUsername(studentId)
+                        .orElseThrow(() -> new RuntimeException("Student not found with ID: " + studentId));
+                enrollmentService.enroll(student, sectionId);
+                redirectAttributes.addFlashAttribute("message", "Student " + studentId + " enrolled.");
+            } catch (RuntimeException e) {
+                redirectAttributes.addFlashAttribute("error", e.getMessage());
+            }
+        }
+
+        redirectAttributes.addAttribute("studentId", studentId);
+        return "redirect:/department/enrollments";
+    }
+
+    @PostMapping("/department/unenroll")
+    public String unenrollStudent(
+            @RequestParam("studentId") String studentId,
+            @RequestParam("sectionId") Long sectionId,
+            RedirectAttributes redirectAttributes
+    ) {
+        try {
+            User student = userRepository.findByUsername(studentId)
+                    .orElseThrow(() -> new RuntimeException("Student not found with ID: " + studentId));
+            enrollmentService.unenroll(student, sectionId);
+            redirectAttributes.addFlashAttribute("message", "Section dropped for student " + studentId + ".");
+        } catch (RuntimeException e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+
+        redirectAttributes.addAttribute("studentId", studentId);
+        return "redirect:/department/enrollments";
+    }
+
     @GetMapping("/department/create-teacher")
     public String showCreateTeacherForm(Model model) {
         if (!model.containsAttribute("dto")) {
             model.addAttribute("dto", new TeacherRegistrationDto());
         }
-        model.addAttribute("sections", availableSubjects); 
+        model.addAttribute("sections", subjectCatalogService.getSubjects()); 
         return "create-teacher";
     }
 
@@ -143,8 +235,113 @@ public class DepartmentController {
             return "redirect:/department/create-teacher"; 
         } catch (RuntimeException e) {
             redirectAttributes.addFlashAttribute("error", "Failed to create teacher: " + e.getMessage());
+            dto.setInitialPassword(null); // keep the password out of the session store
             redirectAttributes.addFlashAttribute("dto", dto);
             return "redirect:/department/create-teacher";
         }
     }
-}
\ No newline at end of file
+
+    // --- NEW: BULK STUDENT IMPORT (CSV upload, processed in the background) ---
+    @GetMapping("/department/students/import")
+    public String showStudentImport(@RequestParam(value = "job", required = false) String jobId, Model model) {
+        if (jobId != null) {
+            studentImportService.getJob(jobId).ifPresent(job -> model.addAttribute("job", job));
+        }
+        return "import-students";
+    }
+
+    @PostMapping("/department/students/import")
+    public String processStudentImport(@RequestParam("file") MultipartFile file, RedirectAttributes redirectAttributes) {
+        try {
+            ImportJob job = studentImportService.startImport(file);
+            redirectAttributes.addAttribute("job", job.getId());
+        } catch (RuntimeException e) {
+            redirectAttributes.addFlashAttribute("error", "Failed to start import: " + e.getMessage());
+        }
+        return "redirect:/department/students/import";
+    }
+
+    @GetMapping("/department/students/import/{jobId}/errors.csv")
+    public void downloadImportErrors(@PathVariable String jobId, HttpServletResponse response) throws IOException {
+        ImportJob job = studentImportService.getJob(jobId)
+                .orElseThrow(() -> new RuntimeException("Import job not found: " + jobId));
+
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"student-import-errors.csv\"");
+        CsvWriter csv = new CsvWriter(response.getWriter());
+        csv.writeRow("line", "email", "error");
+        for (ImportJob.RowError error : job.getErrors()) {
+            csv.writeRow(error.line(), error.key(), error.message());
+        }
+        csv.flush();
+    }
+
+    // --- NEW: TERM GRADE SHEET EXPORT (CSV/XLSX, streamed) ---
+    @GetMapping("/department/grades/export")
+    public ResponseEntity<StreamingResponseBody> exportTermGrades(
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            @RequestParam(value = "schoolYear", required = false) String schoolYear,
+            @RequestParam(value = "term", required = false) String term) {
+        EnrollmentService.Term current = enrollmentService.getCurrentTerm();
+        EnrollmentService.Term exported = new EnrollmentService.Term(
+                schoolYear != null && !schoolYear.isBlank() ? schoolYear.trim() : current.schoolYear(),
+                term != null && !term.isBlank() ? term.trim() : current.term());
+        GradeExportService.Format exportFormat = GradeExportService.Format.of(format);
+
+        Optional<StreamingResponseBody> body = gradeExportService.reserveSlot(
+                out -> gradeExportService.exportTerm(exported, exportFormat, out));
+        if (body.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "30").build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(GradeExportService.fileName("grades", exported.schoolYear() + " " + exported.term(), exportFormat))
+                        .build().toString())
+                .body(body.get());
+    }
+
+    // --- NEW: BATCH TEACHER PROVISIONING (CSV/JSON file upload; JSON clients use DepartmentApiController) ---
+    @GetMapping("/department/teachers/provision")
+    public String showTeacherProvisioning(@RequestParam(value = "job", required = false) String jobId, Model model) {
+        if (jobId != null) {
+            teacherProvisioningService.getJob(jobId).ifPresent(job -> model.addAttribute("job", job));
+        }
+        return "provision-teachers";
+    }
+
+    @PostMapping(value = "/department/teachers/provision", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public String processTeacherProvisioning(@RequestParam("file") MultipartFile file, RedirectAttributes redirectAttributes) {
+        try {
+            ImportJob job = teacherProvisioningService.startFromFile(file);
+            redirectAttributes.addAttribute("job", job.getId());
+        } catch (RuntimeException e) {
+            redirectAttributes.addFlashAttribute("error", "Failed to start provisioning: " + e.getMessage());
+        }
+        return "redirect:/department/teachers/provision";
+    }
+
+    @GetMapping("/department/teachers/provision/{jobId}/report.csv")
+    public void downloadProvisioningReport(@PathVariable String jobId, HttpServletResponse response) throws IOException {
+        ImportJob job = teacherProvisioningService.getJob(jobId)
+                .orElseThrow(() -> new RuntimeException("Provisioning job not found: " + jobId));
+        writeProvisioningReport(job, response);
+    }
+
+    // Created and failed rows merged back into input order (also served by DepartmentApiController)
+    static void writeProvisioningReport(ImportJob job, HttpServletResponse response) throws IOException {
+        List<Object[]> rows = new ArrayList<>();
+        job.getCreated().forEach(row -> rows.add(new Object[]{row.line(), row.key(), row.id(), "CREATED", ""}));
+        job.getErrors().forEach(row -> rows.add(new Object[]{row.line(), row.key(), "", "FAILED", row.message()}));
+        rows.sort(Comparator.comparingLong(row -> (Long) row[0]));
+
+        response.setContentType("text/csv;charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"teacher-provisioning-report.csv\"");
+        CsvWriter csv = new CsvWriter(response.getWriter());
+        csv.writeRow("line", "email", "teacherId", "status", "message");
+        for (Object[] row : rows) {
+            csv.writeRow(row);
+        }
+        csv.flush();
+    }
+}
@@ -1,10 +1,15 @@
 package auth.proj.sam.controller;
 
+import auth.proj.sam.config.CurrentUser;
+import auth.proj.sam.config.SecurityContextUpdater;
 import auth.proj.sam.model.TrustedDevice;
 import auth.proj.sam.model.User;
 import auth.proj.sam.repository.TrustedDeviceRepository;
 import auth.proj.sam.repository.UserRepository;
 import auth.proj.sam.service.MfaService;
+import auth.proj.sam.service.QrCodeService;
+import auth.proj.sam.service.SecurityTokenService;
+import auth.proj.sam.service.UserLookupService;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -16,7 +21,6 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.time.LocalDateTime;
-import java.util.UUID;
 
 @Controller
 public class MfaController {
@@ -24,21 +28,35 @@ public class MfaController {
     private final MfaService mfaService;
     private final UserRepository userRepository;
     private final TrustedDeviceRepository trustedDeviceRepository;
+    private final UserLookupService userLookupService;
+    private final QrCodeService qrCodeService;
+    private final SecurityContextUpdater securityContextUpdater;
+    private final SecurityTokenService securityTokenService;
 
-    public MfaController(MfaService mfaService, UserRepository userRepository, TrustedDeviceRepository trustedDeviceRepository) {
+    public MfaController(MfaService mfaService, UserRepository userRepository, TrustedDeviceRepository trustedDeviceRepository,
+                         UserLookupService userLookupService, QrCodeService qrCodeService, SecurityContextUpdater securityContextUpdater,
+                         SecurityTokenService securityTokenService) {
         this.mfaService = mfaService;
         this.userRepository = userRepository;
         this.trustedDeviceRepository = trustedDeviceRepository;
+        this.userLookupService = userLookupService;
+        this.qrCodeService = qrCodeService;
+        this.securityContextUpdater = securityContextUpdater;
+        this.securityTokenService = securityTokenService;
     }
 
     @PostMapping("/mfa-enable")
-    public String enableMfa(@RequestParam String code, RedirectAttributes redirectAttributes) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByUsername(username).orElseThrow(() -> new RuntimeException("User not found"));
-
-        if (mfaService.isTotpValid(user.getMfaSecret(), code)) {
+    public String enableMfa(@CurrentUser User user, @RequestParam String code, RedirectAttributes redirectAttributes) {
+        if (mfaService.isTotpValid(user.getId(), user.getMfaSecret(), code)) {
+            // Fails if the secret was reset since this copy of the user was loaded
+            int updated = userRepository.enableMfa(user.getId(), user.getMfaSecret());
+            userLookupService.evict(user);
+            if (updated == 0) {
+                redirectAttributes.addFlashAttribute("error", "Your MFA setup changed in the meantime. Please scan the new QR code.");
+                return "redirect:/settings#security";
+            }
             user.setMfaEnabled(true);
-            userRepository.save(user);
+            qrCodeService.evict(user.getMfaSecret());
             redirectAttributes.addFlashAttribute("message", "MFA has been enabled successfully!");
             return "redirect:/settings#security";
         } else {
@@ -61,18 +79,18 @@ public class MfaController {
     public String verifyMfaCode(@RequestParam String username, @RequestParam String code, @RequestParam(name = "trustDevice", required = false) boolean trustDevice,
                                 HttpServletResponse response, RedirectAttributes redirectAttributes) {
 
-        User user = userRepository.findByUsername(username).orElseThrow(() -> new RuntimeException("User not found"));
+        User user = userLookupService.findByUsername(username).orElseThrow(() -> new RuntimeException("User not found"));
 
-        if (mfaService.isTotpValid(user.getMfaSecret(), code)) {
+        if (mfaService.isTotpValid(user.getId(), user.getMfaSecret(), code)) {
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
             Authentication fullyAuthenticated = new UsernamePasswordAuthenticationToken(auth.getPrincipal(), auth.getCredentials(), auth.getAuthorities());
-            SecurityContextHolder.getContext().setAuthentication(fullyAuthenticated);
+            securityContextUpdater.setAuthentication(fullyAuthenticated);
 
             if (trustDevice) {
-                String token = UUID.randomUUID().toString();
+                String token = securityTokenService.newToken();
                 TrustedDevice newTrustedDevice = new TrustedDevice();
                 newTrustedDevice.setUser(user);
-                newTrustedDevice.setToken(token);
+                newTrustedDevice.setToken(SecurityTokenService.sha256Hex(token));
                 newTrustedDevice.setExpiryDate(LocalDateTime.now().plusDays(30));
                 trustedDeviceRepository.save(newTrustedDevice);
 
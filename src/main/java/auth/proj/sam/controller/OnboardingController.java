@@ -1,16 +1,15 @@
 package auth.proj.sam.controller;
 
-import auth.proj.sam.config.CustomUserDetails;
+import auth.proj.sam.config.CurrentUser;
+import auth.proj.sam.config.SecurityContextUpdater;
 import auth.proj.sam.dto.EducationalInfoDto;
 import auth.proj.sam.dto.FamilyInfoDto;
 import auth.proj.sam.dto.OtherInfoDto;
+import auth.proj.sam.model.Citizenship;
+import auth.proj.sam.model.CivilStatus;
+import auth.proj.sam.model.Gender;
 import auth.proj.sam.model.User;
-import auth.proj.sam.repository.UserRepository;
 import auth.proj.sam.service.UserService;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -22,29 +21,11 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 public class OnboardingController {
 
     private final UserService userService;
-    private final UserRepository userRepository;
+    private final SecurityContextUpdater securityContextUpdater;
 
-    public OnboardingController(UserService userService, UserRepository userRepository) {
+    public OnboardingController(UserService userService, SecurityContextUpdater securityContextUpdater) {
         this.userService = userService;
-        this.userRepository = userRepository;
-    }
-
-    private User getUserFromPrincipal(CustomUserDetails userDetails) {
-        // Fetches the latest state of the user from the database
-        return userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new RuntimeException("User not found in database."));
-    }
-    
-    // NEW: Reusable method to update the Security Context Principal
-    private void updatePrincipal(User user) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        CustomUserDetails newPrincipal = new CustomUserDetails(user);
-        UsernamePasswordAuthenticationToken newAuth = new UsernamePasswordAuthenticationToken(
-            newPrincipal,
-            authentication.getCredentials(),
-            authentication.getAuthorities()
-        );
-        SecurityContextHolder.getContext().setAuthentication(newAuth);
+        this.securityContextUpdater = securityContextUpdater;
     }
 
     /**
@@ -65,8 +46,7 @@ public class OnboardingController {
     
     // --- Step 2: Educational Information ---
     @GetMapping("/onboarding/step2")
-    public String showStep2Form(@AuthenticationPrincipal CustomUserDetails userDetails, Model model) {
-        User user = getUserFromPrincipal(userDetails);
+    public String showStep2Form(@CurrentUser User user, Model model) {
         String redirect = checkProgress(user, 2);
         if (redirect != null) return redirect;
 
@@ -75,9 +55,8 @@ public class OnboardingController {
     }
 
     @PostMapping("/onboarding/step2")
-    public String processStep2Form(@AuthenticationPrincipal CustomUserDetails userDetails, @ModelAttribute("dto") EducationalInfoDto dto, RedirectAttributes redirectAttributes) {
+    public String processStep2Form(@CurrentUser User user, @ModelAttribute("dto") EducationalInfoDto dto, RedirectAttributes redirectAttributes) {
         try {
-            User user = getUserFromPrincipal(userDetails);
             userService.updateEducationalInfo(user, dto);
             // No need to update principal yet, as the dashboard relies on step >= 5
             redirectAttributes.addFlashAttribute("message", "Educational information saved. Proceed to Step 3.");
@@ -90,8 +69,7 @@ public class OnboardingController {
 
     // --- Step 3: Family Information ---
     @GetMapping("/onboarding/step3")
-    public String showStep3Form(@AuthenticationPrincipal CustomUserDetails userDetails, Model model) {
-        User user = getUserFromPrincipal(userDetails);
+    public String showStep3Form(@CurrentUser User user, Model model) {
         String redirect = checkProgress(user, 3);
         if (redirect != null) return redirect;
 
@@ -100,9 +78,8 @@ public class OnboardingController {
     }
 
     @PostMapping("/onboarding/step3")
-    public String processStep3Form(@AuthenticationPrincipal CustomUserDetails userDetails, @ModelAttribute("dto") FamilyInfoDto dto, RedirectAttributes redirectAttributes) {
+    public String processStep3Form(@CurrentUser User user, @ModelAttribute("dto") FamilyInfoDto dto, RedirectAttributes redirectAttributes) {
         try {
-            User user = getUserFromPrincipal(userDetails);
             userService.updateFamilyInfo(user, dto);
             // No need to update principal yet, as the dashboard relies on step >= 5
             redirectAttributes.addFlashAttribute("message", "Family information saved. Proceed to Step 4.");
@@ -115,28 +92,26 @@ public class OnboardingController {
 
     // --- Step 4: Other Information (Final Step) ---
     @GetMapping("/onboarding/step4")
-    public String showStep4Form(@AuthenticationPrincipal CustomUserDetails userDetails, Model model) {
-        User user = getUserFromPrincipal(userDetails);
+    public String showStep4Form(@CurrentUser User user, Model model) {
         String redirect = checkProgress(user, 4);
         if (redirect != null) return redirect;
         
         model.addAttribute("dto", new OtherInfoDto());
-        model.addAttribute("genders", User.Gender.values());
-        model.addAttribute("civilStatuses", User.CivilStatus.values());
-        model.addAttribute("citizenships", User.Citizenship.values());
+        model.addAttribute("genders", Gender.values());
+        model.addAttribute("civilStatuses", CivilStatus.values());
+        model.addAttribute("citizenships", Citizenship.values());
         
         return "other-info";
     }
 
     @PostMapping("/onboarding/step4")
-    public String processStep4Form(@AuthenticationPrincipal CustomUserDetails userDetails, @ModelAttribute("dto") OtherInfoDto dto, RedirectAttributes redirectAttributes) {
+    public String processStep4Form(@CurrentUser User user, @ModelAttribute("dto") OtherInfoDto dto, RedirectAttributes redirectAttributes) {
         try {
-            User user = getUserFromPrincipal(userDetails);
             userService.updateOtherInfo(user, dto);
             
             // FIX: Refresh the authentication principal right after the last step is saved.
-            User updatedUser = getUserFromPrincipal(userDetails);
-            updatePrincipal(updatedUser); 
+            // updateOtherInfo saved the step on this same instance, so it needs no reload.
+            securityContextUpdater.updatePrincipal(user); 
             
             redirectAttributes.addFlashAttribute("message", "Registration complete! Welcome to the dashboard.");
             return "redirect:/student/dashboard";
@@ -1,12 +1,11 @@
 package auth.proj.sam.controller;
 
-import auth.proj.sam.config.CustomUserDetails;
+import auth.proj.sam.config.CurrentUser;
+import auth.proj.sam.config.SecurityContextUpdater;
 import auth.proj.sam.model.User;
 import auth.proj.sam.repository.UserRepository;
+import auth.proj.sam.service.UserLookupService;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -27,18 +26,22 @@ import java.util.UUID;
 public class ProfileController {
 
     private final UserRepository userRepository;
+    private final UserLookupService userLookupService;
+    private final SecurityContextUpdater securityContextUpdater;
 
     @Value("${app.upload.dir}")
     private String UPLOAD_DIR;
 
     private static final List<String> ALLOWED_IMAGE_TYPES = Arrays.asList("image/jpeg", "image/png", "image/gif", "image/bmp", "image/webp");
 
-    public ProfileController(UserRepository userRepository) {
+    public ProfileController(UserRepository userRepository, UserLookupService userLookupService, SecurityContextUpdater securityContextUpdater) {
         this.userRepository = userRepository;
+        this.userLookupService = userLookupService;
+        this.securityContextUpdater = securityContextUpdater;
     }
 
     @PostMapping("/profile/upload-image")
-    public String uploadProfileImage(@RequestParam("file") MultipartFile file, RedirectAttributes redirectAttributes) {
+    public String uploadProfileImage(@CurrentUser User user, @RequestParam("file") MultipartFile file, RedirectAttributes redirectAttributes) {
         if (file.isEmpty()) {
             redirectAttributes.addFlashAttribute("error", "Please select a file to upload.");
             return "redirect:/settings#profile";
@@ -51,9 +54,6 @@ public class ProfileController {
         }
 
         try {
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
-            User user = userRepository.findByUsername(username).orElseThrow(() -> new RuntimeException("User not found"));
-
             Path uploadPath = Paths.get(UPLOAD_DIR);
             Files.createDirectories(uploadPath);
 
@@ -68,10 +68,12 @@ public class ProfileController {
             Files.write(filePath, file.getBytes());
 
             user.setProfileImagePath("/uploads/" + uniqueFilename);
-            userRepository.save(user);
+            userRepository.updateProfileImage(user.getId(), user.getProfileImagePath());
+            userLookupService.evict(user);
+            userRepository.bumpDataVersion(List.of(user.getId()));
 
             // --- NEW: Refresh the security principal ---
-            updatePrincipal(user);
+            securityContextUpdater.updatePrincipal(user);
 
             redirectAttributes.addFlashAttribute("message", "Profile picture updated successfully!");
 
@@ -84,10 +86,7 @@ public class ProfileController {
     }
 
     @PostMapping("/profile/change-name")
-    public String changeDisplayName(@RequestParam("displayName") String displayName, RedirectAttributes redirectAttributes) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByUsername(username).orElseThrow(() -> new RuntimeException("User not found"));
-
+    public String changeDisplayName(@CurrentUser User user, @RequestParam("displayName") String displayName, RedirectAttributes redirectAttributes) {
         if (user.getLastDisplayNameChange() != null) {
             long daysSinceLastChange = ChronoUnit.DAYS.between(user.getLastDisplayNameChange(), LocalDateTime.now());
             if (daysSinceLastChange < 30) {
@@ -98,22 +97,13 @@ public class ProfileController {
 
         user.setDisplayName(displayName);
         user.setLastDisplayNameChange(LocalDateTime.now());
-        userRepository.save(user);
+        userRepository.updateDisplayName(user.getId(), user.getDisplayName(), user.getLastDisplayNameChange());
+        userLookupService.evict(user);
+        userRepository.bumpDataVersion(List.of(user.getId()));
         
-        updatePrincipal(user);
+        securityContextUpdater.updatePrincipal(user);
 
         redirectAttributes.addFlashAttribute("message", "Display name updated successfully!");
         return "redirect:/settings#profile";
     }
-
-    private void updatePrincipal(User user) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        CustomUserDetails newPrincipal = new CustomUserDetails(user);
-        UsernamePasswordAuthenticationToken newAuth = new UsernamePasswordAuthenticationToken(
-            newPrincipal,
-            authentication.getCredentials(),
-            authentication.getAuthorities()
-        );
-        SecurityContextHolder.getContext().setAuthentication(newAuth);
-    }
 }
\ No newline at end of file
@@ -1,17 +1,24 @@
 package auth.proj.sam.controller;
 
+import auth.proj.sam.config.CurrentUser;
 import auth.proj.sam.dto.ChangePasswordDto;
 import auth.proj.sam.dto.VerifyPasswordChangeDto;
 import auth.proj.sam.model.User;
 import auth.proj.sam.repository.UserRepository;
 import auth.proj.sam.service.MfaService;
+import auth.proj.sam.service.QrCodeService;
+import auth.proj.sam.service.UserLookupService;
 import auth.proj.sam.service.UserService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.time.LocalDateTime;
@@ -23,17 +30,20 @@ public class SettingsController {
     private final UserRepository userRepository;
     private final MfaService mfaService;
     private final UserService userService;
+    private final UserLookupService userLookupService;
+    private final QrCodeService qrCodeService;
 
-    public SettingsController(UserRepository userRepository, MfaService mfaService, UserService userService) {
+    public SettingsController(UserRepository userRepository, MfaService mfaService, UserService userService,
+                              UserLookupService userLookupService, QrCodeService qrCodeService) {
         this.userRepository = userRepository;
         this.mfaService = mfaService;
         this.userService = userService;
+        this.userLookupService = userLookupService;
+        this.qrCodeService = qrCodeService;
     }
 
     @GetMapping("/settings")
-    public String showSettingsPage(Model model) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByUsername(username).orElseThrow(() -> new RuntimeException("User not found"));
+    public String showSettingsPage(@CurrentUser User user, Model model) {
         model.addAttribute("user", user);
         
         // Add DTOs for the forms
@@ -67,22 +77,44 @@ public class SettingsController {
         // MFA-related logic from MfaController
         if (!user.isMfaEnabled()) {
             if (user.getMfaSecret() == null || user.getMfaSecret().isEmpty()) {
-                user.setMfaSecret(mfaService.generateNewSecret());
-                userRepository.save(user);
+                String secret = mfaService.generateNewSecret();
+                // Another request may have stored a secret first; show that one
+                if (userRepository.initMfaSecret(user.getId(), secret) == 0) {
+                    secret = userRepository.findMfaSecret(user.getId()).orElse(null);
+                }
+                user.setMfaSecret(secret);
+                userLookupService.evict(user);
             }
-            model.addAttribute("qrCode", mfaService.generateQrCodeImageUri(user.getMfaSecret()));
+            // The QR image itself is served (and cached) by /settings/mfa-qr.png
         }
 
         return "settings";
     }
+
+    // --- NEW: MFA setup QR code as a separately cacheable image ---
+    @GetMapping("/settings/mfa-qr.png")
+    public ResponseEntity<byte[]> mfaQrCode(@CurrentUser User user, WebRequest request) {
+        if (user.isMfaEnabled() || user.getMfaSecret() == null || user.getMfaSecret().isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        QrCodeService.QrImage image = qrCodeService.getQrImage(user.getMfaSecret());
+        // Private + no-cache: the browser keeps the image but revalidates, getting a 304 until the secret changes
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (request.checkNotModified(image.etag())) {
+            return ResponseEntity.status(304).cacheControl(cacheControl).eTag(image.etag()).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_PNG)
+                .cacheControl(cacheControl)
+                .eTag(image.etag())
+                .body(image.png());
+    }
     
     // --- NEW: Step 1: Initiate Password Change (Validates old password and sends code) ---
     @PostMapping("/settings/change-password/initiate")
-    public String initiatePasswordChange(@ModelAttribute("changePasswordDto") ChangePasswordDto dto, 
+    public String initiatePasswordChange(@CurrentUser User user, @ModelAttribute("changePasswordDto") ChangePasswordDto dto, 
                                          RedirectAttributes redirectAttributes) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByUsername(username).orElseThrow(() -> new RuntimeException("User not found"));
-        
         try {
             String token = userService.initiatePasswordChange(user, dto);
             
@@ -94,6 +126,10 @@ public class SettingsController {
             
         } catch (RuntimeException e) {
             redirectAttributes.addFlashAttribute("error", "Failed to change password: " + e.getMessage());
+            // Keep the typed passwords out of the session store
+            dto.setCurrentPassword(null);
+            dto.setNewPassword(null);
+            dto.setConfirmPassword(null);
             redirectAttributes.addFlashAttribute("changePasswordDto", dto);
             return "redirect:/settings#security";
         }
@@ -101,17 +137,10 @@ public class SettingsController {
     
     // --- NEW: Step 2: Finalize Password Change (Verifies code and updates password) ---
     @PostMapping("/settings/change-password/finalize")
-    public String finalizePasswordChange(@ModelAttribute("verifyPasswordChangeDto") VerifyPasswordChangeDto dto,
+    public String finalizePasswordChange(@CurrentUser User user, @ModelAttribute("verifyPasswordChangeDto") VerifyPasswordChangeDto dto,
                                          RedirectAttributes redirectAttributes) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByUsername(username).orElseThrow(() -> new RuntimeException("User not found"));
-        
         try {
-            // Check if the token in the form matches the one saved in the user object
-            if (user.getChangePasswordToken() == null || !user.getChangePasswordToken().equals(dto.getToken())) {
-                 throw new RuntimeException("Invalid session or verification attempt. Please restart the password change process.");
-            }
-            
+            // The service checks the form token together with the code
             userService.finalizePasswordChange(user, dto);
             
             redirectAttributes.addFlashAttribute("message", "Password changed successfully! You have been logged out for security purposes. Please log back in with your new password.");
@@ -128,13 +157,12 @@ public class SettingsController {
     }
 
     @PostMapping("/mfa-disable")
-    public String disableMfa(RedirectAttributes redirectAttributes) {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User user = userRepository.findByUsername(username).orElseThrow(() -> new RuntimeException("User not found"));
-
+    public String disableMfa(@CurrentUser User user, RedirectAttributes redirectAttributes) {
+        qrCodeService.evict(user.getMfaSecret());
+        userRepository.updateMfa(user.getId(), null, false);
         user.setMfaEnabled(false);
         user.setMfaSecret(null);
-        userRepository.save(user);
+        userLookupService.evict(user);
 
         redirectAttributes.addFlashAttribute("message", "MFA has been disabled successfully.");
         return "redirect:/settings#security";
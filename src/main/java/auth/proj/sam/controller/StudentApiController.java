@@ -0,0 +1,63 @@
+package auth.proj.sam.controller;
+
+import auth.proj.sam.config.ApiPrincipal;
+import auth.proj.sam.model.User;
+import auth.proj.sam.service.StudentApiService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Read API over the signed-in student's own data. Responses carry a strong ETag and "private, no-cache",
+ * so clients keep them and revalidate; an unchanged view answers 304 without being rebuilt.
+ */
+@RestController
+@RequestMapping("/api/v1/students/me")
+public class StudentApiController {
+
+    private final StudentApiService studentApiService;
+
+    public StudentApiController(StudentApiService studentApiService) {
+        this.studentApiService = studentApiService;
+    }
+
+    @GetMapping("/schedule")
+    public ResponseEntity<StudentApiService.ScheduleView> schedule(@AuthenticationPrincipal ApiPrincipal principal, WebRequest request) {
+        return conditional("schedule", principal, request, studentApiService::schedule);
+    }
+
+    @GetMapping("/grades")
+    public ResponseEntity<StudentApiService.GradesView> grades(@AuthenticationPrincipal ApiPrincipal principal, WebRequest request) {
+        return conditional("grades", principal, request, studentApiService::grades);
+    }
+
+    @GetMapping("/profile")
+    public ResponseEntity<StudentApiService.ProfileView> profile(@AuthenticationPrincipal ApiPrincipal principal, WebRequest request) {
+        return conditional("profile", principal, request, studentApiService::profile);
+    }
+
+    private <T> ResponseEntity<T> conditional(String view, ApiPrincipal principal, WebRequest request, Function<User, T> builder) {
+        Optional<String> etag = studentApiService.etag(view, principal.userId());
+        if (etag.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (request.checkNotModified(etag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).eTag(etag.get()).build();
+        }
+        // The body carries the ETag of the row it was built from, which may be newer than the one just checked
+        Optional<StudentApiService.Tagged<T>> built = studentApiService.build(view, principal.userId(), builder);
+        if (built.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok().cacheControl(cacheControl).eTag(built.get().etag()).body(built.get().body());
+    }
+}
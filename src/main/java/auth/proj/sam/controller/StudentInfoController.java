@@ -2,6 +2,7 @@ package auth.proj.sam.controller;
 
 import auth.proj.sam.config.CustomUserDetails;
 import auth.proj.sam.model.User;
+import auth.proj.sam.service.UserService;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -9,6 +10,12 @@ import org.springframework.web.bind.annotation.GetMapping;
 
 @Controller
 public class StudentInfoController {
+
+    private final UserService userService;
+
+    public StudentInfoController(UserService userService) {
+        this.userService = userService;
+    }
     
     /**
      * Shows the dedicated page with the student's full registration details.
@@ -17,6 +24,9 @@ public class StudentInfoController {
     public String showRegistrationDetailsPage(@AuthenticationPrincipal CustomUserDetails userDetails, Model model) {
         User currentUser = userDetails.getUser();
         model.addAttribute("user", currentUser);
+        model.addAttribute("education", userService.getEducationalInfo(currentUser));
+        model.addAttribute("family", userService.getFamilyInfo(currentUser));
+        model.addAttribute("personal", userService.getPersonalInfo(currentUser));
         
         return "registration-details";
     }
@@ -0,0 +1,9 @@
+package auth.proj.sam.dto;
+
+public class ApiRefreshRequestDto {
+    private String refreshToken;
+
+    // Getters and Setters
+    public String getRefreshToken() { return refreshToken; }
+    public void setRefreshToken(String refreshToken) { this.refreshToken = refreshToken; }
+}
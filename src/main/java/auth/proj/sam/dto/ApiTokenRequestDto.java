@@ -0,0 +1,16 @@
+package auth.proj.sam.dto;
+
+// Credentials posted to /api/auth/token; the code is only needed for accounts with MFA enabled
+public class ApiTokenRequestDto {
+    private String username;
+    private String password;
+    private String code;
+
+    // Getters and Setters
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+    public String getPassword() { return password; }
+    public void setPassword(String password) { this.password = password; }
+    public String getCode() { return code; }
+    public void setCode(String code) { this.code = code; }
+}
@@ -1,6 +1,9 @@
 package auth.proj.sam.dto;
 
-public class ChangePasswordDto {
+import java.io.Serializable;
+
+// Flashed back to the form on errors, so it travels through the session store
+public class ChangePasswordDto implements Serializable {
     private String currentPassword;
     private String newPassword;
     private String confirmPassword;
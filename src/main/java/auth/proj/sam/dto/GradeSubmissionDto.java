@@ -0,0 +1,27 @@
+package auth.proj.sam.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A section's grades in one submission: bound from the roster form or read from a JSON body
+public class GradeSubmissionDto {
+    private List<Entry> grades = new ArrayList<>();
+
+    public static class Entry {
+        private String studentId;
+        private String grade;    // blank clears the grade
+        private Long version;    // the enrollment version the grade was entered against
+
+        // Getters and Setters
+        public String getStudentId() { return studentId; }
+        public void setStudentId(String studentId) { this.studentId = studentId; }
+        public String getGrade() { return grade; }
+        public void setGrade(String grade) { this.grade = grade; }
+        public Long getVersion() { return version; }
+        public void setVersion(Long version) { this.version = version; }
+    }
+
+    // Getters and Setters
+    public List<Entry> getGrades() { return grades; }
+    public void setGrades(List<Entry> grades) { this.grades = grades; }
+}
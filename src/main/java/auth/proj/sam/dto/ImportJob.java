@@ -0,0 +1,91 @@
+package auth.proj.sam.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Progress and per-row errors of a background import, polled by the department pages
+public class ImportJob {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    public record RowError(long line, String key, String message) {
+    }
+
+    // A successfully created account, for result reports (key is the input email, id the assigned username)
+    public record CreatedRow(long line, String key, String id) {
+    }
+
+    private final String id;
+    private final String fileName;
+    private final int maxReportedErrors;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private volatile LocalDateTime finishedAt;
+    private volatile Status status = Status.QUEUED;
+    private volatile String message;
+
+    private final AtomicInteger rowsRead = new AtomicInteger();
+    private final AtomicInteger imported = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final List<RowError> errors = Collections.synchronizedList(new ArrayList<>());
+    private final List<CreatedRow> created = Collections.synchronizedList(new ArrayList<>());
+
+    public ImportJob(String id, String fileName, int maxReportedErrors) {
+        this.id = id;
+        this.fileName = fileName;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public void rowRead() { rowsRead.incrementAndGet(); }
+    public void imported(int count) { imported.addAndGet(count); }
+
+    // Every failure is counted; only the first maxReportedErrors are kept for the report
+    public void fail(long line, String key, String message) {
+        failed.incrementAndGet();
+        if (errors.size() < maxReportedErrors) {
+            errors.add(new RowError(line, key, message));
+        }
+    }
+
+    // Counts as imported; like errors, only the first maxReportedErrors rows are kept for the report
+    public void created(long line, String key, String id) {
+        imported.incrementAndGet();
+        if (created.size() < maxReportedErrors) {
+            created.add(new CreatedRow(line, key, id));
+        }
+    }
+
+    public void start() { status = Status.RUNNING; }
+
+    public void finish(Status status, String message) {
+        this.status = status;
+        this.message = message;
+        this.finishedAt = LocalDateTime.now();
+    }
+
+    // Getters
+    public String getId() { return id; }
+    public String getFileName() { return fileName; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getFinishedAt() { return finishedAt; }
+    public Status getStatus() { return status; }
+    public String getMessage() { return message; }
+    public int getRowsRead() { return rowsRead.get(); }
+    public int getImported() { return imported.get(); }
+    public int getFailed() { return failed.get(); }
+    public boolean isRunning() { return status == Status.QUEUED || status == Status.RUNNING; }
+
+    public List<RowError> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+
+    public List<CreatedRow> getCreated() {
+        synchronized (created) {
+            return new ArrayList<>(created);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package auth.proj.sam.dto;
+
+import auth.proj.sam.repository.EnrollmentRepository.RosterEntry;
+
+import java.util.List;
+
+public class RosterPage {
+    private final List<RosterEntry> students;
+    private final long totalStudents; // from the grouped section count, so no extra COUNT query
+    private final int page;
+    private final int size;
+    private final String sort;
+    private final boolean descending;
+
+    public RosterPage(List<RosterEntry> students, long totalStudents, int page, int size, String sort, boolean descending) {
+        this.students = students;
+        this.totalStudents = totalStudents;
+        this.page = page;
+        this.size = size;
+        this.sort = sort;
+        this.descending = descending;
+    }
+
+    // Getters
+    public List<RosterEntry> getStudents() { return students; }
+    public long getTotalStudents() { return totalStudents; }
+    public int getPage() { return page; }
+    public int getSize() { return size; }
+    public String getSort() { return sort; }
+    public boolean isDescending() { return descending; }
+    public int getTotalPages() { return (int) Math.max(1, (totalStudents + size - 1) / size); }
+    public boolean isHasPrevious() { return page > 0; }
+    public boolean isHasNext() { return page + 1 < getTotalPages(); }
+}
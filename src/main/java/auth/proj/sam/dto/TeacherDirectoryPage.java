@@ -0,0 +1,29 @@
+package auth.proj.sam.dto;
+
+import auth.proj.sam.repository.UserRepository.UserSummary;
+
+import java.util.List;
+
+public class TeacherDirectoryPage {
+    private final List<UserSummary> teachers;
+    private final Long nextCursor; // null when there are no more rows
+    private final String search;
+    private final boolean descending;
+    private final int size;
+
+    public TeacherDirectoryPage(List<UserSummary> teachers, Long nextCursor, String search, boolean descending, int size) {
+        this.teachers = teachers;
+        this.nextCursor = nextCursor;
+        this.search = search;
+        this.descending = descending;
+        this.size = size;
+    }
+
+    // Getters
+    public List<UserSummary> getTeachers() { return teachers; }
+    public Long getNextCursor() { return nextCursor; }
+    public boolean isHasNext() { return nextCursor != null; }
+    public String getSearch() { return search; }
+    public boolean isDescending() { return descending; }
+    public int getSize() { return size; }
+}
@@ -1,6 +1,9 @@
 package auth.proj.sam.dto;
 
-public class TeacherRegistrationDto {
+import java.io.Serializable;
+
+// Flashed back to the form on errors, so it travels through the session store
+public class TeacherRegistrationDto implements Serializable {
     private String lastName;
     private String firstName;
     private String email;
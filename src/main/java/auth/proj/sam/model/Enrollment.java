@@ -0,0 +1,58 @@
+package auth.proj.sam.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+
+/**
+ * A student's place in a section, holding the final grade once the teacher posts it.
+ * The unique (student_id, section_id) key doubles as the index for a student's own subject list.
+ */
+@Entity
+@Table(name = "enrollments", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_enrollments_student_section", columnNames = {"student_id", "section_id"})
+}, indexes = {
+        @Index(name = "idx_enrollments_section", columnList = "section_id")
+})
+public class Enrollment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "student_id", nullable = false)
+    private User student;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "section_id", nullable = false)
+    private Section section;
+
+    // "1.00"-"5.00", "INC" or "PASSED"; null until graded
+    @Column(length = 10)
+    private String grade;
+
+    // Bumped on every grade write; batch grade entry only updates rows still at the version the teacher loaded
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
+    public Enrollment() {
+    }
+
+    public Enrollment(User student, Section section) {
+        this.student = student;
+        this.section = section;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public User getStudent() { return student; }
+    public void setStudent(User student) { this.student = student; }
+    public Section getSection() { return section; }
+    public void setSection(Section section) { this.section = section; }
+    public String getGrade() { return grade; }
+    public void setGrade(String grade) { this.grade = grade; }
+    public long getVersion() { return version; }
+}
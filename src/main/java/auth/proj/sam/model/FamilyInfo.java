@@ -0,0 +1,35 @@
+package auth.proj.sam.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Onboarding step 3 (family details), keyed by the owning user's id.
+ */
+@Entity
+@Table(name = "user_family_info")
+public class FamilyInfo {
+
+    @Id
+    private Long id;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    private String fatherName;
+    private String motherName;
+    private String parentContactNumber;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public User getUser() { return user; }
+    public void setUser(User user) { this.user = user; }
+    public String getFatherName() { return fatherName; }
+    public void setFatherName(String fatherName) { this.fatherName = fatherName; }
+    public String getMotherName() { return motherName; }
+    public void setMotherName(String motherName) { this.motherName = motherName; }
+    public String getParentContactNumber() { return parentContactNumber; }
+    public void setParentContactNumber(String parentContactNumber) { this.parentContactNumber = parentContactNumber; }
+}
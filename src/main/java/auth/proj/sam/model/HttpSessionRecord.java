@@ -0,0 +1,56 @@
+package auth.proj.sam.model;
+
+import jakarta.persistence.*;
+
+/**
+ * One HTTP session in the shared session store (written by JdbcSessionRepository with plain JDBC;
+ * the entity only defines the table). Times are epoch milliseconds.
+ */
+@Entity
+@Table(name = "http_sessions", indexes = {
+        @Index(name = "idx_http_sessions_expiry", columnList = "expiry_time"),
+        @Index(name = "idx_http_sessions_principal", columnList = "principal_name")
+})
+public class HttpSessionRecord {
+
+    @Id
+    @Column(name = "session_id", length = 64)
+    private String sessionId;
+
+    // Username of the signed-in principal, null for anonymous sessions
+    @Column(name = "principal_name", length = 100)
+    private String principalName;
+
+    @Column(name = "creation_time", nullable = false)
+    private long creationTime;
+
+    @Column(name = "last_access_time", nullable = false)
+    private long lastAccessTime;
+
+    @Column(name = "max_inactive_seconds", nullable = false)
+    private int maxInactiveSeconds;
+
+    @Column(name = "expiry_time", nullable = false)
+    private long expiryTime;
+
+    // Every attribute as name + serialized value
+    @Lob
+    @Column(name = "attributes", length = 16777215)
+    private byte[] attributes;
+
+    // Getters and Setters
+    public String getSessionId() { return sessionId; }
+    public void setSessionId(String sessionId) { this.sessionId = sessionId; }
+    public String getPrincipalName() { return principalName; }
+    public void setPrincipalName(String principalName) { this.principalName = principalName; }
+    public long getCreationTime() { return creationTime; }
+    public void setCreationTime(long creationTime) { this.creationTime = creationTime; }
+    public long getLastAccessTime() { return lastAccessTime; }
+    public void setLastAccessTime(long lastAccessTime) { this.lastAccessTime = lastAccessTime; }
+    public int getMaxInactiveSeconds() { return maxInactiveSeconds; }
+    public void setMaxInactiveSeconds(int maxInactiveSeconds) { this.maxInactiveSeconds = maxInactiveSeconds; }
+    public long getExpiryTime() { return expiryTime; }
+    public void setExpiryTime(long expiryTime) { this.expiryTime = expiryTime; }
+    public byte[] getAttributes() { return attributes; }
+    public void setAttributes(byte[] attributes) { this.attributes = attributes; }
+}
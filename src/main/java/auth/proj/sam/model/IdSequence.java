@@ -0,0 +1,31 @@
+package auth.proj.sam.model;
+
+import jakarta.persistence.*;
+
+// Persistent high-water mark of one ID series (e.g. "student:22-1-"); app instances reserve blocks from it
+@Entity
+@Table(name = "id_sequences")
+public class IdSequence {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    // First value not yet handed to any instance
+    @Column(name = "next_value", nullable = false)
+    private long nextValue;
+
+    public IdSequence() {
+    }
+
+    public IdSequence(String name, long nextValue) {
+        this.name = name;
+        this.nextValue = nextValue;
+    }
+
+    // Getters and Setters
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public long getNextValue() { return nextValue; }
+    public void setNextValue(long nextValue) { this.nextValue = nextValue; }
+}
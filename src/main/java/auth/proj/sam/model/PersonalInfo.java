@@ -0,0 +1,63 @@
+package auth.proj.sam.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * Onboarding step 4 (remaining personal, contact and social details), keyed by the owning user's id.
+ */
+@Entity
+@Table(name = "user_personal_info")
+public class PersonalInfo {
+
+    @Id
+    private Long id;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    private LocalDate birthDate;
+    private String birthPlace;
+    @Enumerated(EnumType.STRING)
+    private Gender gender;
+    @Enumerated(EnumType.STRING)
+    private Citizenship citizenship;
+    private boolean dualCitizenship;
+    private String religion;
+    @Enumerated(EnumType.STRING)
+    private CivilStatus civilStatus;
+    private String cellphoneNumber;
+    private String residenceNumber;
+    private String facebook;
+    private String twitter;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public User getUser() { return user; }
+    public void setUser(User user) { this.user = user; }
+    public LocalDate getBirthDate() { return birthDate; }
+    public void setBirthDate(LocalDate birthDate) { this.birthDate = birthDate; }
+    public String getBirthPlace() { return birthPlace; }
+    public void setBirthPlace(String birthPlace) { this.birthPlace = birthPlace; }
+    public Gender getGender() { return gender; }
+    public void setGender(Gender gender) { this.gender = gender; }
+    public Citizenship getCitizenship() { return citizenship; }
+    public void setCitizenship(Citizenship citizenship) { this.citizenship = citizenship; }
+    public boolean isDualCitizenship() { return dualCitizenship; }
+    public void setDualCitizenship(boolean dualCitizenship) { this.dualCitizenship = dualCitizenship; }
+    public String getReligion() { return religion; }
+    public void setReligion(String religion) { this.religion = religion; }
+    public CivilStatus getCivilStatus() { return civilStatus; }
+    public void setCivilStatus(CivilStatus civilStatus) { this.civilStatus = civilStatus; }
+    public String getCellphoneNumber() { return cellphoneNumber; }
+    public void setCellphoneNumber(String cellphoneNumber) { this.cellphoneNumber = cellphoneNumber; }
+    public String getResidenceNumber() { return residenceNumber; }
+    public void setResidenceNumber(String residenceNumber) { this.residenceNumber = residenceNumber; }
+    public String getFacebook() { return facebook; }
+    public void setFacebook(String facebook) { this.facebook = facebook; }
+    public String getTwitter() { return twitter; }
+    public void setTwitter(String twitter) { this.twitter = twitter; }
+}
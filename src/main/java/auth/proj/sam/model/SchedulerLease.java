@@ -0,0 +1,32 @@
+package auth.proj.sam.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One named lease for cluster-wide scheduled jobs (written by SchedulerLeaseService with plain JDBC;
+ * the entity only defines the table). Whoever holds an unexpired lease is the job's leader.
+ */
+@Entity
+@Table(name = "scheduler_leases")
+public class SchedulerLease {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    // Instance that holds the lease
+    @Column(nullable = false, length = 128)
+    private String owner;
+
+    @Column(name = "leased_until", nullable = false)
+    private LocalDateTime leasedUntil;
+
+    // Getters and Setters
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public String getOwner() { return owner; }
+    public void setOwner(String owner) { this.owner = owner; }
+    public LocalDateTime getLeasedUntil() { return leasedUntil; }
+    public void setLeasedUntil(LocalDateTime leasedUntil) { this.leasedUntil = leasedUntil; }
+}
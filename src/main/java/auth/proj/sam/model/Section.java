@@ -0,0 +1,69 @@
+package auth.proj.sam.model;
+
+import jakarta.persistence.*;
+
+/**
+ * One offering of a subject in a school year and term (e.g. IT101 "BSIT 1-1" of 2025-2026, 1st Semester),
+ * with its schedule and the teacher handling it.
+ */
+@Entity
+@Table(name = "sections", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sections_subject_code_term", columnNames = {"subject_id", "code", "school_year", "term"})
+}, indexes = {
+        @Index(name = "idx_sections_teacher_term", columnList = "teacher_id, school_year, term"),
+        @Index(name = "idx_sections_term", columnList = "school_year, term")
+})
+public class Section {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "subject_id", nullable = false)
+    private Subject subject;
+
+    // Unassigned until the department assigns a teacher
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "teacher_id")
+    private User teacher;
+
+    @Column(nullable = false, length = 50)
+    private String code;
+
+    @Column(name = "school_year", nullable = false, length = 20)
+    private String schoolYear;
+
+    @Column(nullable = false, length = 50)
+    private String term;
+
+    // Free text as entered by the department, e.g. "MWF 8:30 AM - 9:30 AM"
+    private String schedule;
+
+    public Section() {
+    }
+
+    public Section(Subject subject, String code, String schoolYear, String term, String schedule) {
+        this.subject = subject;
+        this.code = code;
+        this.schoolYear = schoolYear;
+        this.term = term;
+        this.schedule = schedule;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Subject getSubject() { return subject; }
+    public void setSubject(Subject subject) { this.subject = subject; }
+    public User getTeacher() { return teacher; }
+    public void setTeacher(User teacher) { this.teacher = teacher; }
+    public String getCode() { return code; }
+    public void setCode(String code) { this.code = code; }
+    public String getSchoolYear() { return schoolYear; }
+    public void setSchoolYear(String schoolYear) { this.schoolYear = schoolYear; }
+    public String getTerm() { return term; }
+    public void setTerm(String term) { this.term = term; }
+    public String getSchedule() { return schedule; }
+    public void setSchedule(String schedule) { this.schedule = schedule; }
+}
@@ -0,0 +1,63 @@
+package auth.proj.sam.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One single-use secret (email verification code, password reset link, password change code), written
+ * by SecurityTokenService with plain JDBC; the entity only defines the table. Only a SHA-256 hash of the
+ * secret is stored, so the primary key lookup is the validation.
+ */
+@Entity
+@Table(name = "security_tokens", indexes = {
+        @Index(name = "idx_security_tokens_user_purpose", columnList = "user_id, purpose"),
+        @Index(name = "idx_security_tokens_expires", columnList = "expires_at")
+})
+public class SecurityToken {
+
+    public enum Purpose {
+        EMAIL_VERIFICATION, PASSWORD_RESET, PASSWORD_CHANGE
+    }
+
+    // Hex SHA-256 of purpose, user and secret
+    @Id
+    @Column(name = "token_hash", length = 64)
+    private String tokenHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private Purpose purpose;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // Data the token carries to its consumer, e.g. the encoded pending password of a password change
+    @Column(length = 255)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Set once the token is consumed; a used token never validates again
+    @Column(name = "used_at")
+    private LocalDateTime usedAt;
+
+    // Getters and Setters
+    public String getTokenHash() { return tokenHash; }
+    public void setTokenHash(String tokenHash) { this.tokenHash = tokenHash; }
+    public Purpose getPurpose() { return purpose; }
+    public void setPurpose(Purpose purpose) { this.purpose = purpose; }
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(LocalDateTime expiresAt) { this.expiresAt = expiresAt; }
+    public LocalDateTime getUsedAt() { return usedAt; }
+    public void setUsedAt(LocalDateTime usedAt) { this.usedAt = usedAt; }
+}
@@ -1,13 +1,20 @@
 package auth.proj.sam.model;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 
+/**
+ * Catalog entry of a subject. What a student takes in a term is an {@link Enrollment} in one of the
+ * subject's {@link Section}s, which also carries the schedule and the teacher. Readers use the cached
+ * catalog in SubjectCatalogService, which reloads whenever a subject is written.
+ */
 @Entity
 @Table(name = "subjects")
+@EntityListeners(SubjectListener.class)
 public class Subject {
 
     @Id
@@ -19,21 +26,17 @@ public class Subject {
     private int lec;
     private int lab;
     private int units;
-    private String grade;
-    private String schedule;
 
     // Constructors
     public Subject() {
     }
 
-    public Subject(String code, String description, int lec, int lab, int units, String grade, String schedule) {
+    public Subject(String code, String description, int lec, int lab, int units) {
         this.code = code;
         this.description = description;
         this.lec = lec;
         this.lab = lab;
         this.units = units;
-        this.grade = grade;
-        this.schedule = schedule;
     }
 
     // Getters and Setters
@@ -84,20 +87,4 @@ public class Subject {
     public void setUnits(int units) {
         this.units = units;
     }
-
-    public String getGrade() {
-        return grade;
-    }
-
-    public void setGrade(String grade) {
-        this.grade = grade;
-    }
-
-    public String getSchedule() {
-        return schedule;
-    }
-
-    public void setSchedule(String schedule) {
-        this.schedule = schedule;
-    }
 }
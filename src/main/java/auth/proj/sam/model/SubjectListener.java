@@ -0,0 +1,27 @@
+package auth.proj.sam.model;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+// JPA listener on Subject: announces every write as a SubjectChanged event, so the model does not depend on
+// the services that cache subjects (see SubjectCatalogService)
+public class SubjectListener {
+
+    public record SubjectChanged(Long subjectId) {
+    }
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public SubjectListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void subjectChanged(Subject subject) {
+        eventPublisher.publishEvent(new SubjectChanged(subject.getId()));
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = @Index(name = "idx_trusted_device_expiry", columnList = "expiry_date"))
 public class TrustedDevice {
 
     @Id
@@ -14,9 +15,11 @@ public class TrustedDevice {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @Column(nullable = false, unique = true)
+    // Hex SHA-256 of the remember-me cookie value; the cookie itself is never stored
+    @Column(nullable = false, unique = true, length = 64)
     private String token;
 
+    @Column(name = "expiry_date")
     private LocalDateTime expiryDate;
 
     // Getters and Setters
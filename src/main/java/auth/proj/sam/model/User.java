@@ -1,21 +1,24 @@
 package auth.proj.sam.model;
 
 import jakarta.persistence.*;
-import java.time.LocalDate;
+import org.hibernate.annotations.ColumnDefault;
 import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+    // Prefix search in the department teacher directory
+    @Index(name = "idx_users_last_name", columnList = "last_name"),
+    @Index(name = "idx_users_first_name", columnList = "first_name"),
+    // Timeouts that have run out (maintenance sweep)
+    @Index(name = "idx_users_timeout_until", columnList = "timeout_until")
+})
 public class User {
 
     // --- Enums for specific fields ---
     public enum AccountStatus { ACTIVE, BLOCKED, TIMED_OUT }
-    public enum Gender { MALE, FEMALE }
-    public enum Citizenship { FILIPINO, DUAL_CITIZENSHIP, FOREIGN }
-    public enum CivilStatus { SINGLE, MARRIED, WIDOWED, SEPARATED }
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -34,63 +37,37 @@ public class User {
     private AccountStatus accountStatus = AccountStatus.ACTIVE;
 
     // --- Security & Verification Fields ---
-    private String verificationCode;
-    private LocalDateTime verificationCodeExpiryTime;
-    private String passwordResetToken;
-    private LocalDateTime passwordResetTokenExpiryTime;
     private boolean mfaEnabled;
     private String mfaSecret;
+    // Time step of the last accepted TOTP code; only written through UserRepository.claimMfaStep
+    @Column(name = "mfa_last_step", insertable = false, updatable = false)
+    private Long mfaLastStep;
     private LocalDateTime timeoutUntil;
-    
-    // NEW: Temporary fields for in-session password change verification
-    private String changePasswordToken;
-    private String pendingNewPassword;
 
     // --- Registration Progress (NEW) ---
     private Integer registrationStep = 1; // 1: Initial, 2: Educational, 3: Family, 4: Other, 5: Complete
     
-    // --- University & Personal Information Fields ---
-    private String applicationFor;
-    private String classification;
-    private String courseProgram;
-    private String level;
-    private String schoolYear;
-    private String term;
-    private String lrn;
+    // --- Name & Display Fields ---
+    // Onboarding sections live in EducationalInfo, FamilyInfo and PersonalInfo and are loaded on demand.
     private String lastName;
     private String firstName;
     private String middleName;
     private String displayName;
     private LocalDateTime lastDisplayNameChange;
-    private LocalDate birthDate;
-    private String birthPlace;
-    @Enumerated(EnumType.STRING)
-    private Gender gender;
-    @Enumerated(EnumType.STRING)
-    private Citizenship citizenship;
-    private boolean dualCitizenship;
-    private String religion;
-    @Enumerated(EnumType.STRING)
-    private CivilStatus civilStatus;
-    private String cellphoneNumber;
-    private String residenceNumber;
-    private String facebook;
-    private String twitter;
-    
-    // --- Family Information Fields (NEW) ---
-    private String fatherName;
-    private String motherName;
-    private String parentContactNumber;
-    
-    // --- Address Info Fields ---
-    private String unitNumber;
-    private String street;
-    private String barangay;
-    private String city;
-    private String country;
-    private String zipCode;
     private String profileImagePath;
 
+    // Bumped (only through UserRepository.bumpDataVersion) whenever anything shown by /api/v1/students/me changes;
+    // never written from the entity, so saving a stale cached instance cannot move it back
+    @ColumnDefault("0")
+    @Column(name = "data_version", nullable = false, insertable = false, updatable = false)
+    private long dataVersion;
+
+    // Maintained by the database on every change to the row, whichever statement makes it; UserLookupService
+    // compares it (one primary-key read) to tell whether a cached copy is still current on this instance
+    @Column(name = "modified_at", insertable = false, updatable = false,
+            columnDefinition = "TIMESTAMP(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6)")
+    private LocalDateTime modifiedAt;
+
     // --- Relationships ---
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"), inverseJoinColumns = @JoinColumn(name = "role_id"))
@@ -104,7 +81,35 @@ public class User {
         this.mfaEnabled = false;
     }
 
-    // --- GETTERS AND SETTERS for all fields (including new ones) ---
+    // Field-by-field copy for UserLookupService, so callers never share (and mutate) one cached instance.
+    // Roles get their own set; trusted devices are never loaded on lookups, so the lazy collection is kept as is.
+    public User copy() {
+        User copy = new User();
+        copy.id = id;
+        copy.username = username;
+        copy.email = email;
+        copy.password = password;
+        copy.enabled = enabled;
+        copy.accountStatus = accountStatus;
+        copy.mfaEnabled = mfaEnabled;
+        copy.mfaSecret = mfaSecret;
+        copy.mfaLastStep = mfaLastStep;
+        copy.timeoutUntil = timeoutUntil;
+        copy.registrationStep = registrationStep;
+        copy.lastName = lastName;
+        copy.firstName = firstName;
+        copy.middleName = middleName;
+        copy.displayName = displayName;
+        copy.lastDisplayNameChange = lastDisplayNameChange;
+        copy.profileImagePath = profileImagePath;
+        copy.dataVersion = dataVersion;
+        copy.modifiedAt = modifiedAt;
+        copy.roles = roles == null ? null : new HashSet<>(roles);
+        copy.trustedDevices = trustedDevices;
+        return copy;
+    }
+
+    // --- GETTERS AND SETTERS ---
 
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -118,44 +123,17 @@ public class User {
     public void setEnabled(boolean enabled) { this.enabled = enabled; }
     public AccountStatus getAccountStatus() { return accountStatus; }
     public void setAccountStatus(AccountStatus accountStatus) { this.accountStatus = accountStatus; }
-    public String getVerificationCode() { return verificationCode; }
-    public void setVerificationCode(String verificationCode) { this.verificationCode = verificationCode; }
-    public LocalDateTime getVerificationCodeExpiryTime() { return verificationCodeExpiryTime; }
-    public void setVerificationCodeExpiryTime(LocalDateTime verificationCodeExpiryTime) { this.verificationCodeExpiryTime = verificationCodeExpiryTime; }
-    public String getPasswordResetToken() { return passwordResetToken; }
-    public void setPasswordResetToken(String passwordResetToken) { this.passwordResetToken = passwordResetToken; }
-    public LocalDateTime getPasswordResetTokenExpiryTime() { return passwordResetTokenExpiryTime; }
-    public void setPasswordResetTokenExpiryTime(LocalDateTime passwordResetTokenExpiryTime) { this.passwordResetTokenExpiryTime = passwordResetTokenExpiryTime; }
     public boolean isMfaEnabled() { return mfaEnabled; }
     public void setMfaEnabled(boolean mfaEnabled) { this.mfaEnabled = mfaEnabled; }
     public String getMfaSecret() { return mfaSecret; }
     public void setMfaSecret(String mfaSecret) { this.mfaSecret = mfaSecret; }
+    public Long getMfaLastStep() { return mfaLastStep; }
     public LocalDateTime getTimeoutUntil() { return timeoutUntil; }
     public void setTimeoutUntil(LocalDateTime timeoutUntil) { this.timeoutUntil = timeoutUntil; }
     
-    // NEW GETTERS/SETTERS
-    public String getChangePasswordToken() { return changePasswordToken; }
-    public void setChangePasswordToken(String changePasswordToken) { this.changePasswordToken = changePasswordToken; }
-    public String getPendingNewPassword() { return pendingNewPassword; }
-    public void setPendingNewPassword(String pendingNewPassword) { this.pendingNewPassword = pendingNewPassword; }
-    
     public Integer getRegistrationStep() { return registrationStep; }
     public void setRegistrationStep(Integer registrationStep) { this.registrationStep = registrationStep; }
     
-    public String getApplicationFor() { return applicationFor; }
-    public void setApplicationFor(String applicationFor) { this.applicationFor = applicationFor; }
-    public String getClassification() { return classification; }
-    public void setClassification(String classification) { this.classification = classification; }
-    public String getCourseProgram() { return courseProgram; }
-    public void setCourseProgram(String courseProgram) { this.courseProgram = courseProgram; }
-    public String getLevel() { return level; }
-    public void setLevel(String level) { this.level = level; }
-    public String getSchoolYear() { return schoolYear; }
-    public void setSchoolYear(String schoolYear) { this.schoolYear = schoolYear; }
-    public String getTerm() { return term; }
-    public void setTerm(String term) { this.term = term; }
-    public String getLrn() { return lrn; }
-    public void setLrn(String lrn) { this.lrn = lrn; }
     public String getLastName() { return lastName; }
     public void setLastName(String lastName) { this.lastName = lastName; }
     public String getFirstName() { return firstName; }
@@ -166,50 +144,11 @@ public class User {
     public void setDisplayName(String displayName) { this.displayName = displayName; }
     public LocalDateTime getLastDisplayNameChange() { return lastDisplayNameChange; }
     public void setLastDisplayNameChange(LocalDateTime lastDisplayNameChange) { this.lastDisplayNameChange = lastDisplayNameChange; }
-    public LocalDate getBirthDate() { return birthDate; }
-    public void setBirthDate(LocalDate birthDate) { this.birthDate = birthDate; }
-    public String getBirthPlace() { return birthPlace; }
-    public void setBirthPlace(String birthPlace) { this.birthPlace = birthPlace; }
-    public Gender getGender() { return gender; }
-    public void setGender(Gender gender) { this.gender = gender; }
-    public Citizenship getCitizenship() { return citizenship; }
-    public void setCitizenship(Citizenship citizenship) { this.citizenship = citizenship; }
-    public boolean isDualCitizenship() { return dualCitizenship; }
-    public void setDualCitizenship(boolean dualCitizenship) { this.dualCitizenship = dualCitizenship; }
-    public String getReligion() { return religion; }
-    public void setReligion(String religion) { this.religion = religion; }
-    public CivilStatus getCivilStatus() { return civilStatus; }
-    public void setCivilStatus(CivilStatus civilStatus) { this.civilStatus = civilStatus; }
-    public String getCellphoneNumber() { return cellphoneNumber; }
-    public void setCellphoneNumber(String cellphoneNumber) { this.cellphoneNumber = cellphoneNumber; }
-    public String getResidenceNumber() { return residenceNumber; }
-    public void setResidenceNumber(String residenceNumber) { this.residenceNumber = residenceNumber; }
-    public String getFacebook() { return facebook; }
-    public void setFacebook(String facebook) { this.facebook = facebook; }
-    public String getTwitter() { return twitter; }
-    public void setTwitter(String twitter) { this.twitter = twitter; }
-
-    public String getFatherName() { return fatherName; }
-    public void setFatherName(String fatherName) { this.fatherName = fatherName; }
-    public String getMotherName() { return motherName; }
-    public void setMotherName(String motherName) { this.motherName = motherName; }
-    public String getParentContactNumber() { return parentContactNumber; }
-    public void setParentContactNumber(String parentContactNumber) { this.parentContactNumber = parentContactNumber; }
-    
-    public String getUnitNumber() { return unitNumber; }
-    public void setUnitNumber(String unitNumber) { this.unitNumber = unitNumber; }
-    public String getStreet() { return street; }
-    public void setStreet(String street) { this.street = street; }
-    public String getBarangay() { return barangay; }
-    public void setBarangay(String barangay) { this.barangay = barangay; }
-    public String getCity() { return city; }
-    public void setCity(String city) { this.city = city; }
-    public String getCountry() { return country; }
-    public void setCountry(String country) { this.country = country; }
-    public String getZipCode() { return zipCode; }
-    public void setZipCode(String zipCode) { this.zipCode = zipCode; }
     public String getProfileImagePath() { return profileImagePath; }
     public void setProfileImagePath(String profileImagePath) { this.profileImagePath = profileImagePath; }
+    public long getDataVersion() { return dataVersion; }
+    public LocalDateTime getModifiedAt() { return modifiedAt; }
+    public void setModifiedAt(LocalDateTime modifiedAt) { this.modifiedAt = modifiedAt; }
     public Set<Role> getRoles() { return roles; }
     public void setRoles(Set<Role> roles) { this.roles = roles; }
     public List<TrustedDevice> getTrustedDevices() { return trustedDevices; }
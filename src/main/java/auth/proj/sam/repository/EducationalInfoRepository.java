@@ -0,0 +1,7 @@
+package auth.proj.sam.repository;
+
+import auth.proj.sam.model.EducationalInfo;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface EducationalInfoRepository extends JpaRepository<EducationalInfo, Long> {
+}
@@ -0,0 +1,42 @@
+package auth.proj.sam.repository;
+
+import auth.proj.sam.model.EmailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // Due rows and rows whose lease expired; rows already locked by another relay are skipped, not waited on
+    @Query(value = "SELECT id FROM email_outbox " +
+            "WHERE (status = 'PENDING' AND available_at <= :now) OR (status = 'SENDING' AND locked_until < :now) " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockClaimableIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = :status, e.lockedBy = :owner, e.lockedUntil = :lockedUntil, " +
+            "e.attempts = e.attempts + 1 WHERE e.id IN :ids")
+    int claim(@Param("ids") List<Long> ids, @Param("status") EmailOutbox.Status status,
+              @Param("owner") String owner, @Param("lockedUntil") LocalDateTime lockedUntil);
+
+    // Only the relay still holding the lease may complete a row; complete schedules a retry, finish is final
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = :status, e.sentAt = :sentAt, e.availableAt = :availableAt, " +
+            "e.lastError = :lastError, e.lockedBy = null, e.lockedUntil = null WHERE e.id = :id AND e.lockedBy = :owner")
+    int complete(@Param("id") Long id, @Param("owner") String owner, @Param("status") EmailOutbox.Status status,
+                 @Param("sentAt") LocalDateTime sentAt, @Param("availableAt") LocalDateTime availableAt,
+                 @Param("lastError") String lastError);
+
+    // A finished row's params (initial passwords, codes, reset links) are no longer needed, so they are dropped
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = :status, e.sentAt = :sentAt, e.lastError = :lastError, e.params = null, " +
+            "e.lockedBy = null, e.lockedUntil = null WHERE e.id = :id AND e.lockedBy = :owner")
+    int finish(@Param("id") Long id, @Param("owner") String owner, @Param("status") EmailOutbox.Status status,
+               @Param("sentAt") LocalDateTime sentAt, @Param("lastError") String lastError);
+
+    long countByStatus(EmailOutbox.Status status);
+}
@@ -0,0 +1,80 @@
+package auth.proj.sam.repository;
+
+import auth.proj.sam.model.Enrollment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
+
+    // A student's subjects of one term, with grade, schedule and teacher, in one round trip
+    @Query("SELECT sub.code AS code, sub.description AS description, sub.lec AS lec, sub.lab AS lab, sub.units AS units, " +
+           "e.grade AS grade, s.schedule AS schedule, s.code AS sectionCode, " +
+           "t.firstName AS teacherFirstName, t.lastName AS teacherLastName " +
+           "FROM Enrollment e JOIN e.section s JOIN s.subject sub LEFT JOIN s.teacher t " +
+           "WHERE e.student.id = :studentId AND s.schoolYear = :schoolYear AND s.term = :term " +
+           "ORDER BY sub.code")
+    List<EnrolledSubject> findTermSubjects(@Param("studentId") Long studentId,
+                                           @Param("schoolYear") String schoolYear, @Param("term") String term);
+
+    // One page of a section's students; order and offset come from the Pageable (paths on e and u)
+    @Query("SELECT u.username AS username, u.firstName AS firstName, u.lastName AS lastName, " +
+           "s.code AS sectionCode, e.grade AS grade, e.version AS version " +
+           "FROM Enrollment e JOIN e.student u JOIN e.section s " +
+           "WHERE s.id = :sectionId")
+    List<RosterEntry> findRoster(@Param("sectionId") Long sectionId, Pageable page);
+
+    @Query("SELECT e.student.id FROM Enrollment e WHERE e.section.id = :sectionId")
+    List<Long> findStudentIdsBySection(@Param("sectionId") Long sectionId);
+
+    // A student's sections of one term (department enrollment page and schedule conflict check)
+    @Query("SELECT s.id AS sectionId, sub.code AS subjectCode, sub.description AS description, s.code AS sectionCode, " +
+           "s.schedule AS schedule, e.grade AS grade " +
+           "FROM Enrollment e JOIN e.section s JOIN s.subject sub " +
+           "WHERE e.student.id = :studentId AND s.schoolYear = :schoolYear AND s.term = :term " +
+           "ORDER BY sub.code")
+    List<StudentSection> findStudentSections(@Param("studentId") Long studentId,
+                                             @Param("schoolYear") String schoolYear, @Param("term") String term);
+
+    // Graded enrollments are kept; the caller tells "graded" from "not enrolled" by the count
+    @Modifying
+    @Query("DELETE FROM Enrollment e WHERE e.student.id = :studentId AND e.section.id = :sectionId AND e.grade IS NULL")
+    int deleteUngraded(@Param("studentId") Long studentId, @Param("sectionId") Long sectionId);
+
+    boolean existsByStudent_IdAndSection_Id(Long studentId, Long sectionId);
+
+    interface EnrolledSubject {
+        String getCode();
+        String getDescription();
+        int getLec();
+        int getLab();
+        int getUnits();
+        String getGrade();
+        String getSchedule();
+        String getSectionCode();
+        String getTeacherFirstName();
+        String getTeacherLastName();
+    }
+
+    interface StudentSection {
+        Long getSectionId();
+        String getSubjectCode();
+        String getDescription();
+        String getSectionCode();
+        String getSchedule();
+        String getGrade();
+    }
+
+    interface RosterEntry {
+        String getUsername();
+        String getFirstName();
+        String getLastName();
+        String getSectionCode();
+        String getGrade();
+        long getVersion();
+    }
+}
@@ -0,0 +1,7 @@
+package auth.proj.sam.repository;
+
+import auth.proj.sam.model.FamilyInfo;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface FamilyInfoRepository extends JpaRepository<FamilyInfo, Long> {
+}
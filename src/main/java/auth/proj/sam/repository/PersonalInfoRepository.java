@@ -0,0 +1,7 @@
+package auth.proj.sam.repository;
+
+import auth.proj.sam.model.PersonalInfo;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface PersonalInfoRepository extends JpaRepository<PersonalInfo, Long> {
+}
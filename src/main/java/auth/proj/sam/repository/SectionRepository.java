@@ -0,0 +1,74 @@
+package auth.proj.sam.repository;
+
+import auth.proj.sam.model.Section;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface SectionRepository extends JpaRepository<Section, Long> {
+
+    @Query("SELECT s FROM Section s WHERE s.subject.code = :subjectCode AND s.code = :code " +
+           "AND s.schoolYear = :schoolYear AND s.term = :term")
+    Optional<Section> findOffering(@Param("subjectCode") String subjectCode, @Param("code") String code,
+                                   @Param("schoolYear") String schoolYear, @Param("term") String term);
+
+    // "IT101 BSIT 1-1" when the section is handled by the teacher (any term), empty otherwise
+    @Query("SELECT CONCAT(sub.code, ' ', s.code) FROM Section s JOIN s.subject sub WHERE s.id = :sectionId AND s.teacher.id = :teacherId")
+    Optional<String> findTitleForTeacher(@Param("sectionId") Long sectionId, @Param("teacherId") Long teacherId);
+
+    // A teacher's sections of one term with their enrolled counts, grouped in a single query
+    @Query("SELECT s.id AS id, sub.code AS subjectCode, sub.description AS description, s.code AS sectionCode, " +
+           "s.schedule AS schedule, COUNT(e.id) AS studentCount " +
+           "FROM Section s JOIN s.subject sub LEFT JOIN Enrollment e ON e.section = s " +
+           "WHERE s.teacher.id = :teacherId AND s.schoolYear = :schoolYear AND s.term = :term " +
+           "GROUP BY s.id, sub.code, sub.description, s.code, s.schedule " +
+           "ORDER BY sub.code, s.code")
+    List<TeacherSection> findTeacherSections(@Param("teacherId") Long teacherId,
+                                             @Param("schoolYear") String schoolYear, @Param("term") String term);
+
+    // Sections of a term that still need a teacher (department assignment drop-down)
+    @Query("SELECT s.id AS id, sub.code AS subjectCode, sub.description AS description, s.code AS sectionCode, " +
+           "s.schedule AS schedule " +
+           "FROM Section s JOIN s.subject sub " +
+           "WHERE s.teacher IS NULL AND s.schoolYear = :schoolYear AND s.term = :term " +
+           "ORDER BY sub.code, s.code")
+    List<SectionOption> findUnassignedSections(@Param("schoolYear") String schoolYear, @Param("term") String term);
+
+    // Every section of a term (department enrollment drop-down)
+    @Query("SELECT s.id AS id, sub.code AS subjectCode, sub.description AS description, s.code AS sectionCode, " +
+           "s.schedule AS schedule " +
+           "FROM Section s JOIN s.subject sub " +
+           "WHERE s.schoolYear = :schoolYear AND s.term = :term " +
+           "ORDER BY sub.code, s.code")
+    List<SectionOption> findTermSections(@Param("schoolYear") String schoolYear, @Param("term") String term);
+
+    // Conditional writes, so two department users cannot both claim the same section
+    @Modifying
+    @Query("UPDATE Section s SET s.teacher.id = :teacherId WHERE s.id = :sectionId AND s.teacher IS NULL")
+    int assignTeacher(@Param("sectionId") Long sectionId, @Param("teacherId") Long teacherId);
+
+    @Modifying
+    @Query("UPDATE Section s SET s.teacher = NULL WHERE s.id = :sectionId AND s.teacher.id = :teacherId")
+    int unassignTeacher(@Param("sectionId") Long sectionId, @Param("teacherId") Long teacherId);
+
+    interface SectionOption {
+        Long getId();
+        String getSubjectCode();
+        String getDescription();
+        String getSectionCode();
+        String getSchedule();
+    }
+
+    interface TeacherSection {
+        Long getId();
+        String getSubjectCode();
+        String getDescription();
+        String getSectionCode();
+        String getSchedule();
+        long getStudentCount();
+    }
+}
@@ -2,9 +2,23 @@ package auth.proj.sam.repository;
 
 import auth.proj.sam.model.TrustedDevice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface TrustedDeviceRepository extends JpaRepository<TrustedDevice, Long> {
     Optional<TrustedDevice> findByToken(String token);
     void deleteByUserAndToken(auth.proj.sam.model.User user, String token);
-}
\ No newline at end of file
+
+    // One lookup on the unique token index, without loading the device's user
+    boolean existsByTokenAndUser_IdAndExpiryDateAfter(String token, Long userId, LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TrustedDevice d WHERE d.user.id = :userId")
+    void deleteByUserId(@Param("userId") Long userId);
+}
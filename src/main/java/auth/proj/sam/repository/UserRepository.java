@@ -1,11 +1,136 @@
 package auth.proj.sam.repository;
 
 import auth.proj.sam.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email); // For password reset
-    User findByPasswordResetToken(String token); // For password reset
-}
\ No newline at end of file
+
+    // Which of the given emails already have an account (bulk import de-duplication)
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // Which of the given usernames are taken (bulk teacher provisioning with explicit IDs)
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    // Per-role account counts in one grouped query over user_roles (department dashboard)
+    @Query("SELECT r.name AS roleName, COUNT(u.id) AS userCount FROM User u JOIN u.roles r GROUP BY r.name")
+    List<RoleCount> countUsersGroupedByRole();
+
+    // --- Keyset-paginated directory listing by role (ascending / descending users.id) ---
+    // The Pageable is only used as a row limit; the cursor is the last id already shown.
+    // The prefix is escaped with a backslash (UserService.escapeLike), declared explicitly so it holds on every database.
+    @Query("SELECT u.id AS id, u.username AS username, u.firstName AS firstName, u.lastName AS lastName, " +
+           "u.email AS email, u.accountStatus AS accountStatus " +
+           "FROM User u JOIN u.roles r " +
+           "WHERE r.name = :roleName AND u.id > :afterId " +
+           "AND (:prefix IS NULL OR u.username LIKE :prefix ESCAPE '\\' OR u.lastName LIKE :prefix ESCAPE '\\' " +
+           "OR u.firstName LIKE :prefix ESCAPE '\\') " +
+           "ORDER BY u.id ASC")
+    List<UserSummary> findSummariesByRoleAfter(@Param("roleName") String roleName, @Param("afterId") Long afterId,
+                                               @Param("prefix") String prefix, Pageable limit);
+
+    @Query("SELECT u.id AS id, u.username AS username, u.firstName AS firstName, u.lastName AS lastName, " +
+           "u.email AS email, u.accountStatus AS accountStatus " +
+           "FROM User u JOIN u.roles r " +
+           "WHERE r.name = :roleName AND u.id < :beforeId " +
+           "AND (:prefix IS NULL OR u.username LIKE :prefix ESCAPE '\\' OR u.lastName LIKE :prefix ESCAPE '\\' " +
+           "OR u.firstName LIKE :prefix ESCAPE '\\') " +
+           "ORDER BY u.id DESC")
+    List<UserSummary> findSummariesByRoleBefore(@Param("roleName") String roleName, @Param("beforeId") Long beforeId,
+                                                @Param("prefix") String prefix, Pageable limit);
+
+    // --- Per-student data version behind the /api/v1/students/me ETags ---
+    @Query("SELECT u.dataVersion FROM User u WHERE u.id = :id")
+    Optional<Long> findDataVersion(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.dataVersion = u.dataVersion + 1 WHERE u.id IN :ids")
+    int bumpDataVersion(@Param("ids") Collection<Long> ids);
+
+    // --- Cache validation (see UserLookupService); modified_at is set by the database on every change ---
+    @Query("SELECT u.modifiedAt FROM User u WHERE u.id = :id")
+    Optional<LocalDateTime> findModifiedAt(@Param("id") Long id);
+
+    // --- Self-service changes (settings, MFA, profile) ---
+    // Handlers get a possibly cached copy of the user, so they write only the columns they change instead of
+    // merging the whole row back (which would restore an old password, status or timeout).
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.mfaSecret = :secret, u.mfaEnabled = :enabled WHERE u.id = :id")
+    int updateMfa(@Param("id") Long id, @Param("secret") String secret, @Param("enabled") boolean enabled);
+
+    // First setup secret; a no-op if another request already stored one
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.mfaSecret = :secret WHERE u.id = :id AND u.mfaSecret IS NULL AND u.mfaEnabled = false")
+    int initMfaSecret(@Param("id") Long id, @Param("secret") String secret);
+
+    // Only enables MFA for the secret the code was checked against
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.mfaEnabled = true WHERE u.id = :id AND u.mfaSecret = :secret")
+    int enableMfa(@Param("id") Long id, @Param("secret") String secret);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.profileImagePath = :path WHERE u.id = :id")
+    int updateProfileImage(@Param("id") Long id, @Param("path") String path);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.displayName = :name, u.lastDisplayNameChange = :changedAt WHERE u.id = :id")
+    int updateDisplayName(@Param("id") Long id, @Param("name") String name, @Param("changedAt") LocalDateTime changedAt);
+
+    @Query("SELECT u.mfaSecret FROM User u WHERE u.id = :id")
+    Optional<String> findMfaSecret(@Param("id") Long id);
+
+    // Records the TOTP time step of an accepted code; 0 rows when that step (or a later one) was already used,
+    // on any instance, so an intercepted code cannot be replayed
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.mfaLastStep = :step WHERE u.id = :id AND (u.mfaLastStep IS NULL OR u.mfaLastStep < :step)")
+    int claimMfaStep(@Param("id") Long id, @Param("step") long step);
+
+    // --- Timeouts that have run out (maintenance sweep, via idx_users_timeout_until) ---
+    @Query("SELECT u.id AS id, u.username AS username, u.firstName AS firstName, u.lastName AS lastName, " +
+           "u.email AS email, u.accountStatus AS accountStatus " +
+           "FROM User u WHERE u.timeoutUntil < :now AND u.accountStatus = :timedOut")
+    List<UserSummary> findExpiredTimeouts(@Param("timedOut") User.AccountStatus timedOut, @Param("now") LocalDateTime now,
+                                          Pageable limit);
+
+    // The status condition is repeated so an admin action in between is not overwritten
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.accountStatus = :active, u.timeoutUntil = NULL " +
+           "WHERE u.id IN :ids AND u.accountStatus = :timedOut AND u.timeoutUntil < :now")
+    int releaseTimeouts(@Param("ids") Collection<Long> ids, @Param("active") User.AccountStatus active,
+                        @Param("timedOut") User.AccountStatus timedOut, @Param("now") LocalDateTime now);
+
+    interface RoleCount {
+        String getRoleName();
+        long getUserCount();
+    }
+
+    // Lightweight projection used by listings that do not need the full entity
+    interface UserSummary {
+        Long getId();
+        String getUsername();
+        String getFirstName();
+        String getLastName();
+        String getEmail();
+        User.AccountStatus getAccountStatus();
+    }
+}
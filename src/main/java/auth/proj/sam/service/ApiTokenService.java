@@ -0,0 +1,183 @@
+package auth.proj.sam.service;
+
+import auth.proj.sam.model.Role;
+import auth.proj.sam.model.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Signed, self-contained tokens (HS256 JWTs) for the stateless /api/** surface.
+ *
+ * Access tokens are short-lived and carry the user id, username, roles and account status, so a request
+ * is authenticated with the signing key alone: no session and no user lookup. Refresh tokens live longer
+ * and are only accepted by /api/auth/refresh, which re-reads the user and checks the account again; they
+ * also carry a stamp of the password hash, so changing the password ends every refresh chain.
+ */
+@Service
+public class ApiTokenService {
+
+    public enum Type { ACCESS, REFRESH }
+
+    public record Claims(Type type, Long userId, String username, List<String> roles, User.AccountStatus status,
+                         String passwordStamp, Instant expiresAt) {
+    }
+
+    public record TokenPair(String accessToken, String refreshToken, long expiresIn) {
+    }
+
+    public static class InvalidTokenException extends RuntimeException {
+        public InvalidTokenException(String message) {
+            super(message);
+        }
+    }
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder BASE64URL_DECODER = Base64.getUrlDecoder();
+    private static final String HEADER = BASE64URL.encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SecretKeySpec key;
+    private final Duration accessTtl;
+    private final Duration refreshTtl;
+
+    private final ThreadLocal<Mac> macs;
+
+    public ApiTokenService(Environment environment,
+                           @Value("${app.api.token.secret:}") String secret,
+                           @Value("${app.api.token.access-ttl-seconds:300}") long accessTtlSeconds,
+                           @Value("${app.api.token.refresh-ttl-seconds:1209600}") long refreshTtlSeconds) {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            // A random key would differ per instance and per restart, so it is only acceptable in development
+            if (!environment.matchesProfiles("dev")) {
+                throw new IllegalStateException("app.api.token.secret (API_TOKEN_SECRET) must be set; "
+                        + "only the dev profile may run without it.");
+            }
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+            System.out.println("⚠️ app.api.token.secret is not set (dev profile); API tokens are signed with a random key and stop working on restart.");
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+            if (keyBytes.length < 32) {
+                throw new IllegalStateException("app.api.token.secret must be at least 32 bytes long.");
+            }
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.accessTtl = Duration.ofSeconds(accessTtlSeconds);
+        this.refreshTtl = Duration.ofSeconds(refreshTtlSeconds);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+                throw new IllegalStateException(ALGORITHM + " is not available", e);
+            }
+        });
+    }
+
+    public TokenPair issue(User user) {
+        Instant now = Instant.now();
+        List<String> roles = user.getRoles().stream().map(Role::getName).toList();
+        String access = sign(claims(Type.ACCESS, user, roles, now, now.plus(accessTtl)));
+        Map<String, Object> refreshClaims = claims(Type.REFRESH, user, roles, now, now.plus(refreshTtl));
+        refreshClaims.put("pwd", passwordStamp(user));
+        return new TokenPair(access, sign(refreshClaims), accessTtl.toSeconds());
+    }
+
+    /**
+     * Checks the signature, expiry and type of a token. Throws InvalidTokenException for anything that
+     * was not issued by this service (with the current key) or is no longer valid.
+     */
+    public Claims parse(String token, Type expected) {
+        String[] parts = token == null ? new String[0] : token.split("\\.", -1);
+        // Only our own header is accepted, so "alg":"none" and algorithm swaps never reach the signature check
+        if (parts.length != 3 || !HEADER.equals(parts[0])) {
+            throw new InvalidTokenException("Malformed token.");
+        }
+        byte[] signature = mac((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+        byte[] provided;
+        try {
+            provided = BASE64URL_DECODER.decode(parts[2]);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTokenException("Malformed token.");
+        }
+        if (!MessageDigest.isEqual(signature, provided)) {
+            throw new InvalidTokenException("Invalid token signature.");
+        }
+
+        Map<?, ?> payload;
+        try {
+            payload = objectMapper.readValue(BASE64URL_DECODER.decode(parts[1]), Map.class);
+        } catch (Exception e) {
+            throw new InvalidTokenException("Malformed token.");
+        }
+        Instant expiresAt = Instant.ofEpochSecond(((Number) payload.get("exp")).longValue());
+        if (!Instant.now().isBefore(expiresAt)) {
+            throw new InvalidTokenException("Token has expired.");
+        }
+        Type type = Type.valueOf(String.valueOf(payload.get("typ")).toUpperCase(Locale.ROOT));
+        if (type != expected) {
+            throw new InvalidTokenException("Wrong token type.");
+        }
+        List<String> roles = ((List<?>) payload.get("roles")).stream().map(String::valueOf).toList();
+        return new Claims(type, ((Number) payload.get("uid")).longValue(), (String) payload.get("sub"), roles,
+                User.AccountStatus.valueOf((String) payload.get("st")), (String) payload.get("pwd"), expiresAt);
+    }
+
+    // Keyed digest of the stored password hash; it changes whenever the password does
+    public String passwordStamp(User user) {
+        byte[] digest = mac(String.valueOf(user.getPassword()).getBytes(StandardCharsets.UTF_8));
+        return BASE64URL.encodeToString(Arrays.copyOf(digest, 12));
+    }
+
+    private static Map<String, Object> claims(Type type, User user, List<String> roles, Instant issuedAt, Instant expiresAt) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", user.getUsername());
+        claims.put("uid", user.getId());
+        claims.put("roles", roles);
+        claims.put("st", effectiveStatus(user).name());
+        claims.put("typ", type.name().toLowerCase(Locale.ROOT));
+        claims.put("iat", issuedAt.getEpochSecond());
+        claims.put("exp", expiresAt.getEpochSecond());
+        return claims;
+    }
+
+    // A timeout that has run out no longer locks the account (same rule as CustomUserDetails)
+    public static User.AccountStatus effectiveStatus(User user) {
+        if (user.getAccountStatus() == User.AccountStatus.TIMED_OUT
+                && (user.getTimeoutUntil() == null || LocalDateTime.now().isAfter(user.getTimeoutUntil()))) {
+            return User.AccountStatus.ACTIVE;
+        }
+        return user.getAccountStatus();
+    }
+
+    private String sign(Map<String, Object> claims) {
+        try {
+            String signingInput = HEADER + "." + BASE64URL.encodeToString(objectMapper.writeValueAsBytes(claims));
+            return signingInput + "." + BASE64URL.encodeToString(mac(signingInput.getBytes(StandardCharsets.US_ASCII)));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not write token claims.", e);
+        }
+    }
+
+    private byte[] mac(byte[] input) {
+        return macs.get().doFinal(input);
+    }
+}
@@ -0,0 +1,131 @@
+package auth.proj.sam.service;
+
+import auth.proj.sam.config.BoundedPasswordEncoder;
+import auth.proj.sam.model.Role;
+import auth.proj.sam.model.SecurityToken;
+import auth.proj.sam.model.User;
+import auth.proj.sam.repository.RoleRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Shared write path of the bulk student import and teacher provisioning: parallel password hashing
+ * on the bounded hashing pool, and JDBC-batched inserts of users, their role and their outbox emails.
+ */
+@Service
+public class BulkUserWriter {
+
+    // One account to insert; verification fields are null for accounts that start enabled (the code goes to security_tokens)
+    public record NewUser(String username, String email, String passwordHash, boolean enabled, int registrationStep,
+                          String lastName, String firstName, String middleName, String displayName,
+                          String verificationCode, LocalDateTime verificationCodeExpiryTime) {
+    }
+
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final RoleRepository roleRepository;
+    private final EmailOutboxService emailOutboxService;
+    private final JdbcTemplate jdbcTemplate;
+    private final SecurityTokenService securityTokenService;
+    private final int hashConcurrency;
+
+    public BulkUserWriter(BoundedPasswordEncoder passwordEncoder, RoleRepository roleRepository,
+                          EmailOutboxService emailOutboxService, JdbcTemplate jdbcTemplate,
+                          SecurityTokenService securityTokenService,
+                          @Value("${app.import.hash-concurrency:4}") int hashConcurrency) {
+        this.passwordEncoder = passwordEncoder;
+        this.roleRepository = roleRepository;
+        this.emailOutboxService = emailOutboxService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.securityTokenService = securityTokenService;
+        this.hashConcurrency = Math.max(1, hashConcurrency);
+    }
+
+    // Resolved once per job instead of once per account
+    public Integer resolveRoleId(String roleName) {
+        return roleRepository.findByName(roleName)
+                .map(Role::getId)
+                .orElseThrow(() -> new RuntimeException("Error: " + roleName + " is not found."));
+    }
+
+    /**
+     * Hashes all passwords concurrently, with at most hash-concurrency hashes in flight so sign-ins
+     * keep their share of the pool. A rejected or failed hash only fails its own future.
+     */
+    public List<CompletableFuture<String>> hashAll(List<String> rawPasswords) throws InterruptedException {
+        Semaphore permits = new Semaphore(hashConcurrency);
+        List<CompletableFuture<String>> hashes = new ArrayList<>(rawPasswords.size());
+        for (String rawPassword : rawPasswords) {
+            permits.acquire();
+            CompletableFuture<String> hash;
+            try {
+                hash = passwordEncoder.encodeAsync(rawPassword);
+            } catch (RuntimeException e) {
+                hash = CompletableFuture.failedFuture(e);
+            }
+            hash.whenComplete((value, error) -> permits.release());
+            hashes.add(hash);
+        }
+        return hashes;
+    }
+
+    // Must run inside the caller's chunk transaction so users, roles and emails commit together
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void insert(List<NewUser> users, Integer roleId, List<EmailOutboxService.PendingEmail> emails) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO users (username, email, password, enabled, account_status, mfa_enabled, " +
+                "registration_step, last_name, first_name, middle_name, display_name) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                users, users.size(), (ps, user) -> {
+                    ps.setString(1, user.username());
+                    ps.setString(2, user.email());
+                    ps.setString(3, user.passwordHash());
+                    ps.setBoolean(4, user.enabled());
+                    ps.setString(5, User.AccountStatus.ACTIVE.name());
+                    ps.setBoolean(6, false);
+                    ps.setInt(7, user.registrationStep());
+                    ps.setString(8, user.lastName());
+                    ps.setString(9, user.firstName());
+                    ps.setString(10, user.middleName());
+                    ps.setString(11, user.displayName());
+                });
+
+        // Role links for the rows just inserted, resolved by username in one statement
+        String placeholders = String.join(",", Collections.nCopies(users.size(), "?"));
+        List<Object> args = new ArrayList<>(users.size() + 1);
+        args.add(roleId);
+        users.forEach(user -> args.add(user.username()));
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) SELECT u.id, ? FROM users u WHERE u.username IN (" + placeholders + ")",
+                args.toArray());
+
+        // Verification codes are hashed with the user id, so they are stored once the ids exist
+        Map<String, NewUser> pending = new HashMap<>();
+        users.stream().filter(user -> user.verificationCode() != null).forEach(user -> pending.put(user.username(), user));
+        if (!pending.isEmpty()) {
+            List<SecurityTokenService.PendingCode> codes = new ArrayList<>(pending.size());
+            jdbcTemplate.query("SELECT u.id, u.username FROM users u WHERE u.username IN (" + placeholders + ")",
+                    rs -> {
+                        NewUser user = pending.get(rs.getString(2));
+                        if (user != null) {
+                            codes.add(new SecurityTokenService.PendingCode(rs.getLong(1), user.verificationCode(), user.verificationCodeExpiryTime()));
+                        }
+                    }, users.stream().map(NewUser::username).toArray());
+            securityTokenService.storeCodes(SecurityToken.Purpose.EMAIL_VERIFICATION, codes);
+        }
+
+        if (!emails.isEmpty()) {
+            emailOutboxService.enqueueAll(emails);
+        }
+    }
+}
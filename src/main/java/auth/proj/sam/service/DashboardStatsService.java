@@ -0,0 +1,57 @@
+package auth.proj.sam.service;
+
+import auth.proj.sam.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Holds a short-lived snapshot of the per-role account counts shown on the department dashboard.
+ * The snapshot is built from a single grouped query over user_roles and is dropped whenever
+ * accounts are created, blocked or deleted, so the dashboard never has to load the users table.
+ */
+@Service
+public class DashboardStatsService {
+
+    private final UserRepository userRepository;
+
+    @Value("${app.dashboard.stats-ttl-seconds:60}")
+    private long statsTtlSeconds;
+
+    private volatile Snapshot snapshot;
+
+    public DashboardStatsService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    public long countUsersByRole(String roleName) {
+        return currentSnapshot().roleCounts().getOrDefault(roleName, 0L);
+    }
+
+    // Called by UserService after any change that affects the role counts.
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    private Snapshot currentSnapshot() {
+        Snapshot current = snapshot;
+        if (current != null && current.loadedAt().plus(Duration.ofSeconds(statsTtlSeconds)).isAfter(Instant.now())) {
+            return current;
+        }
+
+        Map<String, Long> counts = new HashMap<>();
+        for (UserRepository.RoleCount row : userRepository.countUsersGroupedByRole()) {
+            counts.put(row.getRoleName(), row.getUserCount());
+        }
+        current = new Snapshot(Map.copyOf(counts), Instant.now());
+        snapshot = current;
+        return current;
+    }
+
+    private record Snapshot(Map<String, Long> roleCounts, Instant loadedAt) {
+    }
+}
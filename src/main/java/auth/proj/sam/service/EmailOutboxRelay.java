@@ -0,0 +1,69 @@
+package auth.proj.sam.service;
+
+import auth.proj.sam.model.EmailOutbox;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drains the email outbox. Each instance claims its own batch, so several app instances can relay
+ * concurrently without sending the same row twice while its lease is held. Delivery is at-least-once:
+ * a row whose lease expires before it is marked (e.g. the instance died mid-send) is picked up again.
+ */
+@Component
+public class EmailOutboxRelay {
+
+    private final EmailOutboxService emailOutboxService;
+    private final EmailService emailService;
+
+    public EmailOutboxRelay(EmailOutboxService emailOutboxService, EmailService emailService) {
+        this.emailOutboxService = emailOutboxService;
+        this.emailService = emailService;
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval-ms:2000}")
+    public void relayPendingEmails() {
+        List<EmailOutbox> batch;
+        do {
+            batch = emailOutboxService.claimBatch();
+            if (batch.isEmpty()) {
+                return;
+            }
+            // Stop waiting a little before the lease runs out so rows are released by us, not by expiry
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(emailOutboxService.getLeaseSeconds()) * 9 / 10;
+
+            List<CompletableFuture<Void>> sends = new ArrayList<>(batch.size());
+            for (EmailOutbox row : batch) {
+                try {
+                    sends.add(emailService.sendEmail(row.getRecipient(), row.getTemplateId(), emailOutboxService.readParams(row)));
+                } catch (RuntimeException e) {
+                    sends.add(CompletableFuture.failedFuture(e));
+                }
+            }
+
+            int sent = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                EmailOutbox row = batch.get(i);
+                try {
+                    sends.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                    emailOutboxService.markSent(row);
+                    sent++;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    emailOutboxService.markFailed(row, e.getCause().getMessage());
+                } catch (TimeoutException e) {
+                    emailOutboxService.markFailed(row, "Timed out waiting for the mail pipeline");
+                }
+            }
+            System.out.println("📨 Email outbox: relayed " + sent + "/" + batch.size() + " email(s).");
+        } while (batch.size() == emailOutboxService.getBatchSize());
+    }
+}
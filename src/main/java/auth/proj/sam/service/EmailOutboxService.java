@@ -0,0 +1,163 @@
+package auth.proj.sam.service;
+
+import auth.proj.sam.model.EmailOutbox;
+import auth.proj.sam.repository.EmailOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.net.InetAddress;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Durable side of outbound email: rows are written in the caller's transaction, so an email exists
+ * if and only if the user change that triggered it committed. {@link EmailOutboxRelay} claims due rows
+ * under a time-limited lease and hands them to the {@link EmailService} pipeline.
+ */
+@Service
+public class EmailOutboxService {
+
+    private static final TypeReference<Map<String, String>> PARAMS_TYPE = new TypeReference<>() {};
+
+    // One email for enqueueAll
+    public record PendingEmail(String to, Long templateId, Map<String, String> params) {
+    }
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final String owner;
+
+    private final int batchSize;
+    private final long leaseSeconds;
+    private final int maxAttempts;
+    private final long retryBackoffSeconds;
+    private final long retentionDays;
+
+    public EmailOutboxService(EmailOutboxRepository emailOutboxRepository, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                              @Value("${app.mail.outbox.batch-size:50}") int batchSize,
+                              @Value("${app.mail.outbox.lease-seconds:60}") long leaseSeconds,
+                              @Value("${app.mail.outbox.max-attempts:8}") int maxAttempts,
+                              @Value("${app.mail.outbox.retry-backoff-seconds:30}") long retryBackoffSeconds,
+                              @Value("${app.mail.outbox.retention-days:7}") long retentionDays) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.leaseSeconds = leaseSeconds;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffSeconds = retryBackoffSeconds;
+        this.retentionDays = retentionDays;
+        this.owner = instanceName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    // Must join the transaction that changes the user, otherwise a rollback would still send the email
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String to, Long templateId, Map<String, String> params) {
+        LocalDateTime now = LocalDateTime.now();
+        EmailOutbox row = new EmailOutbox();
+        row.setRecipient(to);
+        row.setTemplateId(templateId);
+        row.setParams(writeParams(params));
+        row.setCreatedAt(now);
+        row.setAvailableAt(now);
+        emailOutboxRepository.save(row);
+    }
+
+    // Bulk variant for imports: one JDBC batch instead of one INSERT round trip per email
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueAll(List<PendingEmail> emails) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO email_outbox (recipient, template_id, params, status, attempts, created_at, available_at) " +
+                "VALUES (?, ?, ?, ?, 0, ?, ?)",
+                emails, emails.size(), (ps, email) -> {
+                    ps.setString(1, email.to());
+                    ps.setLong(2, email.templateId());
+                    ps.setString(3, writeParams(email.params()));
+                    ps.setString(4, EmailOutbox.Status.PENDING.name());
+                    ps.setTimestamp(5, now);
+                    ps.setTimestamp(6, now);
+                });
+    }
+
+    // Locks a batch with SKIP LOCKED and leases it to this instance in one short transaction
+    @Transactional
+    public List<EmailOutbox> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = emailOutboxRepository.lockClaimableIds(now, batchSize);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        emailOutboxRepository.claim(ids, EmailOutbox.Status.SENDING, owner, now.plusSeconds(leaseSeconds));
+        return emailOutboxRepository.findAllById(ids);
+    }
+
+    @Transactional
+    public void markSent(EmailOutbox row) {
+        LocalDateTime now = LocalDateTime.now();
+        emailOutboxRepository.finish(row.getId(), owner, EmailOutbox.Status.SENT, now, null);
+    }
+
+    // Retries later with a doubling delay, and gives up after max-attempts
+    @Transactional
+    public void markFailed(EmailOutbox row, String error) {
+        boolean exhausted = row.getAttempts() >= maxAttempts;
+        long delay = retryBackoffSeconds << Math.min(row.getAttempts() - 1, 7);
+        String lastError = error != null && error.length() > 500 ? error.substring(0, 500) : error;
+        if (exhausted) {
+            emailOutboxRepository.finish(row.getId(), owner, EmailOutbox.Status.FAILED, null, lastError);
+        } else {
+            emailOutboxRepository.complete(row.getId(), owner, EmailOutbox.Status.PENDING,
+                    null, LocalDateTime.now().plusSeconds(delay), lastError);
+        }
+    }
+
+    // One batch of the maintenance sweep (see MaintenanceSweeper): sent and failed rows whose last attempt is past
+    // the retention period, found through the (status, available_at) index
+    public int purgeFinished(int limit) {
+        return jdbcTemplate.update("DELETE FROM email_outbox WHERE status IN ('SENT', 'FAILED') AND available_at < ? LIMIT ?",
+                Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays)), limit);
+    }
+
+    public Map<String, String> readParams(EmailOutbox row) {
+        try {
+            return row.getParams() == null ? Map.of() : objectMapper.readValue(row.getParams(), PARAMS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Unreadable params for outbox email " + row.getId(), e);
+        }
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getLeaseSeconds() {
+        return leaseSeconds;
+    }
+
+    private String writeParams(Map<String, String> params) {
+        try {
+            return objectMapper.writeValueAsString(params);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize email params", e);
+        }
+    }
+
+    private static String instanceName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "sam";
+        }
+    }
+}
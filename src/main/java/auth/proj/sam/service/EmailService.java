@@ -1,68 +1,305 @@
 package auth.proj.sam.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import okhttp3.*;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.scheduling.annotation.Async; // <-- ADDED IMPORT
-import java.util.Map;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outbound mail pipeline for Brevo template emails.
+ *
+ * Emails go into a bounded queue; when it is full, callers wait up to the enqueue timeout and the
+ * email is then rejected instead of piling up tasks. A fixed set of worker threads drains the queue,
+ * groups whatever is waiting by template and sends each group as one Brevo request using
+ * {@code messageVersions}. Failed requests (I/O errors, 429, 5xx) are retried with exponential
+ * backoff and full jitter.
+ */
 @Service
 public class EmailService {
 
-    @Value("${BREVO_API_KEY}") // Commented out
-    private String brevoApiKey;
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
 
-    // @Value("${EMAIL_SENDER_ADDRESS}") // Commented out
-    private String senderEmailAddress;
+    // One queued template email; the future completes once Brevo accepted (or finally rejected) it
+    record OutgoingEmail(String to, Long templateId, Map<String, String> params,
+                         long enqueuedAtNanos, CompletableFuture<Void> result) {
+    }
 
-    private final OkHttpClient httpClient = new OkHttpClient();
+    public record EmailStats(long queued, long sent, long failed, long rejected, long retries,
+                             long requests, int queueDepth, double averageLatencyMillis) {
+    }
 
-    @Async // <-- ADDED ANNOTATION: Sends email in a separate thread
-    public void sendEmail(String to, Long templateId, Map<String, String> params) {
-        String apiUrl = "https://api.brevo.com/v3/smtp/email";
+    private final String brevoApiKey;
+    private final String apiUrl;
+    private final int workerCount;
+    private final int batchSize;
+    private final long enqueueTimeoutMillis;
+    private final int maxAttempts;
+    private final long backoffInitialMillis;
+    private final long backoffMaxMillis;
 
-        // Build the "params" part of the JSON
-        StringBuilder paramsJson = new StringBuilder();
-        for (Map.Entry<String, String> entry : params.entrySet()) {
-            if (paramsJson.length() > 0) {
-                paramsJson.append(",");
-            }
-            paramsJson.append(String.format("\"%s\":\"%s\"", entry.getKey(), entry.getValue()));
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OkHttpClient httpClient;
+    private final BlockingQueue<OutgoingEmail> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+    private volatile boolean stopped;
+
+    private final AtomicLong queuedCount = new AtomicLong();
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong totalLatencyMillis = new AtomicLong();
+
+    public EmailService(@Value("${BREVO_API_KEY}") String brevoApiKey,
+                        @Value("${app.mail.brevo.base-url:https://api.brevo.com}") String baseUrl,
+                        @Value("${app.mail.workers:2}") int workerCount,
+                        @Value("${app.mail.queue-capacity:1000}") int queueCapacity,
+                        @Value("${app.mail.batch-size:50}") int batchSize,
+                        @Value("${app.mail.enqueue-timeout-ms:2000}") long enqueueTimeoutMillis,
+                        @Value("${app.mail.max-attempts:4}") int maxAttempts,
+                        @Value("${app.mail.backoff-initial-ms:500}") long backoffInitialMillis,
+                        @Value("${app.mail.backoff-max-ms:10000}") long backoffMaxMillis,
+                        @Value("${app.mail.connect-timeout-ms:5000}") long connectTimeoutMillis,
+                        @Value("${app.mail.read-timeout-ms:15000}") long readTimeoutMillis) {
+        this.brevoApiKey = brevoApiKey;
+        this.apiUrl = baseUrl.replaceAll("/+$", "") + "/v3/smtp/email";
+        this.workerCount = workerCount;
+        this.batchSize = Math.max(1, batchSize);
+        this.enqueueTimeoutMillis = enqueueTimeoutMillis;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffInitialMillis = backoffInitialMillis;
+        this.backoffMaxMillis = backoffMaxMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.httpClient = new OkHttpClient.Builder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .readTimeout(Duration.ofMillis(readTimeoutMillis))
+                .writeTimeout(Duration.ofMillis(readTimeoutMillis))
+                .build();
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int i = 1; i <= workerCount; i++) {
+            Thread worker = new Thread(this::drainQueue, "mail-sender-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopped = true;
+        running = false;
+        workers.forEach(Thread::interrupt);
+        // Workers fail their own in-flight batch; whatever is still queued is failed here
+        List<OutgoingEmail> unsent = new ArrayList<>();
+        queue.drainTo(unsent);
+        if (!unsent.isEmpty()) {
+            System.err.println("⚠️ Mail pipeline stopped with " + unsent.size() + " unsent email(s) in the queue.");
+            failRemaining(unsent, new RejectedExecutionException("Mail pipeline stopped"));
         }
+    }
 
-        // Construct the final JSON payload with templateId and params
-        String jsonPayload = String.format(
-            "{\"to\":[{\"email\":\"%s\"}],\"templateId\":%d,\"params\":{%s}}",
-            to,
-            templateId,
-            paramsJson.toString()
-        );
-
-        RequestBody requestBody = RequestBody.create(
-            jsonPayload,
-            MediaType.get("application/json; charset=utf-8")
-        );
-
-        Request request = new Request.Builder()
-            .url(apiUrl)
-            .post(requestBody)
-            .addHeader("accept", "application/json")
-            .addHeader("api-key", brevoApiKey)
-            .addHeader("content-type", "application/json")
-            .build();
+    /**
+     * Queues a template email. Blocks for up to the enqueue timeout when the queue is full;
+     * the returned future fails if the email is rejected or cannot be delivered after all retries.
+     */
+    public CompletableFuture<Void> sendEmail(String to, Long templateId, Map<String, String> params) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        OutgoingEmail email = new OutgoingEmail(to, templateId, new LinkedHashMap<>(params), System.nanoTime(), result);
 
+        boolean accepted;
+        if (stopped) {
+            result.completeExceptionally(new RejectedExecutionException("Mail pipeline stopped"));
+            return result;
+        }
         try {
-            Response response = httpClient.newCall(request).execute();
-            if (response.isSuccessful()) {
-                System.out.println("✅ Template email sent successfully to " + to + " via Brevo API.");
+            accepted = queue.offer(email, enqueueTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+
+        if (!accepted) {
+            rejectedCount.incrementAndGet();
+            System.err.println("❌ Mail queue is full; email to " + to + " was not queued.");
+            result.completeExceptionally(new RejectedExecutionException("Mail queue is full"));
+        } else {
+            queuedCount.incrementAndGet();
+        }
+        return result;
+    }
+
+    public EmailStats getStats() {
+        long completed = sentCount.get() + failedCount.get();
+        return new EmailStats(queuedCount.get(), sentCount.get(), failedCount.get(), rejectedCount.get(),
+                retryCount.get(), requestCount.get(), queue.size(),
+                completed == 0 ? 0 : (double) totalLatencyMillis.get() / completed);
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.stats-log-interval-ms:300000}",
+               initialDelayString = "${app.mail.stats-log-interval-ms:300000}")
+    public void logStats() {
+        EmailStats stats = getStats();
+        System.out.println(String.format(
+                "📊 Mail pipeline: queued=%d sent=%d failed=%d rejected=%d retries=%d requests=%d depth=%d avgLatencyMs=%.1f",
+                stats.queued(), stats.sent(), stats.failed(), stats.rejected(), stats.retries(),
+                stats.requests(), stats.queueDepth(), stats.averageLatencyMillis()));
+    }
+
+    private void drainQueue() {
+        List<OutgoingEmail> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                OutgoingEmail first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+
+                Map<Long, List<OutgoingEmail>> byTemplate = new LinkedHashMap<>();
+                for (OutgoingEmail email : batch) {
+                    byTemplate.computeIfAbsent(email.templateId(), id -> new ArrayList<>()).add(email);
+                }
+                for (Map.Entry<Long, List<OutgoingEmail>> group : byTemplate.entrySet()) {
+                    deliver(group.getKey(), group.getValue());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failRemaining(batch, new RejectedExecutionException("Mail pipeline stopped"));
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("❌ Unexpected error in mail worker: " + e.getMessage());
+                failRemaining(batch, e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void deliver(Long templateId, List<OutgoingEmail> emails) throws InterruptedException {
+        String payload = emails.size() == 1
+                ? buildPayload(emails.get(0).to(), templateId, emails.get(0).params())
+                : buildBatchPayload(templateId, emails);
+
+        Outcome outcome = post(payload);
+        if (outcome.error() == null) {
+            complete(emails, null);
+            System.out.println("✅ Template " + templateId + " email sent to " + emails.size() + " recipient(s) via Brevo API.");
+            return;
+        }
+        if (outcome.rejected() && emails.size() > 1) {
+            // One bad recipient makes Brevo reject the whole batch; sent one by one, only that email fails
+            System.err.println("⚠️ Brevo rejected a batch of " + emails.size() + " template " + templateId
+                    + " emails (" + outcome.error() + "); sending them one by one.");
+            for (OutgoingEmail email : emails) {
+                deliver(templateId, List.of(email));
+            }
+            return;
+        }
+
+        System.err.println("❌ Failed to send template " + templateId + " email to " + emails.size() + " recipient(s) via Brevo API. " + outcome.error());
+        complete(emails, new IllegalStateException("Brevo API rejected the email: " + outcome.error()));
+    }
+
+    // Result of posting one payload: no error when sent; rejected when Brevo refused it (4xx other than 429)
+    private record Outcome(String error, boolean rejected) {
+    }
+
+    // Posts the payload, retrying rate limits, server errors and I/O failures with backoff
+    private Outcome post(String payload) throws InterruptedException {
+        String lastError = null;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            if (attempt > 1) {
+                retryCount.incrementAndGet();
+                Thread.sleep(backoffMillis(attempt - 1));
+            }
+
+            requestCount.incrementAndGet();
+            Request request = new Request.Builder()
+                    .url(apiUrl)
+                    .post(RequestBody.create(payload, JSON))
+                    .addHeader("accept", "application/json")
+                    .addHeader("api-key", brevoApiKey)
+                    .build();
+
+            try (Response response = httpClient.newCall(request).execute()) {
+                if (response.isSuccessful()) {
+                    return new Outcome(null, false);
+                }
+                lastError = "HTTP " + response.code() + ": " + (response.body() != null ? response.body().string() : "No response body.");
+                if (response.code() != 429 && response.code() < 500) {
+                    return new Outcome(lastError, true);
+                }
+            } catch (IOException e) {
+                lastError = e.getMessage();
+            }
+        }
+        return new Outcome(lastError, false);
+    }
+
+    private void complete(List<OutgoingEmail> emails, Exception error) {
+        long now = System.nanoTime();
+        for (OutgoingEmail email : emails) {
+            totalLatencyMillis.addAndGet(TimeUnit.NANOSECONDS.toMillis(now - email.enqueuedAtNanos()));
+            if (error == null) {
+                sentCount.incrementAndGet();
+                email.result().complete(null);
             } else {
-                String responseBody = response.body() != null ? response.body().string() : "No response body.";
-                System.err.println("❌ Failed to send template email via Brevo API. Response: " + responseBody);
-                // Do not re-throw RuntimeException in an @Async method.
+                failedCount.incrementAndGet();
+                email.result().completeExceptionally(error);
             }
-        } catch (Exception e) {
-            System.err.println("❌ Exception while sending template email via Brevo API: " + e.getMessage());
-            // Do not re-throw RuntimeException in an @Async method.
         }
     }
-}
\ No newline at end of file
+
+    // Fails the emails whose future is still open, so no caller waits on an email that was dropped
+    private void failRemaining(List<OutgoingEmail> emails, Exception error) {
+        complete(emails.stream().filter(email -> !email.result().isDone()).toList(), error);
+    }
+
+    // Exponential backoff capped at backoffMaxMillis, with full jitter so workers do not retry in lockstep
+    private long backoffMillis(int retry) {
+        long ceiling = Math.min(backoffMaxMillis, backoffInitialMillis << Math.min(retry - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    // Builds the Brevo template-email JSON body (package-private for the JMH payload benchmark)
+    String buildPayload(String to, Long templateId, Map<String, String> params) {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.putArray("to").addObject().put("email", to);
+        root.put("templateId", templateId);
+        ObjectNode paramsNode = root.putObject("params");
+        params.forEach(paramsNode::put);
+        return root.toString();
+    }
+
+    // One request for several recipients of the same template, each with its own params
+    String buildBatchPayload(Long templateId, List<OutgoingEmail> emails) {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("templateId", templateId);
+        ArrayNode versions = root.putArray("messageVersions");
+        for (OutgoingEmail email : emails) {
+            ObjectNode version = versions.addObject();
+            version.putArray("to").addObject().put("email", email.to());
+            ObjectNode paramsNode = version.putObject("params");
+            email.params().forEach(paramsNode::put);
+        }
+        return root.toString();
+    }
+}
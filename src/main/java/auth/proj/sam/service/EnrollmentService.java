@@ -0,0 +1,194 @@
+package auth.proj.sam.service;
+
+import auth.proj.sam.dto.RosterPage;
+import auth.proj.sam.model.EducationalInfo;
+import auth.proj.sam.model.Enrollment;
+import auth.proj.sam.model.Section;
+import auth.proj.sam.model.User;
+import auth.proj.sam.repository.EnrollmentRepository;
+import auth.proj.sam.repository.EnrollmentRepository.EnrolledSubject;
+import auth.proj.sam.repository.EnrollmentRepository.RosterEntry;
+import auth.proj.sam.repository.EnrollmentRepository.StudentSection;
+import auth.proj.sam.repository.SectionRepository;
+import auth.proj.sam.repository.SectionRepository.SectionOption;
+import auth.proj.sam.repository.SectionRepository.TeacherSection;
+import auth.proj.sam.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.JpaSort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Sections and enrollments for the student, teacher and department pages. Every lookup is scoped to
+ * one school year and term (or one section), so its cost follows the user's own load rather than the
+ * size of the catalog.
+ */
+@Service
+public class EnrollmentService {
+
+    public record Term(String schoolYear, String term) {
+    }
+
+    // Sortable roster columns; anything else falls back to name order
+    private static final Map<String, String[]> ROSTER_SORTS = Map.of(
+            "name", new String[]{"u.lastName", "u.firstName"},
+            "id", new String[]{"u.username"},
+            "grade", new String[]{"e.grade"});
+
+    private final EnrollmentRepository enrollmentRepository;
+    private final SectionRepository sectionRepository;
+    private final UserRepository userRepository;
+    private final ScheduleService scheduleService;
+    private final Term currentTerm;
+
+    public EnrollmentService(EnrollmentRepository enrollmentRepository, SectionRepository sectionRepository,
+                             UserRepository userRepository, ScheduleService scheduleService,
+                             @Value("${app.term.school-year:2025-2026}") String schoolYear,
+                             @Value("${app.term.term:1st Semester}") String term) {
+        this.enrollmentRepository = enrollmentRepository;
+        this.sectionRepository = sectionRepository;
+        this.userRepository = userRepository;
+        this.scheduleService = scheduleService;
+        this.currentTerm = new Term(schoolYear, term);
+    }
+
+    // The term the department is currently running
+    public Term getCurrentTerm() {
+        return currentTerm;
+    }
+
+    // A student's term as recorded during onboarding, falling back to the current term
+    public Term termOf(EducationalInfo education) {
+        if (education == null || isBlank(education.getSchoolYear()) || isBlank(education.getTerm())) {
+            return currentTerm;
+        }
+        return new Term(education.getSchoolYear().trim(), education.getTerm().trim());
+    }
+
+    public List<EnrolledSubject> getStudentSubjects(User student, Term term) {
+        return enrollmentRepository.findTermSubjects(student.getId(), term.schoolYear(), term.term());
+    }
+
+    public List<TeacherSection> getTeacherSections(User teacher) {
+        return sectionRepository.findTeacherSections(teacher.getId(), currentTerm.schoolYear(), currentTerm.term());
+    }
+
+    // One page of a section's roster; the total comes from the teacher's grouped section count
+    public RosterPage getRosterPage(TeacherSection section, String sort, boolean descending, int page, int size) {
+        int pageSize = Math.max(10, Math.min(size, 200));
+        String sortKey = ROSTER_SORTS.containsKey(sort) ? sort : "name";
+        int totalPages = (int) Math.max(1, (section.getStudentCount() + pageSize - 1) / pageSize);
+        int pageIndex = Math.max(0, Math.min(page, totalPages - 1));
+
+        // Username breaks ties so rows never move between pages
+        Sort order = JpaSort.unsafe(descending ? Sort.Direction.DESC : Sort.Direction.ASC, ROSTER_SORTS.get(sortKey))
+                .and(JpaSort.unsafe(Sort.Direction.ASC, "u.username"));
+        List<RosterEntry> students = enrollmentRepository.findRoster(section.getId(), PageRequest.of(pageIndex, pageSize, order));
+        return new RosterPage(students, section.getStudentCount(), pageIndex, pageSize, sortKey, descending);
+    }
+
+    // Every student of a section with grade and version, in name order, for batch grade entry
+    public List<RosterEntry> getGradeSheet(Long sectionId) {
+        return enrollmentRepository.findRoster(sectionId, Pageable.unpaged(JpaSort.unsafe("u.lastName", "u.firstName", "u.username")));
+    }
+
+    public Optional<String> getSectionTitle(Long sectionId, User teacher) {
+        return sectionRepository.findTitleForTeacher(sectionId, teacher.getId());
+    }
+
+    public List<SectionOption> getUnassignedSections() {
+        return sectionRepository.findUnassignedSections(currentTerm.schoolYear(), currentTerm.term());
+    }
+
+    // The student's current-term sections, and the current-term sections they can still be enrolled in
+    public List<StudentSection> getEnrolledSections(User student) {
+        return enrollmentRepository.findStudentSections(student.getId(), currentTerm.schoolYear(), currentTerm.term());
+    }
+
+    public List<SectionOption> getOpenSections(List<StudentSection> enrolled) {
+        Set<Long> taken = enrolled.stream().map(StudentSection::getSectionId).collect(Collectors.toSet());
+        Set<String> subjects = enrolled.stream().map(StudentSection::getSubjectCode).collect(Collectors.toSet());
+        return sectionRepository.findTermSections(currentTerm.schoolYear(), currentTerm.term()).stream()
+                .filter(section -> !taken.contains(section.getId()) && !subjects.contains(section.getSubjectCode()))
+                .toList();
+    }
+
+    /**
+     * Enrolls a student in a section. Rejected when the student already takes the subject that term or
+     * the section's schedule overlaps one of their other sections.
+     */
+    @Transactional
+    public void enroll(User student, Long sectionId) {
+        if (student.getRoles().stream().noneMatch(role -> "ROLE_STUDENT".equals(role.getName()))) {
+            throw new RuntimeException("User " + student.getUsername() + " is not a student.");
+        }
+        Section section = sectionRepository.findById(sectionId).orElseThrow(() -> new RuntimeException("Section not found."));
+
+        // Writing the student's row first locks it, so two enrollments of the same student cannot pass the checks together
+        userRepository.bumpDataVersion(List.of(student.getId()));
+        for (StudentSection other : enrollmentRepository.findStudentSections(student.getId(), section.getSchoolYear(), section.getTerm())) {
+            if (other.getSubjectCode().equals(section.getSubject().getCode())) {
+                throw new RuntimeException(student.getUsername() + " is already enrolled in " + other.getSubjectCode()
+                        + " (" + other.getSectionCode() + ").");
+            }
+            if (scheduleService.overlaps(section.getSchedule(), other.getSchedule())) {
+                throw new RuntimeException(section.getSubject().getCode() + " (" + section.getCode() + ", " + section.getSchedule() + ") conflicts with " + other.getSubjectCode()
+                        + " (" + other.getSectionCode() + ", " + other.getSchedule() + ").");
+            }
+        }
+        enrollmentRepository.save(new Enrollment(student, section));
+    }
+
+    @Transactional
+    public void unenroll(User student, Long sectionId) {
+        if (enrollmentRepository.deleteUngraded(student.getId(), sectionId) == 0) {
+            throw new RuntimeException(enrollmentRepository.existsByStudent_IdAndSection_Id(student.getId(), sectionId)
+                    ? "This enrollment already has a grade and cannot be dropped."
+                    : student.getUsername() + " is not enrolled in this section.");
+        }
+        userRepository.bumpDataVersion(List.of(student.getId()));
+    }
+
+    @Transactional
+    public void assignTeacher(Long sectionId, User teacher) {
+        if (teacher.getRoles().stream().noneMatch(role -> "ROLE_TEACHER".equals(role.getName()))) {
+            throw new RuntimeException("User " + teacher.getUsername() + " is not a teacher.");
+        }
+        if (!sectionRepository.existsById(sectionId)) {
+            throw new RuntimeException("Section not found.");
+        }
+        if (sectionRepository.assignTeacher(sectionId, teacher.getId()) == 0) {
+            throw new RuntimeException("This section is already assigned to a teacher. Remove it from that teacher first.");
+        }
+        touchStudentsOf(sectionId);
+    }
+
+    @Transactional
+    public void unassignTeacher(Long sectionId, User teacher) {
+        if (sectionRepository.unassignTeacher(sectionId, teacher.getId()) == 0) {
+            throw new RuntimeException("This section is not assigned to " + teacher.getUsername() + ".");
+        }
+        touchStudentsOf(sectionId);
+    }
+
+    // The teacher appears on each enrolled student's schedule and grades, so their API data version moves on
+    private void touchStudentsOf(Long sectionId) {
+        List<Long> studentIds = enrollmentRepository.findStudentIdsBySection(sectionId);
+        if (!studentIds.isEmpty()) {
+            userRepository.bumpDataVersion(studentIds);
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
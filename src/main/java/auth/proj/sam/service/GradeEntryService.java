@@ -0,0 +1,197 @@
+package auth.proj.sam.service;
+
+import auth.proj.sam.dto.GradeSubmissionDto;
+import auth.proj.sam.model.User;
+import auth.proj.sam.repository.SectionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+
+/**
+ * Batch grade entry for a teacher's section: every grade of the submission is validated against the
+ * grading scale, then all changed grades are written with one JDBC batch in one transaction.
+ *
+ * Each enrollment carries a version. The section's enrollment rows are locked, the submitted versions
+ * are compared with the stored ones, and a mismatch (someone saved in between) rejects the whole
+ * submission with the current values, so nothing is silently overwritten.
+ */
+@Service
+public class GradeEntryService {
+
+    // 1.00-3.00 in quarter steps, 4.00 (conditional), 5.00 (failed), INC and PASSED
+    public static final Set<String> GRADE_SCALE;
+
+    static {
+        Set<String> grades = new LinkedHashSet<>();
+        for (BigDecimal grade = new BigDecimal("1.00"); grade.compareTo(new BigDecimal("3.00")) <= 0; grade = grade.add(new BigDecimal("0.25"))) {
+            grades.add(grade.toPlainString());
+        }
+        grades.addAll(List.of("4.00", "5.00", "INC", "PASSED"));
+        GRADE_SCALE = Collections.unmodifiableSet(grades);
+    }
+
+    // The stored grade of a student whose version did not match the submission
+    public record Conflict(String studentId, String grade, long version) {
+    }
+
+    public record Result(int updated, int unchanged) {
+    }
+
+    public static class InvalidGradesException extends RuntimeException {
+        private final List<String> errors;
+
+        public InvalidGradesException(List<String> errors) {
+            super("Some grades were not saved: " + String.join(" ", errors));
+            this.errors = errors;
+        }
+
+        public List<String> getErrors() { return errors; }
+    }
+
+    public static class GradeConflictException extends RuntimeException {
+        private final List<Conflict> conflicts;
+
+        public GradeConflictException(List<Conflict> conflicts) {
+            super("Grades of " + conflicts.size() + " student(s) were changed by someone else since you loaded them. Reload and try again.");
+            this.conflicts = conflicts;
+        }
+
+        public List<Conflict> getConflicts() { return conflicts; }
+    }
+
+    private record Current(long enrollmentId, long studentKey, String grade, long version) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SectionRepository sectionRepository;
+    private final int maxBatch;
+
+    public GradeEntryService(JdbcTemplate jdbcTemplate, SectionRepository sectionRepository,
+                             @Value("${app.grades.max-batch:1000}") int maxBatch) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sectionRepository = sectionRepository;
+        this.maxBatch = Math.max(1, maxBatch);
+    }
+
+    /**
+     * Saves a section's grades in one round trip. Nothing is written unless every entry is valid and
+     * every version matches; entries whose grade did not change are skipped.
+     */
+    @Transactional
+    public Result submit(Long sectionId, User teacher, List<GradeSubmissionDto.Entry> entries) {
+        if (sectionRepository.findTitleForTeacher(sectionId, teacher.getId()).isEmpty()) {
+            throw new RuntimeException("Section not found.");
+        }
+        if (entries == null || entries.isEmpty()) {
+            return new Result(0, 0);
+        }
+        if (entries.size() > maxBatch) {
+            throw new InvalidGradesException(List.of("At most " + maxBatch + " grades can be submitted at once."));
+        }
+
+        // 1. Validate every entry before touching the database
+        List<String> errors = new ArrayList<>();
+        Map<String, GradeSubmissionDto.Entry> byStudent = new LinkedHashMap<>();
+        Map<String, String> normalized = new HashMap<>();
+        for (int i = 0; i < entries.size(); i++) {
+            GradeSubmissionDto.Entry entry = entries.get(i);
+            String studentId = entry.getStudentId() == null ? "" : entry.getStudentId().trim();
+            String label = "Row " + (i + 1) + (studentId.isEmpty() ? "" : " (" + studentId + ")") + ":";
+            String grade = isBlank(entry.getGrade()) ? null : normalizeGrade(entry.getGrade());
+            if (studentId.isEmpty()) {
+                errors.add(label + " student ID is required.");
+            } else if (byStudent.putIfAbsent(studentId, entry) != null) {
+                errors.add(label + " student appears more than once.");
+            } else if (entry.getVersion() == null) {
+                errors.add(label + " version is required.");
+            } else if (!isBlank(entry.getGrade()) && grade == null) {
+                errors.add(label + " '" + entry.getGrade().trim() + "' is not a valid grade.");
+            } else {
+                normalized.put(studentId, grade);
+            }
+        }
+
+        // 2. Lock the section's enrollments so the version check below cannot race another save
+        Map<Long, Current> byStudentKey = new HashMap<>();
+        jdbcTemplate.query("SELECT id, student_id, grade, version FROM enrollments WHERE section_id = ? FOR UPDATE",
+                rs -> {
+                    byStudentKey.put(rs.getLong(2), new Current(rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getLong(4)));
+                }, sectionId);
+        Map<String, Current> current = new HashMap<>();
+        jdbcTemplate.query("SELECT u.id, u.username FROM users u WHERE u.id IN (SELECT student_id FROM enrollments WHERE section_id = ?)",
+                rs -> {
+                    Current enrollment = byStudentKey.get(rs.getLong(1));
+                    if (enrollment != null) {
+                        current.put(rs.getString(2), enrollment);
+                    }
+                }, sectionId);
+
+        for (String studentId : byStudent.keySet()) {
+            if (!current.containsKey(studentId)) {
+                errors.add(studentId + " is not enrolled in this section.");
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new InvalidGradesException(errors);
+        }
+
+        // 3. Compare versions; unchanged grades are not rewritten
+        List<Conflict> conflicts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<String> updatedStudents = new ArrayList<>();
+        for (Map.Entry<String, GradeSubmissionDto.Entry> submitted : byStudent.entrySet()) {
+            Current stored = current.get(submitted.getKey());
+            String grade = normalized.get(submitted.getKey());
+            if (stored.version() != submitted.getValue().getVersion()) {
+                conflicts.add(new Conflict(submitted.getKey(), stored.grade(), stored.version()));
+            } else if (!Objects.equals(stored.grade(), grade)) {
+                updates.add(new Object[]{grade, stored.enrollmentId(), stored.version()});
+                updatedStudents.add(submitted.getKey());
+            }
+        }
+        if (!conflicts.isEmpty()) {
+            throw new GradeConflictException(conflicts);
+        }
+
+        // 4. One batch for all changed grades; the version condition stays as a guard for writers that skip the lock
+        if (!updates.isEmpty()) {
+            int[] counts = jdbcTemplate.batchUpdate(
+                    "UPDATE enrollments SET grade = ?, version = version + 1 WHERE id = ? AND version = ?", updates);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    Current stored = current.get(updatedStudents.get(i));
+                    throw new GradeConflictException(List.of(new Conflict(updatedStudents.get(i), stored.grade(), stored.version())));
+                }
+            }
+            // The students' API data version (see /api/v1/students/me) moves with their grades
+            jdbcTemplate.batchUpdate("UPDATE users SET data_version = data_version + 1 WHERE id = ?",
+                    updatedStudents.stream().map(studentId -> new Object[]{current.get(studentId).studentKey()}).toList());
+        }
+        System.out.println("📝 " + teacher.getUsername() + " saved " + updates.size() + " grade(s) in section " + sectionId
+                + " (" + (byStudent.size() - updates.size()) + " unchanged).");
+        return new Result(updates.size(), byStudent.size() - updates.size());
+    }
+
+    // "1.5" -> "1.50", "inc" -> "INC"; null when the value is not on the grading scale
+    static String normalizeGrade(String raw) {
+        String value = raw.trim().toUpperCase(Locale.ROOT);
+        if (GRADE_SCALE.contains(value)) {
+            return value;
+        }
+        try {
+            String grade = new BigDecimal(value).setScale(2, RoundingMode.UNNECESSARY).toPlainString();
+            return GRADE_SCALE.contains(grade) ? grade : null;
+        } catch (NumberFormatException | ArithmeticException e) {
+            return null;
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
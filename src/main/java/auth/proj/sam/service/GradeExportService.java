@@ -0,0 +1,181 @@
+package auth.proj.sam.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Grade sheet exports (one section for its teacher, or a whole term for the department) as CSV or XLSX.
+ *
+ * Rows are read with a forward-only streaming cursor and written to the response as they arrive, so
+ * memory use does not depend on how many enrollments the export covers. The cursor keeps a pooled
+ * connection for the whole download, so only a few exports run at once (see {@link #reserveSlot}).
+ */
+@Service
+public class GradeExportService {
+
+    public enum Format {
+        CSV("text/csv;charset=UTF-8", "csv"),
+        XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() { return contentType; }
+        public String getExtension() { return extension; }
+
+        public static Format of(String value) {
+            return "xlsx".equalsIgnoreCase(value) ? XLSX : CSV;
+        }
+    }
+
+    // Destination of the exported rows (CSV or XLSX)
+    private interface RowSink {
+        void writeRow(Object... values) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static final String SECTION_SQL =
+            "SELECT u.username, u.last_name, u.first_name, e.grade " +
+            "FROM enrollments e JOIN users u ON u.id = e.student_id " +
+            "WHERE e.section_id = ? " +
+            "ORDER BY u.last_name, u.first_name, u.username";
+
+    private static final String TERM_SQL =
+            "SELECT sub.code, s.code, t.username, u.username, u.last_name, u.first_name, e.grade " +
+            "FROM sections s " +
+            "JOIN subjects sub ON sub.id = s.subject_id " +
+            "LEFT JOIN users t ON t.id = s.teacher_id " +
+            "JOIN enrollments e ON e.section_id = s.id " +
+            "JOIN users u ON u.id = e.student_id " +
+            "WHERE s.school_year = ? AND s.term = ? " +
+            "ORDER BY sub.code, s.code, u.last_name, u.first_name, u.username";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SubjectCatalogService subjectCatalogService;
+    private final int fetchSize;
+    private final Semaphore exportSlots;
+
+    public GradeExportService(JdbcTemplate jdbcTemplate, SubjectCatalogService subjectCatalogService,
+                              @Value("${app.export.fetch-size:500}") int fetchSize,
+                              @Value("${app.export.max-concurrent:2}") int maxConcurrent) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.subjectCatalogService = subjectCatalogService;
+        this.fetchSize = Math.max(1, fetchSize);
+        this.exportSlots = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    /**
+     * Takes one of the export slots for the given download, released when it ends (or fails). Empty when
+     * all slots are busy; callers answer 503 instead of letting slow clients drain the connection pool.
+     */
+    public Optional<StreamingResponseBody> reserveSlot(StreamingResponseBody export) {
+        if (!exportSlots.tryAcquire()) {
+            return Optional.empty();
+        }
+        return Optional.of(out -> {
+            try {
+                export.writeTo(out);
+            } finally {
+                exportSlots.release();
+            }
+        });
+    }
+
+    public void exportSection(Long sectionId, String title, Format format, OutputStream out) throws IOException {
+        RowSink sink = openSink(format, title, out);
+        sink.writeRow("Student ID", "Last Name", "First Name", "Grade");
+        stream(SECTION_SQL, new Object[]{sectionId}, rs -> sink.writeRow(rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4)));
+        sink.finish();
+    }
+
+    public void exportTerm(EnrollmentService.Term term, Format format, OutputStream out) throws IOException {
+        RowSink sink = openSink(format, term.schoolYear() + " " + term.term(), out);
+        sink.writeRow("School Year", "Term", "Subject Code", "Description", "Units", "Section", "Teacher ID",
+                "Student ID", "Last Name", "First Name", "Grade");
+        stream(TERM_SQL, new Object[]{term.schoolYear(), term.term()}, rs -> {
+            String subjectCode = rs.getString(1);
+            // Description and units come from the cached catalog instead of widening every row of the cursor
+            var subject = subjectCatalogService.findByCode(subjectCode);
+            sink.writeRow(term.schoolYear(), term.term(), subjectCode,
+                    subject.map(SubjectCatalogService.SubjectEntry::description).orElse(null),
+                    subject.map(SubjectCatalogService.SubjectEntry::units).orElse(null),
+                    rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5), rs.getString(6), rs.getString(7));
+        });
+        sink.finish();
+    }
+
+    // "grades-2025-2026-1st-semester.xlsx"
+    public static String fileName(String prefix, String title, Format format) {
+        String slug = title.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-").replaceAll("(^-|-$)", "");
+        return prefix + (slug.isEmpty() ? "" : "-" + slug) + "." + format.getExtension();
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+    }
+
+    private void stream(String sql, Object[] args, RowWriter writer) throws IOException {
+        PreparedStatementCreator statement = connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            // MySQL Connector/J only streams row by row with this sentinel; other drivers take a batch size
+            ps.setFetchSize(isMySql(connection) ? Integer.MIN_VALUE : fetchSize);
+            for (int i = 0; i < args.length; i++) {
+                ps.setObject(i + 1, args[i]);
+            }
+            return ps;
+        };
+        try {
+            jdbcTemplate.query(statement, (RowCallbackHandler) rs -> {
+                try {
+                    writer.write(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Usually the client went away mid-download; the statement is already closed by JdbcTemplate
+            throw e.getCause();
+        }
+    }
+
+    private static boolean isMySql(Connection connection) throws SQLException {
+        return connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql");
+    }
+
+    private static RowSink openSink(Format format, String title, OutputStream out) throws IOException {
+        if (format == Format.XLSX) {
+            XlsxWriter xlsx = new XlsxWriter(out, title);
+            return new RowSink() {
+                public void writeRow(Object... values) throws IOException { xlsx.writeRow(values); }
+                public void finish() throws IOException { xlsx.close(); }
+            };
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        CsvWriter csv = new CsvWriter(writer);
+        return new RowSink() {
+            public void writeRow(Object... values) throws IOException { csv.writeRow(values); }
+            public void finish() throws IOException { csv.flush(); }
+        };
+    }
+}
@@ -0,0 +1,238 @@
+package auth.proj.sam.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands out student and teacher IDs (e.g. "22-1-02000") that stay unique across restarts and instances.
+ *
+ * Each series keeps its high-water mark in an id_sequences row. An instance reserves a block of
+ * values in one short row-locked transaction, then serves the block from memory with a CAS, so the
+ * row is touched once per block rather than once per ID. Unused values of a block are skipped after
+ * a restart, which only leaves gaps. A prefix may contain {yy} or {yyyy} to start a new series each year.
+ *
+ * Reservations run on their own thread over their own single connection, and the next block is
+ * fetched once half of the current one is handed out. Callers (usually inside a transaction that
+ * already holds a pooled connection) therefore never ask the main pool for a second connection, and
+ * only wait when a block runs out before its successor has arrived.
+ */
+@Service
+public class IdAllocationService {
+
+    private static final int DIGITS = 5;
+    private static final long MAX_VALUE = 99_999;
+
+    // A reserved range [next, end) of one series; handing out refillAt starts fetching the next block
+    private static final class Block {
+        final AtomicLong next;
+        final long end;
+        final long refillAt;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+            this.refillAt = start + (end - start) / 2;
+        }
+    }
+
+    private static final Block EMPTY = new Block(0, 0);
+
+    // The block being handed out and the reservation of its successor, if one is under way or done
+    private static final class Slot {
+        final AtomicReference<Block> current = new AtomicReference<>(EMPTY);
+        final AtomicReference<CompletableFuture<Block>> upcoming = new AtomicReference<>();
+    }
+
+    private record Series(String kind, String prefixPattern, long start, long end) {
+    }
+
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate reservationTransaction;
+    private final ExecutorService reserver;
+    private final int blockSize;
+    private final Series studentSeries;
+    private final Series teacherSeries;
+    private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+
+    public IdAllocationService(DataSourceProperties dataSourceProperties,
+                               @Value("${app.ids.block-size:50}") int blockSize,
+                               @Value("${app.ids.student.prefix:22-1-}") String studentPrefix,
+                               @Value("${app.ids.student.start:2000}") long studentStart,
+                               @Value("${app.ids.teacher.prefix:22-1-}") String teacherPrefix,
+                               @Value("${app.ids.teacher.start:50000}") long teacherStart) {
+        this.blockSize = Math.max(1, blockSize);
+        // Same database as the application, but a connection of its own (opened on first use)
+        this.dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        this.dataSource.setPoolName("id-allocation");
+        this.dataSource.setMaximumPoolSize(1);
+        this.dataSource.setMinimumIdle(0);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.reservationTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.reserver = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "id-allocation");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Students and teachers share the default prefix, so each series stops where the next one starts
+        boolean sharedPrefix = studentPrefix.equals(teacherPrefix);
+        this.studentSeries = new Series("student", studentPrefix, studentStart,
+                sharedPrefix && teacherStart > studentStart ? teacherStart : MAX_VALUE + 1);
+        this.teacherSeries = new Series("teacher", teacherPrefix, teacherStart,
+                sharedPrefix && studentStart > teacherStart ? studentStart : MAX_VALUE + 1);
+    }
+
+    public String nextStudentId() {
+        return next(studentSeries);
+    }
+
+    public String nextTeacherId() {
+        return next(teacherSeries);
+    }
+
+    // For bulk provisioning; the sequence row is only touched once per block
+    public List<String> nextStudentIds(int count) {
+        return next(studentSeries, count);
+    }
+
+    public List<String> nextTeacherIds(int count) {
+        return next(teacherSeries, count);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        reserver.shutdownNow();
+        dataSource.close();
+    }
+
+    private List<String> next(Series series, int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(next(series));
+        }
+        return ids;
+    }
+
+    private String next(Series series) {
+        String prefix = resolvePrefix(series.prefixPattern());
+        String sequenceName = series.kind() + ":" + prefix;
+        Slot slot = slots.computeIfAbsent(sequenceName, name -> new Slot());
+
+        while (true) {
+            Block block = slot.current.get();
+            long value = block.next.getAndIncrement();
+            if (value < block.end) {
+                if (value == block.refillAt) {
+                    upcoming(slot, series, prefix, sequenceName);
+                }
+                return format(prefix, value);
+            }
+            // Block exhausted: switch to its successor, which is normally fetched already
+            CompletableFuture<Block> upcoming = upcoming(slot, series, prefix, sequenceName);
+            Block fresh;
+            try {
+                fresh = upcoming.join();
+            } catch (CompletionException e) {
+                slot.upcoming.compareAndSet(upcoming, null); // the next caller tries again
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+            if (slot.current.compareAndSet(block, fresh)) {
+                slot.upcoming.compareAndSet(upcoming, null);
+            }
+        }
+    }
+
+    // The pending reservation of the series' next block, starting one if there is none
+    private CompletableFuture<Block> upcoming(Slot slot, Series series, String prefix, String sequenceName) {
+        while (true) {
+            CompletableFuture<Block> pending = slot.upcoming.get();
+            if (pending != null) {
+                return pending;
+            }
+            CompletableFuture<Block> reservation = new CompletableFuture<>();
+            if (slot.upcoming.compareAndSet(null, reservation)) {
+                try {
+                    reserver.execute(() -> {
+                        try {
+                            reservation.complete(reserveBlock(series, prefix, sequenceName));
+                        } catch (RuntimeException e) {
+                            reservation.completeExceptionally(e);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    reservation.completeExceptionally(new RuntimeException("ID allocation is shutting down.", e));
+                }
+                return reservation;
+            }
+        }
+    }
+
+    private Block reserveBlock(Series series, String prefix, String sequenceName) {
+        try {
+            return reservationTransaction.execute(status -> reserveBlockLocked(series, prefix, sequenceName));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance created the sequence row first; it exists now, so lock it instead
+            return reservationTransaction.execute(status -> reserveBlockLocked(series, prefix, sequenceName));
+        }
+    }
+
+    private Block reserveBlockLocked(Series series, String prefix, String sequenceName) {
+        List<Long> stored = jdbcTemplate.queryForList("SELECT next_value FROM id_sequences WHERE name = ? FOR UPDATE",
+                Long.class, sequenceName);
+        long start = stored.isEmpty() ? seedValue(series, prefix) : stored.get(0);
+        long end = Math.min(start + blockSize, series.end());
+        if (start >= end) {
+            throw new RuntimeException("No " + series.kind() + " IDs left in series " + prefix + ".");
+        }
+        if (stored.isEmpty()) {
+            jdbcTemplate.update("INSERT INTO id_sequences (name, next_value) VALUES (?, ?)", sequenceName, end);
+        } else {
+            jdbcTemplate.update("UPDATE id_sequences SET next_value = ? WHERE name = ?", end, sequenceName);
+        }
+        System.out.println("🔢 Reserved " + series.kind() + " IDs " + format(prefix, start) + " to " + format(prefix, end - 1) + ".");
+        return new Block(start, end);
+    }
+
+    // A new series continues after the highest ID already in use (e.g. created by the old in-memory counters).
+    // Generated IDs are zero-padded, so among usernames of the same length string order is numeric order.
+    private long seedValue(Series series, String prefix) {
+        String low = format(prefix, series.start());
+        String highest = jdbcTemplate.queryForObject("SELECT MAX(username) FROM users " +
+                        "WHERE username >= ? AND username <= ? AND LENGTH(username) = LENGTH(?)",
+                String.class, low, format(prefix, series.end() - 1), low);
+        if (highest == null) {
+            return series.start();
+        }
+        return Long.parseLong(highest.substring(prefix.length())) + 1;
+    }
+
+    private static String resolvePrefix(String pattern) {
+        int year = Year.now().getValue();
+        return pattern.replace("{yyyy}", String.valueOf(year))
+                .replace("{yy}", String.format("%02d", year % 100));
+    }
+
+    private static String format(String prefix, long value) {
+        return prefix + String.format("%0" + DIGITS + "d", value);
+    }
+}
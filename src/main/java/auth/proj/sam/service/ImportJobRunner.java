@@ -0,0 +1,115 @@
+package auth.proj.sam.service;
+
+import auth.proj.sam.dto.ImportJob;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Runs bulk imports (students, teachers) one at a time on a single background worker and keeps their
+ * progress for the department pages. A couple of jobs may wait; further uploads are refused.
+ */
+@Service
+public class ImportJobRunner {
+
+    private final ThreadPoolExecutor worker;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final int maxReportedErrors;
+
+    public ImportJobRunner(@Value("${app.import.max-reported-errors:5000}") int maxReportedErrors,
+                           @Value("${app.import.max-queued-jobs:2}") int maxQueuedJobs) {
+        this.maxReportedErrors = maxReportedErrors;
+        this.worker = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxQueuedJobs)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bulk-import");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // The multipart temp file is deleted when the request ends, so the job reads its own copy
+    public ImportJob submit(MultipartFile file, BiConsumer<ImportJob, Path> work) {
+        if (file == null || file.isEmpty()) {
+            throw new RuntimeException("Please choose a file to import.");
+        }
+        Path spool;
+        try {
+            spool = Files.createTempFile("sam-import-", ".upload");
+            file.transferTo(spool);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not store the uploaded file: " + e.getMessage(), e);
+        }
+
+        try {
+            return submit(file.getOriginalFilename(), job -> {
+                try {
+                    work.accept(job, spool);
+                } finally {
+                    deleteQuietly(spool);
+                }
+            });
+        } catch (RuntimeException e) {
+            deleteQuietly(spool);
+            throw e;
+        }
+    }
+
+    public ImportJob submit(String name, Consumer<ImportJob> work) {
+        pruneFinishedJobs();
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), name, maxReportedErrors);
+        jobs.put(job.getId(), job);
+        try {
+            worker.execute(() -> {
+                job.start();
+                try {
+                    work.accept(job);
+                    if (job.isRunning()) {
+                        job.finish(ImportJob.Status.COMPLETED, null);
+                    }
+                } catch (RuntimeException e) {
+                    job.finish(ImportJob.Status.FAILED, "Import stopped: " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new RuntimeException("Other imports are still running. Please try again once they finish.");
+        }
+        return job;
+    }
+
+    public Optional<ImportJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private void pruneFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(1);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // Temp directory cleanup will get it eventually
+        }
+    }
+}
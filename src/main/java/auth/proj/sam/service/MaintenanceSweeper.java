@@ -0,0 +1,104 @@
+package auth.proj.sam.service;
+
+import auth.proj.sam.config.JdbcSessionRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Periodic cleanup of state that otherwise only accumulates: expired sessions, security tokens and
+ * trusted devices, old sent or failed outbox emails, and account timeouts that have run out. Every
+ * instance schedules it, but only the holder of the "maintenance" lease runs it.
+ *
+ * Each task works in bounded batches (one short statement per batch, on an expiry index), so a large
+ * backlog never holds locks for long; whatever is left after max-batches is picked up on the next run.
+ */
+@Component
+public class MaintenanceSweeper {
+
+    private static final String LEASE = "maintenance";
+
+    // Rows reclaimed per task in one run
+    public record Report(Map<String, Integer> reclaimed, long elapsedMillis) {
+        public int total() {
+            return reclaimed.values().stream().mapToInt(Integer::intValue).sum();
+        }
+    }
+
+    private final SchedulerLeaseService schedulerLeaseService;
+    private final SecurityTokenService securityTokenService;
+    private final EmailOutboxService emailOutboxService;
+    private final UserService userService;
+    private final ObjectProvider<JdbcSessionRepository> sessionRepository;
+    private final int batchSize;
+    private final int maxBatches;
+    private final Duration lease;
+
+    public MaintenanceSweeper(SchedulerLeaseService schedulerLeaseService, SecurityTokenService securityTokenService,
+                              EmailOutboxService emailOutboxService, UserService userService, ObjectProvider<JdbcSessionRepository> sessionRepository,
+                              @Value("${app.maintenance.batch-size:500}") int batchSize,
+                              @Value("${app.maintenance.max-batches:20}") int maxBatches,
+                              @Value("${app.maintenance.lease-seconds:900}") long leaseSeconds) {
+        this.schedulerLeaseService = schedulerLeaseService;
+        this.securityTokenService = securityTokenService;
+        this.emailOutboxService = emailOutboxService;
+        this.userService = userService;
+        this.sessionRepository = sessionRepository;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatches = Math.max(1, maxBatches);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+    }
+
+    @Scheduled(fixedDelayString = "${app.maintenance.interval-ms:300000}",
+               initialDelayString = "${app.maintenance.initial-delay-ms:60000}")
+    public void sweep() {
+        // The leader renews its lease on every run, so it keeps the job until it stops running it
+        if (!schedulerLeaseService.tryAcquire(LEASE, lease)) {
+            return;
+        }
+        Report report = runOnce();
+        StringJoiner counts = new StringJoiner(", ");
+        report.reclaimed().forEach((task, rows) -> counts.add(task + "=" + rows));
+        System.out.println("🧹 Maintenance on " + schedulerLeaseService.getOwner() + " reclaimed " + report.total()
+                + " row(s) in " + report.elapsedMillis() + " ms (" + counts + ").");
+    }
+
+    public Report runOnce() {
+        long started = System.currentTimeMillis();
+        Map<String, Integer> reclaimed = new LinkedHashMap<>();
+        // Only present with app.session.store=jdbc
+        JdbcSessionRepository sessions = sessionRepository.getIfAvailable();
+        if (sessions != null) {
+            run(reclaimed, "sessions", sessions::purgeExpiredSessions);
+        }
+        run(reclaimed, "security tokens", securityTokenService::purgeExpiredTokens);
+        run(reclaimed, "trusted devices", securityTokenService::purgeExpiredDevices);
+        run(reclaimed, "outbox emails", emailOutboxService::purgeFinished);
+        run(reclaimed, "timeouts", userService::releaseExpiredTimeouts);
+        return new Report(reclaimed, System.currentTimeMillis() - started);
+    }
+
+    // A failing task is reported and skipped; the others still run
+    private void run(Map<String, Integer> reclaimed, String task, IntUnaryOperator batch) {
+        int total = 0;
+        try {
+            for (int round = 0; round < maxBatches; round++) {
+                int rows = batch.applyAsInt(batchSize);
+                total += rows;
+                if (rows < batchSize) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            System.out.println("⚠️ Maintenance task '" + task + "' failed after " + total + " row(s): " + e.getMessage());
+        }
+        reclaimed.put(task, total);
+    }
+}
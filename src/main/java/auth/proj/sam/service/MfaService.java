@@ -1,49 +1,33 @@
 package auth.proj.sam.service;
 
-import dev.samstevens.totp.code.*;
-import dev.samstevens.totp.qr.QrData;
-import dev.samstevens.totp.qr.QrGenerator;
-import dev.samstevens.totp.qr.ZxingPngQrGenerator;
+import auth.proj.sam.repository.UserRepository;
 import dev.samstevens.totp.secret.DefaultSecretGenerator;
 import dev.samstevens.totp.secret.SecretGenerator;
-import dev.samstevens.totp.time.SystemTimeProvider;
-import dev.samstevens.totp.time.TimeProvider;
-import dev.samstevens.totp.util.Utils;
 import org.springframework.stereotype.Service;
 
 @Service
 public class MfaService {
 
+    // --- NEW: Shared, thread-safe TOTP components instead of per-call instances ---
+    private final SecretGenerator secretGenerator = new DefaultSecretGenerator();
+    private final TotpVerifier totpVerifier;
+    private final UserRepository userRepository;
+
+    public MfaService(TotpVerifier totpVerifier, UserRepository userRepository) {
+        this.totpVerifier = totpVerifier;
+        this.userRepository = userRepository;
+    }
+
     public String generateNewSecret() {
-        SecretGenerator secretGenerator = new DefaultSecretGenerator();
         return secretGenerator.generate();
     }
 
-    public String generateQrCodeImageUri(String secret) {
-        QrData data = new QrData.Builder()
-                .label("SAM Security App")
-                .secret(secret)
-                .issuer("SAM-App")
-                .algorithm(HashingAlgorithm.SHA1)
-                .digits(6)
-                .period(30)
-                .build();
-
-        QrGenerator generator = new ZxingPngQrGenerator();
-        byte[] imageData;
-        try {
-            imageData = generator.generate(data);
-        } catch (Exception e) {
-            throw new RuntimeException("Error generating QR code", e);
+    // Rejects a code whose time step was already used by the same user, on this or any other instance
+    public boolean isTotpValid(Long userId, String secret, String code) {
+        long step = totpVerifier.matchingTimeStep(secret, code);
+        if (step < 0) {
+            return false;
         }
-
-        return Utils.getDataUriForImage(imageData, generator.getImageMimeType());
-    }
-
-    public boolean isTotpValid(String secret, String code) {
-        TimeProvider timeProvider = new SystemTimeProvider();
-        CodeGenerator codeGenerator = new DefaultCodeGenerator();
-        CodeVerifier verifier = new DefaultCodeVerifier(codeGenerator, timeProvider);
-        return verifier.isValidCode(secret, code);
+        return userId == null || userRepository.claimMfaStep(userId, step) > 0;
     }
-}
\ No newline at end of file
+}
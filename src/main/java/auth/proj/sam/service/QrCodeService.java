@@ -0,0 +1,123 @@
+package auth.proj.sam.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.samstevens.totp.code.HashingAlgorithm;
+import dev.samstevens.totp.qr.QrData;
+import dev.samstevens.totp.qr.QrGenerator;
+import dev.samstevens.totp.qr.ZxingPngQrGenerator;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders the MFA setup QR code once per secret and serves it from a byte-bounded cache.
+ * Rendering runs on a small dedicated pool so a burst of settings views cannot tie up
+ * request threads with ZXing work; concurrent requests for the same secret share one render.
+ */
+@Service
+public class QrCodeService {
+
+    public record QrImage(byte[] png, String etag) {
+    }
+
+    private final QrGenerator generator = new ZxingPngQrGenerator();
+    private final ThreadPoolExecutor renderPool;
+    private final AsyncCache<String, QrImage> images;
+    private final long timeoutMillis;
+
+    public QrCodeService(@Value("${app.mfa.qr.cache-max-bytes:8388608}") long cacheMaxBytes,
+                         @Value("${app.mfa.qr.cache-ttl-minutes:30}") long cacheTtlMinutes,
+                         @Value("${app.mfa.qr.render-threads:2}") int renderThreads,
+                         @Value("${app.mfa.qr.queue-capacity:50}") int queueCapacity,
+                         @Value("${app.mfa.qr.timeout-ms:5000}") long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        AtomicInteger counter = new AtomicInteger();
+        this.renderPool = new ThreadPoolExecutor(renderThreads, renderThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "qr-render-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.images = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxBytes)
+                .weigher((String secret, QrImage image) -> image.png().length)
+                .expireAfterAccess(Duration.ofMinutes(cacheTtlMinutes))
+                .executor(Runnable::run)
+                .buildAsync();
+    }
+
+    public QrImage getQrImage(String secret) {
+        CompletableFuture<QrImage> future;
+        try {
+            future = images.get(secret, (key, executor) -> CompletableFuture.supplyAsync(() -> render(key), renderPool));
+        } catch (RejectedExecutionException e) {
+            throw new RuntimeException("QR code rendering is busy. Please refresh in a moment.", e);
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while rendering QR code", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new RuntimeException("Error generating QR code", e);
+        }
+    }
+
+    // Called when a secret is confirmed or discarded so its image does not linger in memory
+    public void evict(String secret) {
+        if (secret != null) {
+            images.synchronous().invalidate(secret);
+        }
+    }
+
+    public long getCachedBytes() {
+        return images.synchronous().policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renderPool.shutdown();
+    }
+
+    QrImage render(String secret) {
+        QrData data = new QrData.Builder()
+                .label("SAM Security App")
+                .secret(secret)
+                .issuer("SAM-App")
+                .algorithm(HashingAlgorithm.SHA1)
+                .digits(6)
+                .period(30)
+                .build();
+
+        byte[] png;
+        try {
+            png = generator.generate(data);
+        } catch (Exception e) {
+            throw new RuntimeException("Error generating QR code", e);
+        }
+        return new QrImage(png, etagOf(png));
+    }
+
+    // The tag is a digest of the image bytes, so it changes with the secret without exposing it
+    private static String etagOf(byte[] png) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(png);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package auth.proj.sam.service;
+
+import auth.proj.sam.repository.EnrollmentRepository.EnrolledSubject;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns free-text section schedules ("MWF 8:30 AM - 9:30 AM R 10:30 AM - 12:30 PM") into meetings
+ * (a day bitmask plus start and end minute) and lays a student's week out as a slot-by-day grid.
+ *
+ * Every distinct schedule string is parsed once and kept in a cache, so a page render only walks the
+ * cached meetings and fills an array; the template just prints the rows.
+ */
+@Service
+public class ScheduleService {
+
+    static final String[] DAY_NAMES = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"};
+
+    // "<days> <start> - <end>", repeated; times are "8:30 AM", "8 AM" or "13:30"
+    private static final Pattern MEETING = Pattern.compile(
+            "([A-Za-z]+)\\s+(\\d{1,2})(?::(\\d{2}))?\\s*([AaPp][Mm])?\\s*-\\s*(\\d{1,2})(?::(\\d{2}))?\\s*([AaPp][Mm])?");
+
+    // One weekly meeting. days: bit 0 = Monday ... bit 6 = Sunday; minutes since midnight, end exclusive
+    public record Meeting(int days, int startMinute, int endMinute) {
+        public boolean overlaps(Meeting other) {
+            return (days & other.days) != 0 && startMinute < other.endMinute && other.startMinute < endMinute;
+        }
+    }
+
+    // Input of the grid: one class and its schedule text
+    public record ClassTime(String code, String schedule) {
+    }
+
+    // A grid cell; covered cells lie under a block that starts in an earlier row and are not rendered
+    public record Cell(String code, String time, int rowspan, boolean covered, int colorIndex, boolean conflict) {
+        static final Cell EMPTY = new Cell(null, null, 1, false, 0, false);
+    }
+
+    public record Row(String label, List<Cell> cells) {
+    }
+
+    public record Week(List<Row> rows, List<String> conflicts, List<String> unscheduled) {
+    }
+
+    private final Cache<String, List<Meeting>> meetingsBySchedule;
+    private final int slotMinutes;
+    private final int dayStartMinute;
+    private final int slotCount;
+
+    public ScheduleService(@Value("${app.schedule.slot-minutes:30}") int slotMinutes,
+                           @Value("${app.schedule.day-start-hour:7}") int dayStartHour,
+                           @Value("${app.schedule.day-end-hour:22}") int dayEndHour,
+                           @Value("${app.schedule.cache-size:2000}") long cacheSize) {
+        this.slotMinutes = Math.max(5, slotMinutes);
+        this.dayStartMinute = dayStartHour * 60;
+        this.slotCount = Math.max(1, (dayEndHour * 60 - dayStartMinute) / this.slotMinutes);
+        this.meetingsBySchedule = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+    }
+
+    // Parsed meetings of a schedule; empty when it is blank or not understood
+    public List<Meeting> meetingsOf(String schedule) {
+        if (schedule == null || schedule.isBlank()) {
+            return List.of();
+        }
+        return meetingsBySchedule.get(schedule.trim(), ScheduleService::parse);
+    }
+
+    // Whether two schedules share a day and time (e.g. to check a new enrollment against a student's load)
+    public boolean overlaps(String schedule, String otherSchedule) {
+        for (Meeting meeting : meetingsOf(schedule)) {
+            for (Meeting other : meetingsOf(otherSchedule)) {
+                if (meeting.overlaps(other)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public Week buildWeek(List<EnrolledSubject> subjects) {
+        return layOut(subjects.stream().map(subject -> new ClassTime(subject.getCode(), subject.getSchedule())).toList());
+    }
+
+    public Week layOut(List<ClassTime> classes) {
+        Cell[][] grid = new Cell[slotCount][DAY_NAMES.length];
+        Set<String> conflicts = new LinkedHashSet<>();
+        List<String> unscheduled = new ArrayList<>();
+        int color = 0;
+
+        for (ClassTime classTime : classes) {
+            List<Meeting> meetings = meetingsOf(classTime.schedule());
+            if (meetings.isEmpty()) {
+                unscheduled.add(classTime.code());
+                continue;
+            }
+            color = color % 2 + 1;
+            for (Meeting meeting : meetings) {
+                int first = Math.max(0, (meeting.startMinute() - dayStartMinute) / slotMinutes);
+                int last = Math.min(slotCount, Math.floorDiv(meeting.endMinute() - dayStartMinute + slotMinutes - 1, slotMinutes));
+                if (first >= last) {
+                    unscheduled.add(classTime.code());
+                    continue;
+                }
+                String time = formatTime(meeting.startMinute(), false) + "-" + formatTime(meeting.endMinute(), false);
+                for (int day = 0; day < DAY_NAMES.length; day++) {
+                    if ((meeting.days() & (1 << day)) != 0) {
+                        place(grid, classTime.code(), time, color, first, last, day, meeting, conflicts);
+                    }
+                }
+            }
+        }
+
+        List<Row> rows = new ArrayList<>(slotCount);
+        for (int slot = 0; slot < slotCount; slot++) {
+            List<Cell> cells = new ArrayList<>(DAY_NAMES.length);
+            for (Cell cell : grid[slot]) {
+                cells.add(cell != null ? cell : Cell.EMPTY);
+            }
+            rows.add(new Row(formatTime(dayStartMinute + slot * slotMinutes, true), cells));
+        }
+        return new Week(rows, List.copyOf(conflicts), unscheduled);
+    }
+
+    private void place(Cell[][] grid, String code, String time, int color, int first, int last, int day,
+                       Meeting meeting, Set<String> conflicts) {
+        for (int slot = first; slot < last; slot++) {
+            Cell taken = grid[slot][day];
+            if (taken == null) {
+                continue;
+            }
+            if (!taken.code().equals(code)) {
+                // Keep the class already placed, flag it, and report the clash instead of drawing over it
+                int start = slot;
+                while (grid[start][day].covered()) {
+                    start--;
+                }
+                Cell block = grid[start][day];
+                grid[start][day] = new Cell(block.code(), block.time(), block.rowspan(), false, block.colorIndex(), true);
+                conflicts.add(code + " overlaps " + block.code() + " on " + DAY_NAMES[day] + " at "
+                        + formatTime(meeting.startMinute(), true) + ".");
+            }
+            return;
+        }
+        grid[first][day] = new Cell(code, time, last - first, false, color, false);
+        for (int slot = first + 1; slot < last; slot++) {
+            grid[slot][day] = new Cell(code, time, 1, true, color, false);
+        }
+    }
+
+    static List<Meeting> parse(String schedule) {
+        List<Meeting> meetings = new ArrayList<>();
+        Matcher matcher = MEETING.matcher(schedule);
+        int consumed = 0;
+        while (matcher.find()) {
+            int days = parseDays(matcher.group(1));
+            String startMeridiem = matcher.group(4);
+            String endMeridiem = matcher.group(7);
+            // "8:30 - 9:30 AM": the start takes the end's AM/PM
+            int start = toMinute(matcher.group(2), matcher.group(3), startMeridiem != null ? startMeridiem : endMeridiem);
+            int end = toMinute(matcher.group(5), matcher.group(6), endMeridiem != null ? endMeridiem : startMeridiem);
+            if (days == 0 || start < 0 || end < 0 || end <= start || !schedule.substring(consumed, matcher.start()).isBlank()) {
+                System.out.println("⚠️ Unrecognized schedule '" + schedule + "'; shown as to be announced.");
+                return List.of();
+            }
+            meetings.add(new Meeting(days, start, end));
+            consumed = matcher.end();
+        }
+        if (meetings.isEmpty() || !schedule.substring(consumed).isBlank()) {
+            System.out.println("⚠️ Unrecognized schedule '" + schedule + "'; shown as to be announced.");
+            return List.of();
+        }
+        return List.copyOf(meetings);
+    }
+
+    // "MWF", "TTh", "R", "Sat", "SatSun"; Th/R = Thursday, S/Sa/Sat = Saturday, U/Su/Sun = Sunday
+    static int parseDays(String token) {
+        String days = token.toUpperCase(Locale.ROOT);
+        int mask = 0;
+        int i = 0;
+        while (i < days.length()) {
+            int day;
+            if (days.startsWith("TH", i)) {
+                day = 3;
+                i += 2;
+            } else if (days.startsWith("SAT", i) || days.startsWith("SUN", i)) {
+                day = days.charAt(i + 1) == 'A' ? 5 : 6;
+                i += 3;
+            } else if (days.startsWith("SA", i) || days.startsWith("SU", i)) {
+                day = days.charAt(i + 1) == 'A' ? 5 : 6;
+                i += 2;
+            } else {
+                day = switch (days.charAt(i)) {
+                    case 'M' -> 0;
+                    case 'T' -> 1;
+                    case 'W' -> 2;
+                    case 'R' -> 3;
+                    case 'F' -> 4;
+                    case 'S' -> 5;
+                    case 'U' -> 6;
+                    default -> -1;
+                };
+                i++;
+            }
+            if (day < 0) {
+                return 0;
+            }
+            mask |= 1 << day;
+        }
+        return mask;
+    }
+
+    private static int toMinute(String hourText, String minuteText, String meridiem) {
+        int hour = Integer.parseInt(hourText);
+        int minute = minuteText != null ? Integer.parseInt(minuteText) : 0;
+        if (minute > 59) {
+            return -1;
+        }
+        if (meridiem != null) {
+            if (hour < 1 || hour > 12) {
+                return -1;
+            }
+            boolean pm = meridiem.equalsIgnoreCase("PM");
+            hour = hour % 12 + (pm ? 12 : 0);
+        } else if (hour > 23) {
+            return -1;
+        }
+        return hour * 60 + minute;
+    }
+
+    // "07:30 AM" for row labels, "7:30" inside class blocks
+    private static String formatTime(int minuteOfDay, boolean withMeridiem) {
+        int hour = minuteOfDay / 60 % 24;
+        int minute = minuteOfDay % 60;
+        int hour12 = hour % 12 == 0 ? 12 : hour % 12;
+        if (!withMeridiem) {
+            return hour12 + ":" + String.format("%02d", minute);
+        }
+        return String.format("%02d:%02d %s", hour12, minute, hour < 12 ? "AM" : "PM");
+    }
+}
@@ -0,0 +1,62 @@
+package auth.proj.sam.service;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Leader election for scheduled jobs that must run on one instance at a time, through a lock row per
+ * job in scheduler_leases. The holder renews its lease on every run; another instance only takes over
+ * once the lease has run out, e.g. because the holder stopped. Expiry is judged by the database clock
+ * alone, so clock drift between application hosts cannot hand the lease to two of them.
+ */
+@Service
+public class SchedulerLeaseService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String owner;
+
+    public SchedulerLeaseService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.owner = instanceName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Takes or renews the named lease for this instance. Returns false while another instance holds it.
+     * Both paths are a single statement, so two instances can never both come away with the lease.
+     */
+    public boolean tryAcquire(String name, Duration lease) {
+        long seconds = Math.max(1, lease.toSeconds());
+        int renewed = jdbcTemplate.update(
+                "UPDATE scheduler_leases SET owner = ?, leased_until = TIMESTAMPADD(SECOND, ?, CURRENT_TIMESTAMP) " +
+                        "WHERE name = ? AND (owner = ? OR leased_until < CURRENT_TIMESTAMP)",
+                owner, seconds, name, owner);
+        if (renewed > 0) {
+            return true;
+        }
+        try {
+            jdbcTemplate.update("INSERT INTO scheduler_leases (name, owner, leased_until) " +
+                    "VALUES (?, ?, TIMESTAMPADD(SECOND, ?, CURRENT_TIMESTAMP))", name, owner, seconds);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // The row exists and is held by someone else
+            return false;
+        }
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    private static String instanceName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "sam";
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package auth.proj.sam.service;
+
+import auth.proj.sam.model.SecurityToken.Purpose;
+import auth.proj.sam.repository.TrustedDeviceRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Single-use secrets in the security_tokens table: verification codes, password reset links and password
+ * change codes. Rows are keyed by a SHA-256 hash of the secret, so checking one is a primary key lookup
+ * and this table never holds the plain secret. The only stored copy is in the params of the outbox email
+ * that carries it, and EmailOutboxService drops those once the email is sent or given up.
+ *
+ * Six-digit codes are only unique per user, so their hash also covers the user id and they are checked
+ * for a known user; password reset links are random and identify the user by themselves. Issuing a
+ * secret replaces the user's outstanding ones of the same purpose.
+ */
+@Service
+public class SecurityTokenService {
+
+    // What a consumed token was issued for
+    public record Consumed(Long userId, String payload) {
+    }
+
+    // One code for storeCodes
+    public record PendingCode(Long userId, String code, LocalDateTime expiresAt) {
+    }
+
+    private static final Base64.Encoder BASE64URL = Base64.getUrlEncoder().withoutPadding();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TrustedDeviceRepository trustedDeviceRepository;
+    private final SecureRandom random = new SecureRandom();
+
+    public SecurityTokenService(JdbcTemplate jdbcTemplate, TrustedDeviceRepository trustedDeviceRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.trustedDeviceRepository = trustedDeviceRepository;
+    }
+
+    // Six digits, for codes typed in from an email
+    public String newCode() {
+        return String.format("%06d", random.nextInt(1_000_000));
+    }
+
+    // 256 random bits, URL-safe, for links and cookies
+    public String newToken() {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        return BASE64URL.encodeToString(bytes);
+    }
+
+    @Transactional
+    public void issue(Long userId, Purpose purpose, String secret, Duration ttl, String payload) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("DELETE FROM security_tokens WHERE user_id = ? AND purpose = ?", userId, purpose.name());
+        jdbcTemplate.update("INSERT INTO security_tokens (token_hash, purpose, user_id, payload, created_at, expires_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?)",
+                hash(purpose, userId, secret), purpose.name(), userId, payload,
+                Timestamp.valueOf(now), Timestamp.valueOf(now.plus(ttl)));
+    }
+
+    // Bulk variant for imports of freshly inserted users (who have no outstanding codes): one JDBC batch
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void storeCodes(Purpose purpose, List<PendingCode> codes) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO security_tokens (token_hash, purpose, user_id, created_at, expires_at) VALUES (?, ?, ?, ?, ?)",
+                codes, codes.size(), (ps, code) -> {
+                    ps.setString(1, hash(purpose, code.userId(), code.code()));
+                    ps.setString(2, purpose.name());
+                    ps.setLong(3, code.userId());
+                    ps.setTimestamp(4, now);
+                    ps.setTimestamp(5, Timestamp.valueOf(code.expiresAt()));
+                });
+    }
+
+    // Read-only check, e.g. before showing the reset form; the secret stays usable. userId is ignored for reset links.
+    public boolean isValid(Purpose purpose, Long userId, String secret) {
+        if (secret == null || secret.isEmpty()) {
+            return false;
+        }
+        Integer found = jdbcTemplate.query(
+                "SELECT 1 FROM security_tokens WHERE token_hash = ? AND used_at IS NULL AND expires_at > ?",
+                rs -> rs.next() ? 1 : null, hash(purpose, userId, secret), Timestamp.valueOf(LocalDateTime.now()));
+        return found != null;
+    }
+
+    /**
+     * Validates and uses up a secret in one conditional UPDATE, so two concurrent requests can never both
+     * consume it. The row is only read back (by primary key) when the UPDATE matched.
+     */
+    @Transactional
+    public Optional<Consumed> consume(Purpose purpose, Long userId, String secret) {
+        if (secret == null || secret.isEmpty()) {
+            return Optional.empty();
+        }
+        String tokenHash = hash(purpose, userId, secret);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int updated = jdbcTemplate.update(
+                "UPDATE security_tokens SET used_at = ? WHERE token_hash = ? AND used_at IS NULL AND expires_at > ?",
+                now, tokenHash, now);
+        if (updated == 0) {
+            return Optional.empty();
+        }
+        return jdbcTemplate.query("SELECT user_id, payload FROM security_tokens WHERE token_hash = ?",
+                (rs, rowNum) -> new Consumed(rs.getLong(1), rs.getString(2)), tokenHash).stream().findFirst();
+    }
+
+    // Every token and trusted device of a user that is being deleted
+    @Transactional
+    public void deleteAll(Long userId) {
+        jdbcTemplate.update("DELETE FROM security_tokens WHERE user_id = ?", userId);
+        trustedDeviceRepository.deleteByUserId(userId);
+    }
+
+    // One batch of the maintenance sweep (see MaintenanceSweeper); both use the expiry indexes
+    public int purgeExpiredTokens(int limit) {
+        return jdbcTemplate.update("DELETE FROM security_tokens WHERE expires_at < ? LIMIT ?",
+                Timestamp.valueOf(LocalDateTime.now()), limit);
+    }
+
+    public int purgeExpiredDevices(int limit) {
+        return jdbcTemplate.update("DELETE FROM trusted_device WHERE expiry_date < ? LIMIT ?",
+                Timestamp.valueOf(LocalDateTime.now()), limit);
+    }
+
+    static String hash(Purpose purpose, Long userId, String secret) {
+        String user = purpose == Purpose.PASSWORD_RESET ? "" : String.valueOf(userId);
+        return sha256Hex(purpose.name() + ":" + user + ":" + secret);
+    }
+
+    // Hex SHA-256; also used for trusted device cookies, which are random enough to need no salt
+    public static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package auth.proj.sam.service;
+
+import auth.proj.sam.model.EducationalInfo;
+import auth.proj.sam.model.User;
+import auth.proj.sam.repository.EnrollmentRepository.EnrolledSubject;
+import auth.proj.sam.repository.UserRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Compact JSON views of a student's schedule, grades and profile for /api/v1/students/me.
+ *
+ * Each view has a strong ETag built from the student's data version (users.data_version), which every
+ * write a student can see bumps. A client revalidating with If-None-Match therefore costs one primary-key
+ * read; the view itself is only built when the version has moved, and then from the same row (in one
+ * read-only transaction) that its ETag is computed from.
+ */
+@Service
+public class StudentApiService {
+
+    public record TermView(String schoolYear, String term) {
+    }
+
+    // days: "Monday" ... "Sunday"; start and end as "HH:mm"
+    public record MeetingView(List<String> days, String start, String end) {
+    }
+
+    public record ClassView(String code, String description, String section, String teacher, String schedule,
+                            List<MeetingView> meetings) {
+    }
+
+    public record ScheduleView(TermView term, List<ClassView> classes, List<String> conflicts, List<String> unscheduled) {
+    }
+
+    public record GradeView(String code, String description, int units, String section, String teacher, String grade) {
+    }
+
+    public record GradesView(TermView term, List<GradeView> subjects, int totalUnits) {
+    }
+
+    public record EducationView(String courseProgram, String level, String classification, String schoolYear, String term) {
+    }
+
+    // A built view and the ETag of the data it was built from
+    public record Tagged<T>(String etag, T body) {
+    }
+
+    public record ProfileView(Long id, String studentId, String firstName, String middleName, String lastName,
+                              String displayName, String email, String profileImagePath, boolean registrationComplete,
+                              EducationView education) {
+    }
+
+    // Bump when the shape of a view changes, so clients holding old ETags get the new representation
+    private static final String VIEW_VERSION = "v1";
+
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final EnrollmentService enrollmentService;
+    private final ScheduleService scheduleService;
+
+    public StudentApiService(UserRepository userRepository, UserService userService,
+                             EnrollmentService enrollmentService, ScheduleService scheduleService) {
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.enrollmentService = enrollmentService;
+        this.scheduleService = scheduleService;
+    }
+
+    // The current ETag of one of the student's views, or empty if the student no longer exists
+    public Optional<String> etag(String view, Long studentId) {
+        return userRepository.findDataVersion(studentId).map(version -> tag(view, studentId, version));
+    }
+
+    /**
+     * Builds a view from a fresh read of the student (never the user cache), tagged with that row's data
+     * version, so the body can never be older or newer than its ETag.
+     */
+    @Transactional(readOnly = true)
+    public <T> Optional<Tagged<T>> build(String view, Long studentId, Function<User, T> builder) {
+        return userRepository.findById(studentId)
+                .map(student -> new Tagged<>(tag(view, studentId, student.getDataVersion()), builder.apply(student)));
+    }
+
+    private String tag(String view, Long studentId, long version) {
+        // Students without a recorded term fall back to the configured one, so it is part of the tag too
+        int currentTerm = enrollmentService.getCurrentTerm().hashCode();
+        return "\"" + view + "." + VIEW_VERSION + "." + studentId + "." + version + "." + Integer.toHexString(currentTerm) + "\"";
+    }
+
+    public ScheduleView schedule(User student) {
+        EnrollmentService.Term term = enrollmentService.termOf(userService.getEducationalInfo(student));
+        List<EnrolledSubject> subjects = enrollmentService.getStudentSubjects(student, term);
+        List<ClassView> classes = new ArrayList<>(subjects.size());
+        for (EnrolledSubject subject : subjects) {
+            List<MeetingView> meetings = scheduleService.meetingsOf(subject.getSchedule()).stream()
+                    .map(StudentApiService::meetingView)
+                    .toList();
+            classes.add(new ClassView(subject.getCode(), subject.getDescription(), subject.getSectionCode(),
+                    teacherName(subject), subject.getSchedule(), meetings));
+        }
+        ScheduleService.Week week = scheduleService.buildWeek(subjects);
+        return new ScheduleView(termView(term), classes, week.conflicts(), week.unscheduled());
+    }
+
+    public GradesView grades(User student) {
+        EnrollmentService.Term term = enrollmentService.termOf(userService.getEducationalInfo(student));
+        List<GradeView> grades = enrollmentService.getStudentSubjects(student, term).stream()
+                .map(subject -> new GradeView(subject.getCode(), subject.getDescription(), subject.getUnits(),
+                        subject.getSectionCode(), teacherName(subject), subject.getGrade()))
+                .toList();
+        return new GradesView(termView(term), grades, grades.stream().mapToInt(GradeView::units).sum());
+    }
+
+    public ProfileView profile(User student) {
+        EducationalInfo education = userService.getEducationalInfo(student);
+        return new ProfileView(student.getId(), student.getUsername(), student.getFirstName(), student.getMiddleName(),
+                student.getLastName(), student.getDisplayName(), student.getEmail(), student.getProfileImagePath(),
+                student.getRegistrationStep() != null && student.getRegistrationStep() >= 5,
+                new EducationView(education.getCourseProgram(), education.getLevel(), education.getClassification(),
+                        education.getSchoolYear(), education.getTerm()));
+    }
+
+    private static TermView termView(EnrollmentService.Term term) {
+        return new TermView(term.schoolYear(), term.term());
+    }
+
+    private static String teacherName(EnrolledSubject subject) {
+        if (subject.getTeacherLastName() == null) {
+            return null;
+        }
+        return subject.getTeacherFirstName() == null ? subject.getTeacherLastName()
+                : subject.getTeacherFirstName() + " " + subject.getTeacherLastName();
+    }
+
+    private static MeetingView meetingView(ScheduleService.Meeting meeting) {
+        List<String> days = new ArrayList<>(7);
+        for (int day = 0; day < ScheduleService.DAY_NAMES.length; day++) {
+            if ((meeting.days() & (1 << day)) != 0) {
+                days.add(ScheduleService.DAY_NAMES[day]);
+            }
+        }
+        return new MeetingView(days, clock(meeting.startMinute()), clock(meeting.endMinute()));
+    }
+
+    private static String clock(int minuteOfDay) {
+        return String.format("%02d:%02d", minuteOfDay / 60, minuteOfDay % 60);
+    }
+}
@@ -0,0 +1,224 @@
+package auth.proj.sam.service;
+
+import auth.proj.sam.dto.ImportJob;
+import auth.proj.sam.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk student registration from registrar CSV exports (columns: lastName, firstName, middleName, email).
+ *
+ * The file is read record by record and imported batch by batch: rows are validated, de-duplicated by
+ * email (within the file and against existing accounts in one query per batch), given IDs from the block
+ * allocator, hashed in parallel and inserted with JDBC batches together with their verification emails
+ * in the outbox. Only the current batch and the set of emails already seen are kept in memory.
+ */
+@Service
+public class StudentImportService {
+
+    static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+    static final int MAX_FIELD_LENGTH = 255;
+
+    // One validated CSV row waiting to be inserted
+    private record StudentRow(long line, String lastName, String firstName, String middleName, String email) {
+    }
+
+    private final UserRepository userRepository;
+    private final IdAllocationService idAllocationService;
+    private final DashboardStatsService dashboardStatsService;
+    private final BulkUserWriter bulkUserWriter;
+    private final ImportJobRunner importJobRunner;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+    private final long verificationExpiryHours;
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${brevo.template.verification-id:}")
+    private Long verificationTemplateId;
+
+    public StudentImportService(UserRepository userRepository, IdAllocationService idAllocationService,
+                                DashboardStatsService dashboardStatsService, BulkUserWriter bulkUserWriter,
+                                ImportJobRunner importJobRunner, PlatformTransactionManager transactionManager,
+                                @Value("${app.import.batch-size:500}") int batchSize,
+                                @Value("${app.import.verification-expiry-hours:72}") long verificationExpiryHours) {
+        this.userRepository = userRepository;
+        this.idAllocationService = idAllocationService;
+        this.dashboardStatsService = dashboardStatsService;
+        this.bulkUserWriter = bulkUserWriter;
+        this.importJobRunner = importJobRunner;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.verificationExpiryHours = verificationExpiryHours;
+    }
+
+    public ImportJob startImport(MultipartFile file) {
+        return importJobRunner.submit(file, this::runImport);
+    }
+
+    public Optional<ImportJob> getJob(String jobId) {
+        return importJobRunner.getJob(jobId);
+    }
+
+    private void runImport(ImportJob job, Path spool) {
+        long started = System.currentTimeMillis();
+        System.out.println("📥 Student import " + job.getId() + " started (" + job.getFileName() + ").");
+
+        try (CsvReader csv = new CsvReader(Files.newBufferedReader(spool, StandardCharsets.UTF_8))) {
+            List<String> header = csv.next();
+            if (header == null) {
+                throw new RuntimeException("The file is empty.");
+            }
+            Map<String, Integer> columns = CsvReader.columnIndex(header);
+            for (String required : List.of("lastname", "firstname", "email")) {
+                if (!columns.containsKey(required)) {
+                    throw new RuntimeException("Missing required column '" + required + "'. Expected: lastName, firstName, middleName, email.");
+                }
+            }
+            Integer roleId = bulkUserWriter.resolveRoleId("ROLE_STUDENT");
+
+            Set<String> seenEmails = new HashSet<>();
+            List<StudentRow> batch = new ArrayList<>(batchSize);
+            List<String> record;
+            while ((record = csv.next()) != null) {
+                job.rowRead();
+                StudentRow row = toRow(csv.getRecordLine(), record, columns, job);
+                if (row == null) {
+                    continue;
+                }
+                if (!seenEmails.add(row.email().toLowerCase(Locale.ROOT))) {
+                    job.fail(row.line(), row.email(), "Duplicate email in this file.");
+                    continue;
+                }
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    importBatch(batch, roleId, job);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                importBatch(batch, roleId, job);
+            }
+
+            job.finish(ImportJob.Status.COMPLETED,
+                    "Imported " + job.getImported() + " of " + job.getRowsRead() + " row(s); " + job.getFailed() + " failed.");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted", e);
+        } finally {
+            dashboardStatsService.invalidate();
+            long elapsed = Math.max(1, System.currentTimeMillis() - started);
+            System.out.println("✅ Student import " + job.getId() + " finished: " + job.getImported() + " imported, "
+                    + job.getFailed() + " failed (" + elapsed + " ms, " + (job.getImported() * 1000L / elapsed) + " rows/s)");
+        }
+    }
+
+    private StudentRow toRow(long line, List<String> record, Map<String, Integer> columns, ImportJob job) {
+        String lastName = CsvReader.field(record, columns.get("lastname"));
+        String firstName = CsvReader.field(record, columns.get("firstname"));
+        String middleName = CsvReader.field(record, columns.get("middlename"));
+        String email = CsvReader.field(record, columns.get("email"));
+
+        String error = null;
+        if (lastName.isEmpty() || firstName.isEmpty()) {
+            error = "Last name and first name are required.";
+        } else if (email.isEmpty() || email.length() > MAX_FIELD_LENGTH || !EMAIL.matcher(email).matches()) {
+            error = "Invalid email address.";
+        } else if (lastName.length() > MAX_FIELD_LENGTH || firstName.length() > MAX_FIELD_LENGTH || middleName.length() > MAX_FIELD_LENGTH) {
+            error = "Name is too long.";
+        }
+        if (error != null) {
+            job.fail(line, email, error);
+            return null;
+        }
+        return new StudentRow(line, lastName, firstName, middleName.isEmpty() ? null : middleName, email);
+    }
+
+    private void importBatch(List<StudentRow> batch, Integer roleId, ImportJob job) throws InterruptedException {
+        // 1. Drop emails that already have an account (one query per batch)
+        Set<String> existing = userRepository.findExistingEmails(batch.stream().map(StudentRow::email).toList())
+                .stream().map(email -> email.toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+        List<StudentRow> fresh = new ArrayList<>(batch.size());
+        for (StudentRow row : batch) {
+            if (existing.contains(row.email().toLowerCase(Locale.ROOT))) {
+                job.fail(row.line(), row.email(), "An account with this email already exists.");
+            } else {
+                fresh.add(row);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+
+        // 2. IDs and password hashes (the initial password is the last name, as in self-registration)
+        List<String> usernames = idAllocationService.nextStudentIds(fresh.size());
+        List<CompletableFuture<String>> hashes = bulkUserWriter.hashAll(fresh.stream().map(StudentRow::lastName).toList());
+        LocalDateTime expiry = LocalDateTime.now().plusHours(verificationExpiryHours);
+
+        List<StudentRow> rows = new ArrayList<>(fresh.size());
+        List<BulkUserWriter.NewUser> users = new ArrayList<>(fresh.size());
+        for (int i = 0; i < fresh.size(); i++) {
+            StudentRow row = fresh.get(i);
+            try {
+                users.add(new BulkUserWriter.NewUser(usernames.get(i), row.email(), hashes.get(i).get(), false, 2,
+                        row.lastName(), row.firstName(), row.middleName(), null,
+                        String.format("%06d", random.nextInt(1_000_000)), expiry));
+                rows.add(row);
+            } catch (ExecutionException e) {
+                job.fail(row.line(), row.email(), "Could not hash the initial password: " + e.getCause().getMessage());
+            }
+        }
+
+        // 3. Insert the whole batch; if that fails, insert row by row so only the offending rows are reported
+        try {
+            transactionTemplate.executeWithoutResult(status -> bulkUserWriter.insert(users, roleId, verificationEmails(users)));
+            job.imported(users.size());
+        } catch (RuntimeException batchError) {
+            for (int i = 0; i < users.size(); i++) {
+                List<BulkUserWriter.NewUser> single = List.of(users.get(i));
+                try {
+                    transactionTemplate.executeWithoutResult(status -> bulkUserWriter.insert(single, roleId, verificationEmails(single)));
+                    job.imported(1);
+                } catch (RuntimeException e) {
+                    job.fail(rows.get(i).line(), rows.get(i).email(), "Could not save: " + rootMessage(e));
+                }
+            }
+        }
+    }
+
+    private List<EmailOutboxService.PendingEmail> verificationEmails(List<BulkUserWriter.NewUser> users) {
+        if (verificationTemplateId == null || verificationTemplateId <= 0) {
+            return List.of();
+        }
+        return users.stream()
+                .map(user -> new EmailOutboxService.PendingEmail(user.email(), verificationTemplateId,
+                        Map.of("username", user.username(), "verificationCode", user.verificationCode())))
+                .toList();
+    }
+
+    static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+}
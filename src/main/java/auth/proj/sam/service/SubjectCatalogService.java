@@ -0,0 +1,84 @@
+package auth.proj.sam.service;
+
+import auth.proj.sam.model.SubjectListener;
+import auth.proj.sam.repository.SubjectRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory subject catalog. Readers get an immutable snapshot (entries ordered by code plus an index by
+ * code) without touching the database; a change to any subject rebuilds the snapshot after its
+ * transaction commits and swaps it in atomically. A periodic reload picks up changes made by other
+ * instances.
+ */
+@Service
+public class SubjectCatalogService {
+
+    // Pre-projected subject, ready for drop-downs and lookups
+    public record SubjectEntry(Long id, String code, String description, int lec, int lab, int units) {
+        public String label() {
+            return code + " - " + description;
+        }
+    }
+
+    public record Snapshot(List<SubjectEntry> subjects, Map<String, SubjectEntry> byCode) {
+    }
+
+    private final SubjectRepository subjectRepository;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    public SubjectCatalogService(SubjectRepository subjectRepository) {
+        this.subjectRepository = subjectRepository;
+    }
+
+    public List<SubjectEntry> getSubjects() {
+        return current().subjects();
+    }
+
+    public Optional<SubjectEntry> findByCode(String code) {
+        return code == null ? Optional.empty() : Optional.ofNullable(current().byCode().get(code.trim().toUpperCase(Locale.ROOT)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.catalog.refresh-interval-ms:300000}", initialDelayString = "${app.catalog.refresh-interval-ms:300000}")
+    public void refresh() {
+        // A subject without a code cannot be listed or looked up, so it is left out
+        List<SubjectEntry> subjects = subjectRepository.findAll().stream()
+                .filter(subject -> subject.getCode() != null && !subject.getCode().isBlank())
+                .map(subject -> new SubjectEntry(subject.getId(), subject.getCode(), subject.getDescription(),
+                        subject.getLec(), subject.getLab(), subject.getUnits()))
+                .sorted(Comparator.comparing(SubjectEntry::code))
+                .toList();
+        // Duplicate codes keep the first (lowest) row
+        Map<String, SubjectEntry> byCode = subjects.stream().collect(Collectors.toMap(
+                entry -> entry.code().toUpperCase(Locale.ROOT), Function.identity(), (first, second) -> first));
+        snapshot.set(new Snapshot(subjects, Map.copyOf(byCode)));
+    }
+
+    // Published by SubjectListener; the reload waits for the commit so it reads the new rows
+    @TransactionalEventListener(fallbackExecution = true)
+    public void subjectChanged(SubjectListener.SubjectChanged event) {
+        refresh();
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot.get() == null) {
+                    refresh();
+                }
+                current = snapshot.get();
+            }
+        }
+        return current;
+    }
+}
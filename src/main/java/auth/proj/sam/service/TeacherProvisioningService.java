@@ -0,0 +1,319 @@
+package auth.proj.sam.service;
+
+import auth.proj.sam.dto.ImportJob;
+import auth.proj.sam.dto.TeacherRegistrationDto;
+import auth.proj.sam.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+/**
+ * Term-start onboarding of whole faculties from a CSV file (lastName, firstName, email, teacherId,
+ * initialPassword) or a JSON array of {@link TeacherRegistrationDto}. Rows are processed in chunks:
+ * teacher IDs are allocated in bulk, ROLE_TEACHER is resolved once per job, passwords are hashed
+ * concurrently and each chunk is written with JDBC batches in its own transaction.
+ */
+@Service
+public class TeacherProvisioningService {
+
+    // One input record with its line (CSV) or position (JSON, 1-based)
+    private record TeacherRow(long line, TeacherRegistrationDto dto) {
+    }
+
+    private interface RowSource extends AutoCloseable {
+        TeacherRow next() throws IOException;
+
+        @Override
+        default void close() throws IOException {
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final IdAllocationService idAllocationService;
+    private final DashboardStatsService dashboardStatsService;
+    private final BulkUserWriter bulkUserWriter;
+    private final ImportJobRunner importJobRunner;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    @Value("${brevo.template.teacher-credentials-id:}")
+    private Long teacherCredentialsTemplateId;
+
+    public TeacherProvisioningService(UserRepository userRepository, IdAllocationService idAllocationService,
+                                      DashboardStatsService dashboardStatsService, BulkUserWriter bulkUserWriter,
+                                      ImportJobRunner importJobRunner, ObjectMapper objectMapper,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${app.provisioning.chunk-size:100}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.idAllocationService = idAllocationService;
+        this.dashboardStatsService = dashboardStatsService;
+        this.bulkUserWriter = bulkUserWriter;
+        this.importJobRunner = importJobRunner;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    // .json files (or application/json uploads) are read as a JSON array, anything else as CSV
+    public ImportJob startFromFile(MultipartFile file) {
+        String name = file != null && file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase(Locale.ROOT) : "";
+        boolean json = name.endsWith(".json") || (file != null && "application/json".equals(file.getContentType()));
+        return importJobRunner.submit(file, (job, spool) -> {
+            try (RowSource rows = json ? jsonRows(spool) : csvRows(spool)) {
+                provision(job, rows);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public ImportJob startFromList(List<TeacherRegistrationDto> teachers) {
+        List<TeacherRegistrationDto> copy = List.copyOf(teachers);
+        return importJobRunner.submit("teachers.json", job -> {
+            Iterator<TeacherRegistrationDto> iterator = copy.iterator();
+            long[] position = {0};
+            try {
+                provision(job, () -> iterator.hasNext() ? new TeacherRow(++position[0], iterator.next()) : null);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public Optional<ImportJob> getJob(String jobId) {
+        return importJobRunner.getJob(jobId);
+    }
+
+    private RowSource csvRows(Path spool) throws IOException {
+        CsvReader csv = new CsvReader(Files.newBufferedReader(spool, StandardCharsets.UTF_8));
+        List<String> header = csv.next();
+        if (header == null) {
+            csv.close();
+            throw new RuntimeException("The file is empty.");
+        }
+        Map<String, Integer> columns = CsvReader.columnIndex(header);
+        return new RowSource() {
+            @Override
+            public TeacherRow next() throws IOException {
+                List<String> record = csv.next();
+                if (record == null) {
+                    return null;
+                }
+                TeacherRegistrationDto dto = new TeacherRegistrationDto();
+                dto.setLastName(CsvReader.field(record, columns.get("lastname")));
+                dto.setFirstName(CsvReader.field(record, columns.get("firstname")));
+                dto.setEmail(CsvReader.field(record, columns.get("email")));
+                dto.setTeacherId(CsvReader.field(record, columns.get("teacherid")));
+                dto.setInitialPassword(CsvReader.field(record, columns.get("initialpassword")));
+                return new TeacherRow(csv.getRecordLine(), dto);
+            }
+
+            @Override
+            public void close() throws IOException {
+                csv.close();
+            }
+        };
+    }
+
+    // Streams the array element by element instead of binding the whole file
+    private RowSource jsonRows(Path spool) throws IOException {
+        JsonParser parser = objectMapper.getFactory().createParser(spool.toFile());
+        MappingIterator<TeacherRegistrationDto> iterator = objectMapper.readerFor(TeacherRegistrationDto.class).readValues(parser);
+        long[] position = {0};
+        return new RowSource() {
+            @Override
+            public TeacherRow next() throws IOException {
+                return iterator.hasNextValue() ? new TeacherRow(++position[0], iterator.nextValue()) : null;
+            }
+
+            @Override
+            public void close() throws IOException {
+                iterator.close();
+            }
+        };
+    }
+
+    private void provision(ImportJob job, RowSource rows) throws IOException {
+        long started = System.currentTimeMillis();
+        System.out.println("👩‍🏫 Teacher provisioning " + job.getId() + " started (" + job.getFileName() + ").");
+        Integer roleId = bulkUserWriter.resolveRoleId("ROLE_TEACHER");
+
+        Set<String> seenEmails = new HashSet<>();
+        Set<String> seenIds = new HashSet<>();
+        List<TeacherRow> chunk = new ArrayList<>(chunkSize);
+        try {
+            TeacherRow row;
+            while ((row = rows.next()) != null) {
+                job.rowRead();
+                TeacherRegistrationDto dto = normalize(row.dto());
+                String error = validate(dto);
+                if (error == null && !seenEmails.add(dto.getEmail().toLowerCase(Locale.ROOT))) {
+                    error = "Duplicate email in this file.";
+                }
+                if (error == null && dto.getTeacherId() != null && !seenIds.add(dto.getTeacherId())) {
+                    error = "Duplicate teacher ID in this file.";
+                }
+                if (error != null) {
+                    job.fail(row.line(), dto.getEmail(), error);
+                    continue;
+                }
+                chunk.add(row);
+                if (chunk.size() == chunkSize) {
+                    provisionChunk(chunk, roleId, job);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                provisionChunk(chunk, roleId, job);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted", e);
+        } finally {
+            dashboardStatsService.invalidate();
+        }
+
+        long elapsed = Math.max(1, System.currentTimeMillis() - started);
+        job.finish(ImportJob.Status.COMPLETED,
+                "Created " + job.getImported() + " of " + job.getRowsRead() + " teacher account(s); " + job.getFailed() + " failed.");
+        System.out.println("✅ Teacher provisioning " + job.getId() + " finished: " + job.getImported() + " created, "
+                + job.getFailed() + " failed (" + elapsed + " ms, " + (job.getImported() * 1000L / elapsed) + " rows/s)");
+    }
+
+    private static TeacherRegistrationDto normalize(TeacherRegistrationDto dto) {
+        dto.setLastName(trimToNull(dto.getLastName()));
+        dto.setFirstName(trimToNull(dto.getFirstName()));
+        dto.setEmail(trimToNull(dto.getEmail()));
+        dto.setTeacherId(trimToNull(dto.getTeacherId()));
+        dto.setInitialPassword(trimToNull(dto.getInitialPassword()));
+        return dto;
+    }
+
+    private static String validate(TeacherRegistrationDto dto) {
+        if (dto.getLastName() == null || dto.getFirstName() == null) {
+            return "Last name and first name are required.";
+        }
+        if (dto.getEmail() == null || dto.getEmail().length() > StudentImportService.MAX_FIELD_LENGTH
+                || !StudentImportService.EMAIL.matcher(dto.getEmail()).matches()) {
+            return "Invalid email address.";
+        }
+        if (dto.getLastName().length() > StudentImportService.MAX_FIELD_LENGTH
+                || dto.getFirstName().length() > StudentImportService.MAX_FIELD_LENGTH
+                || (dto.getTeacherId() != null && dto.getTeacherId().length() > StudentImportService.MAX_FIELD_LENGTH)) {
+            return "Value is too long.";
+        }
+        return null;
+    }
+
+    private void provisionChunk(List<TeacherRow> chunk, Integer roleId, ImportJob job) throws InterruptedException {
+        long chunkStarted = System.nanoTime();
+
+        // 1. Existing emails and explicit teacher IDs, one query each per chunk
+        Set<String> existingEmails = userRepository.findExistingEmails(chunk.stream().map(row -> row.dto().getEmail()).toList())
+                .stream().map(email -> email.toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+        List<String> explicitIds = chunk.stream().map(row -> row.dto().getTeacherId()).filter(Objects::nonNull).toList();
+        Set<String> existingIds = explicitIds.isEmpty() ? Set.of() : new HashSet<>(userRepository.findExistingUsernames(explicitIds));
+
+        List<TeacherRow> fresh = new ArrayList<>(chunk.size());
+        for (TeacherRow row : chunk) {
+            TeacherRegistrationDto dto = row.dto();
+            if (existingEmails.contains(dto.getEmail().toLowerCase(Locale.ROOT))) {
+                job.fail(row.line(), dto.getEmail(), "An account with this email already exists.");
+            } else if (dto.getTeacherId() != null && existingIds.contains(dto.getTeacherId())) {
+                job.fail(row.line(), dto.getEmail(), "Teacher ID " + dto.getTeacherId() + " is already taken.");
+            } else {
+                fresh.add(row);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+
+        // 2. Allocate the missing IDs in one go, then hash every initial password concurrently
+        Iterator<String> allocated = idAllocationService
+                .nextTeacherIds((int) fresh.stream().filter(row -> row.dto().getTeacherId() == null).count())
+                .iterator();
+        List<String> passwords = fresh.stream()
+                .map(row -> row.dto().getInitialPassword() != null ? row.dto().getInitialPassword() : row.dto().getLastName())
+                .toList();
+        List<CompletableFuture<String>> hashes = bulkUserWriter.hashAll(passwords);
+
+        List<TeacherRow> rows = new ArrayList<>(fresh.size());
+        List<BulkUserWriter.NewUser> users = new ArrayList<>(fresh.size());
+        List<EmailOutboxService.PendingEmail> emails = new ArrayList<>(fresh.size());
+        for (int i = 0; i < fresh.size(); i++) {
+            TeacherRow row = fresh.get(i);
+            TeacherRegistrationDto dto = row.dto();
+            String username = dto.getTeacherId() != null ? dto.getTeacherId() : allocated.next();
+            try {
+                users.add(new BulkUserWriter.NewUser(username, dto.getEmail(), hashes.get(i).get(), true, 5,
+                        dto.getLastName(), dto.getFirstName(), null,
+                        dto.getFirstName() + " " + dto.getLastName().charAt(0) + ".", null, null));
+                emails.add(credentialsEmail(username, passwords.get(i), dto));
+                rows.add(row);
+            } catch (ExecutionException e) {
+                job.fail(row.line(), dto.getEmail(), "Could not hash the initial password: " + e.getCause().getMessage());
+            }
+        }
+
+        // 3. One transaction per chunk; if it fails, retry row by row so only the offending rows are reported
+        try {
+            transactionTemplate.executeWithoutResult(status -> bulkUserWriter.insert(users, roleId, withoutDisabled(emails)));
+            for (int i = 0; i < users.size(); i++) {
+                job.created(rows.get(i).line(), users.get(i).email(), users.get(i).username());
+            }
+        } catch (RuntimeException chunkError) {
+            for (int i = 0; i < users.size(); i++) {
+                BulkUserWriter.NewUser user = users.get(i);
+                List<EmailOutboxService.PendingEmail> email = withoutDisabled(List.of(emails.get(i)));
+                try {
+                    transactionTemplate.executeWithoutResult(status -> bulkUserWriter.insert(List.of(user), roleId, email));
+                    job.created(rows.get(i).line(), user.email(), user.username());
+                } catch (RuntimeException e) {
+                    job.fail(rows.get(i).line(), user.email(), "Could not save: " + StudentImportService.rootMessage(e));
+                }
+            }
+        }
+
+        long elapsedMicros = Math.max(1, (System.nanoTime() - chunkStarted) / 1000);
+        System.out.println("👩‍🏫 Teacher provisioning " + job.getId() + ": chunk of " + chunk.size() + " in "
+                + (elapsedMicros / 1000) + " ms (" + (users.size() * 1_000_000L / elapsedMicros) + " accounts/s)");
+    }
+
+    private EmailOutboxService.PendingEmail credentialsEmail(String username, String password, TeacherRegistrationDto dto) {
+        Map<String, String> params = new HashMap<>();
+        params.put("teacherId", username);
+        params.put("password", password);
+        params.put("firstName", dto.getFirstName());
+        return new EmailOutboxService.PendingEmail(dto.getEmail(), teacherCredentialsTemplateId, params);
+    }
+
+    // Credentials emails are only written when the template is configured (same as registerTeacher)
+    private List<EmailOutboxService.PendingEmail> withoutDisabled(List<EmailOutboxService.PendingEmail> emails) {
+        return teacherCredentialsTemplateId != null && teacherCredentialsTemplateId > 0 ? emails : List.of();
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
@@ -0,0 +1,119 @@
+package auth.proj.sam.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.commons.codec.binary.Base32;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+
+/**
+ * Singleton RFC 6238 (SHA1, 6 digits, 30s) verifier used on the MFA hot path.
+ *
+ * - Decoded key material is cached per secret in a bounded cache instead of Base32-decoding on every call.
+ * - Each thread reuses its own HmacSHA1 instance.
+ *
+ * It only checks codes; MfaService records the matched time step per user in the database, so a code
+ * cannot be replayed within its validity window, whichever instance it is sent to.
+ */
+@Service
+public class TotpVerifier {
+
+    private static final int PERIOD_SECONDS = 30;
+    private static final int DIGITS = 6;
+    private static final int MODULUS = 1_000_000;
+    private static final String ALGORITHM = "HmacSHA1";
+
+    private final int allowedDriftSteps;
+    private final Base32 base32 = new Base32();
+    private final Cache<String, SecretKeySpec> keysBySecret;
+
+    private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    });
+
+    public TotpVerifier(@Value("${app.mfa.totp.allowed-drift-steps:1}") int allowedDriftSteps,
+                        @Value("${app.mfa.totp.key-cache-size:10000}") long keyCacheSize) {
+        this.allowedDriftSteps = allowedDriftSteps;
+        this.keysBySecret = Caffeine.newBuilder()
+                .maximumSize(keyCacheSize)
+                .expireAfterAccess(Duration.ofMinutes(30))
+                .build();
+    }
+
+    /**
+     * Returns the time step within the drift window of the current time that produces the code, or -1
+     * for malformed codes and codes outside the window.
+     */
+    public long matchingTimeStep(String secret, String code) {
+        return matchingTimeStep(secret, code, currentTimeStep());
+    }
+
+    /**
+     * Returns the time step within the drift window that produces the code, or -1 if none does.
+     */
+    long matchingTimeStep(String secret, String code, long currentStep) {
+        int expected = parseCode(code);
+        if (expected < 0 || secret == null || secret.isEmpty()) {
+            return -1;
+        }
+
+        SecretKeySpec key = keysBySecret.get(secret, s -> new SecretKeySpec(base32.decode(s), ALGORITHM));
+        Mac mac = macs.get();
+        try {
+            mac.init(key);
+        } catch (InvalidKeyException e) {
+            return -1;
+        }
+
+        for (int drift = -allowedDriftSteps; drift <= allowedDriftSteps; drift++) {
+            long step = currentStep + drift;
+            if (generate(mac, step) == expected) {
+                return step;
+            }
+        }
+        return -1;
+    }
+
+    long currentTimeStep() {
+        return System.currentTimeMillis() / 1000 / PERIOD_SECONDS;
+    }
+
+    // HOTP (RFC 4226) dynamic truncation without intermediate arrays or strings
+    private static int generate(Mac mac, long step) {
+        for (int i = 7; i >= 0; i--) {
+            mac.update((byte) (step >>> (i * 8)));
+        }
+        byte[] hash = mac.doFinal();
+        int offset = hash[hash.length - 1] & 0x0f;
+        int binary = ((hash[offset] & 0x7f) << 24)
+                | ((hash[offset + 1] & 0xff) << 16)
+                | ((hash[offset + 2] & 0xff) << 8)
+                | (hash[offset + 3] & 0xff);
+        return binary % MODULUS;
+    }
+
+    private static int parseCode(String code) {
+        if (code == null || code.length() != DIGITS) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < DIGITS; i++) {
+            char c = code.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,154 @@
+package auth.proj.sam.service;
+
+import auth.proj.sam.model.User;
+import auth.proj.sam.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Bounded, TTL-evicting cache in front of the username/email lookups done on every login and
+ * on every settings, MFA and profile request.
+ *
+ * Entries must be evicted whenever a user is modified (see UserService and the controllers that
+ * save users directly), otherwise lockout and verification state would be served stale.
+ * Missing users are never cached, so a fresh registration is visible immediately.
+ *
+ * Eviction only reaches this instance's cache, so a hit is also checked against the row's modified_at
+ * stamp (one primary-key read, maintained by the database on every change): a user changed through
+ * another instance, a bulk statement or the maintenance sweep is reloaded instead of served stale.
+ * Logins, session principals and @CurrentUser all resolve through here.
+ *
+ * The cache holds its own copy of each user and hands out copies, so a caller changing the returned
+ * instance (e.g. before saving it) never affects other threads or the cached state.
+ */
+@Service
+public class UserLookupService {
+
+    private final UserRepository userRepository;
+    private final Cache<String, User> usersByUsername;
+    private final Cache<String, String> usernamesByEmail;
+
+    public UserLookupService(UserRepository userRepository,
+                             @Value("${app.cache.users.max-size:10000}") long maxSize,
+                             @Value("${app.cache.users.ttl-seconds:300}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.usersByUsername = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.usernamesByEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public Optional<User> findByUsername(String username) {
+        User cached = current(usersByUsername.getIfPresent(username));
+        if (cached != null) {
+            return Optional.of(cached.copy());
+        }
+        Optional<User> user = userRepository.findByUsername(username);
+        user.ifPresent(this::put);
+        return user;
+    }
+
+    public Optional<User> findByEmail(String email) {
+        String username = usernamesByEmail.getIfPresent(email);
+        if (username != null) {
+            User cached = current(usersByUsername.getIfPresent(username));
+            if (cached != null && email.equals(cached.getEmail())) {
+                return Optional.of(cached.copy());
+            }
+        }
+        Optional<User> user = userRepository.findByEmail(email);
+        user.ifPresent(this::put);
+        return user;
+    }
+
+    public void evict(User user) {
+        if (user == null) {
+            return;
+        }
+        evict(user.getUsername(), user.getEmail());
+    }
+
+    /**
+     * For bulk writes that only have the keys at hand. Inside a transaction the entry is dropped again
+     * after commit: a concurrent lookup between the first eviction and the commit still reads the old
+     * row and would otherwise cache it for the full TTL.
+     */
+    public void evict(String username, String email) {
+        invalidate(username, email);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate(username, email);
+                }
+            });
+        }
+    }
+
+    public void evictAll() {
+        usersByUsername.invalidateAll();
+        usernamesByEmail.invalidateAll();
+    }
+
+    public CacheStats getStats() {
+        return usersByUsername.stats();
+    }
+
+    public long getEstimatedSize() {
+        return usersByUsername.estimatedSize();
+    }
+
+    // Periodic hit/miss/eviction report used to size the cache under login storms
+    @Scheduled(fixedDelayString = "${app.cache.users.stats-log-interval-ms:300000}",
+               initialDelayString = "${app.cache.users.stats-log-interval-ms:300000}")
+    public void logStats() {
+        CacheStats stats = usersByUsername.stats();
+        System.out.println(String.format(
+                "📊 User cache: size=%d hits=%d misses=%d hitRate=%.2f evictions=%d",
+                usersByUsername.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount()));
+    }
+
+    // The cached entry if the row has not changed since it was read; otherwise drops it and returns null
+    private User current(User cached) {
+        if (cached == null) {
+            return null;
+        }
+        Optional<LocalDateTime> modifiedAt = userRepository.findModifiedAt(cached.getId());
+        if (modifiedAt.isPresent() && modifiedAt.get().equals(cached.getModifiedAt())) {
+            return cached;
+        }
+        invalidate(cached.getUsername(), cached.getEmail());
+        return null;
+    }
+
+    private void invalidate(String username, String email) {
+        if (username != null) {
+            usersByUsername.invalidate(username);
+        }
+        if (email != null) {
+            usernamesByEmail.invalidate(email);
+        }
+    }
+
+    private void put(User user) {
+        usersByUsername.put(user.getUsername(), user.copy());
+        usernamesByEmail.put(user.getEmail(), user.getUsername());
+    }
+}
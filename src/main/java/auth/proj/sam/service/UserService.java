@@ -6,21 +6,34 @@ import auth.proj.sam.dto.EducationalInfoDto;
 import auth.proj.sam.dto.FamilyInfoDto;
 import auth.proj.sam.dto.OtherInfoDto;
 import auth.proj.sam.dto.StudentRegistrationDto;
+import auth.proj.sam.dto.TeacherDirectoryPage;
 import auth.proj.sam.dto.TeacherRegistrationDto;
+import auth.proj.sam.model.Citizenship;
+import auth.proj.sam.model.CivilStatus;
+import auth.proj.sam.model.EducationalInfo;
+import auth.proj.sam.model.FamilyInfo;
+import auth.proj.sam.model.Gender;
+import auth.proj.sam.model.PersonalInfo;
 import auth.proj.sam.model.Role;
+import auth.proj.sam.model.SecurityToken;
 import auth.proj.sam.model.User;
+import auth.proj.sam.repository.EducationalInfoRepository;
+import auth.proj.sam.repository.FamilyInfoRepository;
+import auth.proj.sam.repository.PersonalInfoRepository;
 import auth.proj.sam.repository.RoleRepository;
 import auth.proj.sam.repository.UserRepository;
+import auth.proj.sam.repository.UserRepository.UserSummary;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
 
 @Service
 public class UserService {
@@ -28,13 +41,14 @@ public class UserService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
-    private final EmailService emailService;
-    
-    // --- STATIC/TEMPORARY COUNTER FOR ID GENERATION ---
-    private static final String STUDENT_ID_PREFIX = "22-1-";
-    // FIX: Starting the student ID counter at 1000 to avoid duplicates (22-1-00001, etc.)
-    private static final AtomicInteger STUDENT_ID_COUNTER = new AtomicInteger(2000); 
-    private static final AtomicInteger TEACHER_ID_COUNTER = new AtomicInteger(50000); 
+    private final EmailOutboxService emailOutboxService;
+    private final DashboardStatsService dashboardStatsService;
+    private final EducationalInfoRepository educationalInfoRepository;
+    private final FamilyInfoRepository familyInfoRepository;
+    private final PersonalInfoRepository personalInfoRepository;
+    private final UserLookupService userLookupService;
+    private final IdAllocationService idAllocationService;
+    private final SecurityTokenService securityTokenService;
 
     // --- Template ID Configuration (Reading from application.properties/Env Vars) ---
     @Value("${brevo.template.verification-id:}")
@@ -53,30 +67,69 @@ public class UserService {
     
     private static final Long PASSWORD_CHANGE_TEMPLATE_ID = 6L; 
     
-    public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder, EmailService emailService) {
+    public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder,
+                       EmailOutboxService emailOutboxService, DashboardStatsService dashboardStatsService,
+                       EducationalInfoRepository educationalInfoRepository, FamilyInfoRepository familyInfoRepository,
+                       PersonalInfoRepository personalInfoRepository, UserLookupService userLookupService,
+                       IdAllocationService idAllocationService, SecurityTokenService securityTokenService) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
-        this.emailService = emailService;
+        this.emailOutboxService = emailOutboxService;
+        this.dashboardStatsService = dashboardStatsService;
+        this.educationalInfoRepository = educationalInfoRepository;
+        this.familyInfoRepository = familyInfoRepository;
+        this.personalInfoRepository = personalInfoRepository;
+        this.userLookupService = userLookupService;
+        this.idAllocationService = idAllocationService;
+        this.securityTokenService = securityTokenService;
+    }
+
+    // Every user mutation goes through here so the cached lookup entry is dropped with it (and again after commit)
+    private User saveUser(User user) {
+        User saved = userRepository.save(user);
+        userLookupService.evict(user);
+        return saved;
     }
     
     private String generateStudentId() {
-        return String.format(STUDENT_ID_PREFIX + "%05d", STUDENT_ID_COUNTER.getAndIncrement());
+        return idAllocationService.nextStudentId();
     }
     
     private String generateTeacherId() {
-        return String.format(STUDENT_ID_PREFIX + "%05d", TEACHER_ID_COUNTER.getAndIncrement());
+        return idAllocationService.nextTeacherId();
     }
 
-    // --- NEW: Method to count users by role ---
+    // --- Count users by role (served from the cached dashboard snapshot) ---
     public long countUsersByRole(String roleName) {
-        return userRepository.findAll().stream()
-                .filter(user -> user.getRoles().stream()
-                        .anyMatch(role -> role.getName().equals(roleName)))
-                .count();
+        return dashboardStatsService.countUsersByRole(roleName);
+    }
+    
+    // --- Paged teacher directory (keyset on users.id, prefix search on ID / names) ---
+    public TeacherDirectoryPage findTeachers(String search, Long cursor, boolean descending, int size) {
+        int pageSize = Math.max(5, Math.min(size, 100));
+        String prefix = (search == null || search.isBlank()) ? null : escapeLike(search.trim()) + "%";
+
+        // Fetch one extra row to know whether a next page exists
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<UserSummary> rows = descending
+                ? userRepository.findSummariesByRoleBefore("ROLE_TEACHER", cursor != null ? cursor : Long.MAX_VALUE, prefix, limit)
+                : userRepository.findSummariesByRoleAfter("ROLE_TEACHER", cursor != null ? cursor : 0L, prefix, limit);
+
+        Long nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            nextCursor = rows.get(pageSize - 1).getId();
+        }
+        return new TeacherDirectoryPage(rows, nextCursor, search, descending, pageSize);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
     
     // --- NEW: CHANGE PASSWORD REQUEST LOGIC (Step 1: Initiate) ---
+    @Transactional
     public String initiatePasswordChange(User user, ChangePasswordDto dto) {
         // 1. Validate new password matches confirmation
         if (!dto.getNewPassword().equals(dto.getConfirmPassword())) {
@@ -89,24 +142,21 @@ public class UserService {
         }
 
         // 3. Generate a token (used as the session identifier) and a code (sent to email)
-        String token = UUID.randomUUID().toString();
-        String code = String.format("%06d", new Random().nextInt(999999));
+        String token = securityTokenService.newToken();
+        String code = securityTokenService.newCode();
         
-        // 4. Save token, code, and pending password (encoded)
-        user.setChangePasswordToken(token);
-        user.setVerificationCode(code); // Re-use verification code field
-        user.setVerificationCodeExpiryTime(LocalDateTime.now().plusMinutes(10)); // 10 minute expiry
-        user.setPendingNewPassword(passwordEncoder.encode(dto.getNewPassword()));
-        userRepository.save(user);
+        // 4. Store token and code as one hashed secret, with the pending password (encoded); 10 minute expiry
+        securityTokenService.issue(user.getId(), SecurityToken.Purpose.PASSWORD_CHANGE, token + ":" + code,
+                Duration.ofMinutes(10), passwordEncoder.encode(dto.getNewPassword()));
 
         // 5. Send email with the verification code
         Map<String, String> params = new HashMap<>();
         params.put("code", code);
         params.put("firstName", user.getFirstName());
 
-        // Cleaned up logic to rely on @Async and log only if ID is missing
+        // Written to the outbox with the user change; log only if ID is missing
         if (PASSWORD_CHANGE_TEMPLATE_ID > 0) {
-             emailService.sendEmail(user.getEmail(), PASSWORD_CHANGE_TEMPLATE_ID, params);
+             emailOutboxService.enqueue(user.getEmail(), PASSWORD_CHANGE_TEMPLATE_ID, params);
         } else {
             System.out.println("Email change verification code for " + user.getEmail() + " is: " + code);
         }
@@ -115,33 +165,21 @@ public class UserService {
     }
     
     // --- NEW: CHANGE PASSWORD FINALIZATION LOGIC (Step 2: Finalize) ---
+    @Transactional
     public void finalizePasswordChange(User user, VerifyPasswordChangeDto dto) {
         
-        // Check if the code matches and is not expired
-        if (user.getVerificationCode() == null || !user.getVerificationCode().equals(dto.getCode())) {
-            throw new RuntimeException("Invalid verification code.");
-        }
-        
-        if (user.getVerificationCodeExpiryTime() == null || user.getVerificationCodeExpiryTime().isBefore(LocalDateTime.now())) {
-            throw new RuntimeException("Verification code has expired.");
-        }
+        // 1. The form token and the emailed code are checked and used up together
+        SecurityTokenService.Consumed change = securityTokenService
+                .consume(SecurityToken.Purpose.PASSWORD_CHANGE, user.getId(), dto.getToken() + ":" + dto.getCode())
+                .orElseThrow(() -> new RuntimeException("Invalid or expired verification code. Please restart the password change process if it has expired."));
         
-        // 1. Update password using the pre-encoded value
-        if (user.getPendingNewPassword() == null) {
-            throw new RuntimeException("No pending password found. Please restart the change process.");
-        }
-        user.setPassword(user.getPendingNewPassword());
-
-        // 2. Clear all temporary fields
-        user.setChangePasswordToken(null);
-        user.setVerificationCode(null);
-        user.setVerificationCodeExpiryTime(null);
-        user.setPendingNewPassword(null);
-        
-        userRepository.save(user);
+        // 2. Update password using the pre-encoded value
+        user.setPassword(change.payload());
+        saveUser(user);
     }
     
     // --- EXISTING: TEACHER REGISTRATION (NOW USES TEACHER_CREDENTIALS_TEMPLATE_ID @Value) ---
+    @Transactional
     public void registerTeacher(TeacherRegistrationDto dto) {
         if (userRepository.findByEmail(dto.getEmail()).isPresent()) {
             throw new RuntimeException("An account with this email already exists.");
@@ -172,7 +210,8 @@ public class UserService {
         user.setAccountStatus(User.AccountStatus.ACTIVE);
         user.setRegistrationStep(5);
         
-        userRepository.save(user);
+        saveUser(user);
+        dashboardStatsService.invalidate();
         
         // REMOVED THE CODE BLOCK FOR MOCK ASSIGNMENT LOGIC HERE
 
@@ -183,7 +222,7 @@ public class UserService {
         
         // UPDATED: Use the new injected template ID
         if (teacherCredentialsTemplateId != null && teacherCredentialsTemplateId > 0) {
-             emailService.sendEmail(user.getEmail(), teacherCredentialsTemplateId, params);
+             emailOutboxService.enqueue(user.getEmail(), teacherCredentialsTemplateId, params);
         } else {
              System.out.println("Credentials email disabled. Teacher ID: " + user.getUsername() + " / Initial Password: " + password + " sent to " + user.getEmail());
         }
@@ -194,6 +233,7 @@ public class UserService {
     }
     
     // --- EXISTING: STUDENT REGISTRATION ---
+    @Transactional
     public String registerStudent(StudentRegistrationDto studentDto) {
         if (userRepository.findByEmail(studentDto.getEmail()).isPresent()) {
             throw new RuntimeException("An account with this email already exists.");
@@ -220,18 +260,18 @@ public class UserService {
         user.setAccountStatus(User.AccountStatus.ACTIVE);
         user.setRegistrationStep(2);
 
-        String code = String.format("%06d", new Random().nextInt(999999));
-        user.setVerificationCode(code);
-        user.setVerificationCodeExpiryTime(LocalDateTime.now().plusMinutes(15));
+        User saved = saveUser(user);
+        dashboardStatsService.invalidate();
 
-        userRepository.save(user);
+        String code = securityTokenService.newCode();
+        securityTokenService.issue(saved.getId(), SecurityToken.Purpose.EMAIL_VERIFICATION, code, Duration.ofMinutes(15), null);
 
         Map<String, String> params = new HashMap<>();
         params.put("username", user.getUsername()); 
         params.put("verificationCode", code);
 
         if (verificationTemplateId != null && verificationTemplateId > 0) {
-             emailService.sendEmail(user.getEmail(), verificationTemplateId, params);
+             emailOutboxService.enqueue(user.getEmail(), verificationTemplateId, params);
         } else {
             System.out.println("Email sending is disabled. Verification code for " + user.getEmail() + " is: " + code);
             // Updated to NOT display the password
@@ -241,70 +281,102 @@ public class UserService {
         return user.getUsername();
     }
     
+    // --- Onboarding sections (stored in their own tables, loaded only where displayed) ---
+    public EducationalInfo getEducationalInfo(User user) {
+        return educationalInfoRepository.findById(user.getId()).orElseGet(EducationalInfo::new);
+    }
+
+    public FamilyInfo getFamilyInfo(User user) {
+        return familyInfoRepository.findById(user.getId()).orElseGet(FamilyInfo::new);
+    }
+
+    public PersonalInfo getPersonalInfo(User user) {
+        return personalInfoRepository.findById(user.getId()).orElseGet(PersonalInfo::new);
+    }
+
+    @Transactional
     public void updateEducationalInfo(User user, EducationalInfoDto dto) {
-        user.setApplicationFor(dto.getApplicationFor());
-        user.setClassification(dto.getClassification());
-        user.setCourseProgram(dto.getCourseProgram());
-        user.setLevel(dto.getLevel());
-        user.setSchoolYear(dto.getSchoolYear());
-        user.setTerm(dto.getTerm());
-        user.setLrn(dto.getLrn());
+        EducationalInfo info = educationalInfoRepository.findById(user.getId()).orElseGet(EducationalInfo::new);
+        if (info.getUser() == null) {
+            info.setUser(userRepository.getReferenceById(user.getId()));
+        }
+        info.setApplicationFor(dto.getApplicationFor());
+        info.setClassification(dto.getClassification());
+        info.setCourseProgram(dto.getCourseProgram());
+        info.setLevel(dto.getLevel());
+        info.setSchoolYear(dto.getSchoolYear());
+        info.setTerm(dto.getTerm());
+        info.setLrn(dto.getLrn());
         
-        user.setUnitNumber(dto.getUnitNumber());
-        user.setStreet(dto.getStreet());
-        user.setBarangay(dto.getBarangay());
-        user.setCity(dto.getCity());
-        user.setZipCode(dto.getZipCode());
-        user.setCountry("PHILIPPINES"); 
+        info.setUnitNumber(dto.getUnitNumber());
+        info.setStreet(dto.getStreet());
+        info.setBarangay(dto.getBarangay());
+        info.setCity(dto.getCity());
+        info.setZipCode(dto.getZipCode());
+        info.setCountry("PHILIPPINES"); 
+        educationalInfoRepository.save(info);
 
         user.setRegistrationStep(3);
-        userRepository.save(user);
+        saveUser(user);
+        userRepository.bumpDataVersion(List.of(user.getId()));
     }
     
+    @Transactional
     public void updateFamilyInfo(User user, FamilyInfoDto dto) {
-        user.setFatherName(dto.getFatherName());
-        user.setMotherName(dto.getMotherName());
-        user.setParentContactNumber(dto.getParentContactNumber());
+        FamilyInfo info = familyInfoRepository.findById(user.getId()).orElseGet(FamilyInfo::new);
+        if (info.getUser() == null) {
+            info.setUser(userRepository.getReferenceById(user.getId()));
+        }
+        info.setFatherName(dto.getFatherName());
+        info.setMotherName(dto.getMotherName());
+        info.setParentContactNumber(dto.getParentContactNumber());
+        familyInfoRepository.save(info);
 
         user.setRegistrationStep(4);
-        userRepository.save(user);
+        saveUser(user);
+        userRepository.bumpDataVersion(List.of(user.getId()));
     }
     
+    @Transactional
     public void updateOtherInfo(User user, OtherInfoDto dto) {
-        user.setBirthPlace(dto.getBirthPlace());
-        user.setReligion(dto.getReligion());
-        user.setCellphoneNumber(dto.getCellphoneNumber());
-        user.setResidenceNumber(dto.getResidenceNumber());
-        user.setFacebook(dto.getFacebook());
-        user.setTwitter(dto.getTwitter());
+        PersonalInfo info = personalInfoRepository.findById(user.getId()).orElseGet(PersonalInfo::new);
+        if (info.getUser() == null) {
+            info.setUser(userRepository.getReferenceById(user.getId()));
+        }
+        info.setBirthPlace(dto.getBirthPlace());
+        info.setReligion(dto.getReligion());
+        info.setCellphoneNumber(dto.getCellphoneNumber());
+        info.setResidenceNumber(dto.getResidenceNumber());
+        info.setFacebook(dto.getFacebook());
+        info.setTwitter(dto.getTwitter());
         
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
         if (dto.getBirthDate() != null && !dto.getBirthDate().isEmpty()) {
-            user.setBirthDate(LocalDate.parse(dto.getBirthDate(), formatter));
+            info.setBirthDate(LocalDate.parse(dto.getBirthDate(), formatter));
         }
 
-        if (dto.getGender() != null) user.setGender(User.Gender.valueOf(dto.getGender().toUpperCase()));
-        if (dto.getCitizenship() != null) user.setCitizenship(User.Citizenship.valueOf(dto.getCitizenship().toUpperCase()));
-        if (dto.getCivilStatus() != null) user.setCivilStatus(User.CivilStatus.valueOf(dto.getCivilStatus().toUpperCase()));
-        user.setDualCitizenship(dto.isDualCitizenship());
+        if (dto.getGender() != null) info.setGender(Gender.valueOf(dto.getGender().toUpperCase()));
+        if (dto.getCitizenship() != null) info.setCitizenship(Citizenship.valueOf(dto.getCitizenship().toUpperCase()));
+        if (dto.getCivilStatus() != null) info.setCivilStatus(CivilStatus.valueOf(dto.getCivilStatus().toUpperCase()));
+        info.setDualCitizenship(dto.isDualCitizenship());
+        personalInfoRepository.save(info);
         
         user.setRegistrationStep(5);
-        userRepository.save(user);
+        saveUser(user);
+        userRepository.bumpDataVersion(List.of(user.getId()));
     }
     
     // --- EXISTING: STUDENT VERIFICATION (NOW USES STUDENT_CREDENTIALS_TEMPLATE_ID @Value) ---
+    @Transactional
     public boolean verifyUser(String username, String code) {
         
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found: " + username));
         
-        if (user.getVerificationCode() != null && user.getVerificationCode().equals(code) &&
-            user.getVerificationCodeExpiryTime().isAfter(LocalDateTime.now())) {
+        if (securityTokenService.consume(SecurityToken.Purpose.EMAIL_VERIFICATION, user.getId(), code).isPresent()) {
 
             user.setEnabled(true);
-            user.setVerificationCode(null);
-            user.setVerificationCodeExpiryTime(null);
-            userRepository.save(user);
+            saveUser(user);
 
             String initialPassword = user.getLastName();
             
@@ -315,7 +387,7 @@ public class UserService {
             
             // UPDATED: Use the new injected template ID
             if (studentCredentialsTemplateId != null && studentCredentialsTemplateId > 0) {
-                 emailService.sendEmail(user.getEmail(), studentCredentialsTemplateId, params);
+                 emailOutboxService.enqueue(user.getEmail(), studentCredentialsTemplateId, params);
             } else {
                  System.out.println("Credentials email disabled. Student ID: " + user.getUsername() + " / Initial Password: " + initialPassword + " sent to " + user.getEmail());
             }
@@ -325,34 +397,34 @@ public class UserService {
         return false;
     }
 
+    @Transactional
     public void registerUser(User user) {
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         Role userRole = roleRepository.findByName("ROLE_STUDENT").orElseThrow(() -> new RuntimeException("Error: Role is not found."));
         user.getRoles().add(userRole);
 
-        String code = String.format("%06d", new Random().nextInt(999999));
-        user.setVerificationCode(code);
-        user.setVerificationCodeExpiryTime(LocalDateTime.now().plusMinutes(15));
+        User saved = saveUser(user);
+        dashboardStatsService.invalidate();
 
-        userRepository.save(user);
+        String code = securityTokenService.newCode();
+        securityTokenService.issue(saved.getId(), SecurityToken.Purpose.EMAIL_VERIFICATION, code, Duration.ofMinutes(15), null);
 
         Map<String, String> params = new HashMap<>();
         params.put("username", user.getUsername());
         params.put("verificationCode", code);
 
         if (verificationTemplateId != null && verificationTemplateId > 0) {
-            emailService.sendEmail(user.getEmail(), verificationTemplateId, params);
+            emailOutboxService.enqueue(user.getEmail(), verificationTemplateId, params);
         }
     }
 
+    @Transactional
     public void generatePasswordResetToken(String email, String siteURL) {
-        User user = userRepository.findByEmail(email)
+        User user = userLookupService.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User with this email not found"));
 
-        String token = UUID.randomUUID().toString();
-        user.setPasswordResetToken(token);
-        user.setPasswordResetTokenExpiryTime(LocalDateTime.now().plusHours(1));
-        userRepository.save(user);
+        String token = securityTokenService.newToken();
+        securityTokenService.issue(user.getId(), SecurityToken.Purpose.PASSWORD_RESET, token, Duration.ofHours(1), null);
 
         String resetURL = siteURL + "/reset-password?token=" + token;
         Map<String, String> params = new HashMap<>();
@@ -360,25 +432,28 @@ public class UserService {
         params.put("reset_url", resetURL);
 
         if (passwordResetTemplateId != null && passwordResetTemplateId > 0) {
-            emailService.sendEmail(user.getEmail(), passwordResetTemplateId, params);
+            emailOutboxService.enqueue(user.getEmail(), passwordResetTemplateId, params);
         }
     }
 
     public boolean validatePasswordResetToken(String token) {
-        User user = userRepository.findByPasswordResetToken(token);
-        return user != null && user.getPasswordResetTokenExpiryTime().isAfter(LocalDateTime.now());
+        return securityTokenService.isValid(SecurityToken.Purpose.PASSWORD_RESET, null, token);
     }
 
+    @Transactional
     public void resetPassword(String token, String newPassword) {
-        User user = userRepository.findByPasswordResetToken(token);
-        if (user == null || user.getPasswordResetTokenExpiryTime().isBefore(LocalDateTime.now())) {
-            throw new RuntimeException("Invalid or expired password reset token.");
-        }
+        User user = securityTokenService.consume(SecurityToken.Purpose.PASSWORD_RESET, null, token)
+                .flatMap(consumed -> userRepository.findById(consumed.userId()))
+                .orElseThrow(() -> new RuntimeException("Invalid or expired password reset token."));
 
         user.setPassword(passwordEncoder.encode(newPassword));
-        user.setPasswordResetToken(null);
-        user.setPasswordResetTokenExpiryTime(null);
-        userRepository.save(user);
+        saveUser(user);
+    }
+
+    // Called after a successful login when the stored hash uses an older encoding or lower bcrypt strength
+    public void upgradePasswordHash(User user, String encodedPassword) {
+        user.setPassword(encodedPassword);
+        saveUser(user);
     }
 
     public List<User> findAllUsers() {
@@ -388,24 +463,45 @@ public class UserService {
     public void blockUser(Long userId) {
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
         user.setAccountStatus(User.AccountStatus.BLOCKED);
-        userRepository.save(user);
+        saveUser(user);
+        dashboardStatsService.invalidate();
     }
 
     public void unblockUser(Long userId) {
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
         user.setAccountStatus(User.AccountStatus.ACTIVE);
         user.setTimeoutUntil(null);
-        userRepository.save(user);
+        saveUser(user);
     }
 
     public void timeoutUser(Long userId, int minutes) {
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("User not found"));
         user.setAccountStatus(User.AccountStatus.TIMED_OUT);
         user.setTimeoutUntil(LocalDateTime.now().plusMinutes(minutes));
-        userRepository.save(user);
+        saveUser(user);
+    }
+
+    // One batch of the maintenance sweep: accounts whose timeout has run out go back to ACTIVE
+    public int releaseExpiredTimeouts(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<UserSummary> expired = userRepository.findExpiredTimeouts(User.AccountStatus.TIMED_OUT, now, PageRequest.of(0, limit));
+        if (expired.isEmpty()) {
+            return 0;
+        }
+        int released = userRepository.releaseTimeouts(expired.stream().map(UserSummary::getId).toList(),
+                User.AccountStatus.ACTIVE, User.AccountStatus.TIMED_OUT, now);
+        expired.forEach(user -> userLookupService.evict(user.getUsername(), user.getEmail()));
+        return released;
     }
 
+    @Transactional
     public void deleteUser(Long userId) {
+        userRepository.findById(userId).ifPresent(userLookupService::evict);
+        educationalInfoRepository.deleteById(userId);
+        familyInfoRepository.deleteById(userId);
+        personalInfoRepository.deleteById(userId);
+        securityTokenService.deleteAll(userId);
         userRepository.deleteById(userId);
+        dashboardStatsService.invalidate();
     }
 }
\ No newline at end of file
@@ -3,14 +3,7 @@ INSERT INTO roles (name) VALUES ('ROLE_TEACHER');
 INSERT INTO roles (name) VALUES ('ROLE_STUDENT');
 INSERT INTO roles (name) VALUES ('ROLE_DEPARTMENT');
 
--- Insert subjects
-INSERT INTO subjects (code, description, lec, lab, units, grade, schedule)
-VALUES 
-('IT101', 'Introduction to IT', 3, 0, 3, '1.75', 'MWF 8:30 AM - 9:30 AM R 10:30 AM - 12:30 PM'),
-('CS202', 'Data Structures', 2, 1, 3, '2.00', 'MW 1:30 PM - 3:00 PM'),
-('MATE1', 'College Algebra', 3, 0, 3, '3.00', 'TTh 9:30 AM - 11:00 AM'),
-('FIL12', 'Filipino Subject', 3, 0, 3, 'INC', 'F 3:30 PM - 5:30 PM'),
-('PE301', 'Physical Fitness', 2, 0, 2, 'PASSED', 'Sat 7:30 AM - 10:30 AM');
+-- Subjects and their sections are seeded by DataInitializer (grades and schedules live on enrollments/sections)
 
 -- Insert default department user with encoded password for 'departmentpass'
 INSERT INTO users (username, email, password, enabled, first_name, last_name) VALUES 
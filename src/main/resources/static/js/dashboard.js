@@ -96,4 +96,64 @@ document.addEventListener('DOMContentLoaded', function() {
             }, 500); // Wait for fade out to complete
         }, 1300); // 1.3 seconds
     });
-});
\ No newline at end of file
+
+    // --- Live grades: revalidate against the JSON API instead of reloading the page ---
+    // The API answers 304 while nothing changed (the browser then reuses its cached copy),
+    // so the table is only redrawn when the ETag moves.
+    const liveGrades = document.querySelector('table[data-live-grades]');
+
+    if (liveGrades && window.fetch) {
+        let lastEtag = null;
+
+        function gradeClass(grade) {
+            if (grade === 'PASSED') return 'grade-passed';
+            if (grade === 'INC') return 'grade-inc';
+            return parseFloat(grade) <= 3.00 ? 'grade-passed' : 'grade-fail';
+        }
+
+        function renderGrade(cell, grade) {
+            const span = document.createElement('span');
+            if (grade === null || grade === undefined) {
+                span.textContent = 'Not yet graded';
+                span.style.color = 'var(--dark-text-secondary)';
+            } else {
+                span.textContent = grade;
+                span.className = gradeClass(grade);
+            }
+            cell.replaceChildren(span);
+        }
+
+        function refreshGrades() {
+            if (document.hidden) {
+                return;
+            }
+            fetch('/api/v1/students/me/grades', { cache: 'no-cache', credentials: 'same-origin', headers: { 'Accept': 'application/json' } })
+                .then(response => {
+                    const etag = response.headers.get('ETag');
+                    if (!response.ok || (etag && etag === lastEtag)) {
+                        return null;
+                    }
+                    const first = lastEtag === null;
+                    lastEtag = etag;
+                    // The page was rendered from the same data, so the first answer needs no redraw
+                    return first ? null : response.json();
+                })
+                .then(data => {
+                    if (!data) {
+                        return;
+                    }
+                    data.subjects.forEach(subject => {
+                        const cell = liveGrades.querySelector(`td[data-grade-for="${CSS.escape(subject.code)}"]`);
+                        if (cell) {
+                            renderGrade(cell, subject.grade);
+                        }
+                    });
+                })
+                .catch(() => { /* offline or signed out; try again on the next tick */ });
+        }
+
+        refreshGrades();
+        setInterval(refreshGrades, 60000);
+        document.addEventListener('visibilitychange', refreshGrades);
+    }
+});
@@ -2,8 +2,11 @@ package auth.proj.sam;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 
+// dev: runs without the production-only secrets (e.g. app.api.token.secret)
 @SpringBootTest
+@ActiveProfiles("dev")
 class SamApplicationTests {
 
 	@Test
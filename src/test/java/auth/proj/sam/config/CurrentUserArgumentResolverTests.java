@@ -0,0 +1,76 @@
+package auth.proj.sam.config;
+
+import auth.proj.sam.model.User;
+import auth.proj.sam.repository.UserRepository;
+import auth.proj.sam.service.UserLookupService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CurrentUserArgumentResolverTests {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserLookupService userLookupService = new UserLookupService(userRepository, 100, 300);
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private User signIn(String username, Instant loadedAt) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        CustomUserDetails details = new CustomUserDetails(user);
+        details.attachUser(user, loadedAt);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(details, null, List.of()));
+        return user;
+    }
+
+    private Object resolve(CurrentUserArgumentResolver resolver, ServletWebRequest request) {
+        return resolver.resolveArgument(null, null, request, null);
+    }
+
+    @Test
+    void usesAFreshPrincipalWithoutALookup() {
+        User principalUser = signIn("22-1-00001", Instant.now());
+        CurrentUserArgumentResolver resolver = new CurrentUserArgumentResolver(userLookupService, 60);
+
+        assertSame(principalUser, resolve(resolver, new ServletWebRequest(new MockHttpServletRequest())));
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void loadsAnOldPrincipalOncePerRequestAndThenFromTheCache() {
+        signIn("22-1-00001", Instant.now().minusSeconds(120));
+        User stored = new User();
+        stored.setId(1L);
+        stored.setUsername("22-1-00001");
+        stored.setEmail("22-1-00001@example.com");
+        stored.setModifiedAt(LocalDateTime.of(2024, 6, 1, 8, 0));
+        when(userRepository.findByUsername("22-1-00001")).thenReturn(Optional.of(stored));
+        when(userRepository.findModifiedAt(1L)).thenReturn(Optional.of(stored.getModifiedAt()));
+        CurrentUserArgumentResolver resolver = new CurrentUserArgumentResolver(userLookupService, 60);
+
+        ServletWebRequest request = new ServletWebRequest(new MockHttpServletRequest());
+        assertSame(stored, resolve(resolver, request));
+        assertSame(stored, resolve(resolver, request));
+        // The cache hands out copies
+        User cached = (User) resolve(resolver, new ServletWebRequest(new MockHttpServletRequest()));
+        assertNotSame(stored, cached);
+        assertEquals("22-1-00001", cached.getUsername());
+        verify(userRepository, times(1)).findByUsername("22-1-00001");
+    }
+}
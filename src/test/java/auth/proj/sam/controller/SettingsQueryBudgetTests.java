@@ -0,0 +1,57 @@
+package auth.proj.sam.controller;
+
+import auth.proj.sam.config.QueryCountFilter;
+import auth.proj.sam.service.UserLookupService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Boots the application on an embedded database; DataInitializer seeds the "department" account
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sam-budget;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER,VALUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.sql.init.mode=never",
+        "BREVO_API_KEY=test",
+        // Resolve @CurrentUser through the user cache on every request instead of trusting the principal
+        "app.current-user.principal-max-age-seconds=0"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("dev")
+class SettingsQueryBudgetTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserLookupService userLookupService;
+
+    @Test
+    @WithUserDetails("department")
+    void settingsPageStaysWithinItsQueryBudget() throws Exception {
+        userLookupService.evictAll();
+
+        // A cache miss reads the user and its roles; after that the page only checks the row's modified_at stamp
+        MvcResult cold = mockMvc.perform(get("/settings")).andExpect(status().isOk()).andReturn();
+        MvcResult warm = mockMvc.perform(get("/settings")).andExpect(status().isOk()).andReturn();
+
+        assertTrue(queries(cold) <= 2, "cold /settings ran " + queries(cold) + " queries");
+        assertEquals(1, queries(warm));
+    }
+
+    private static int queries(MvcResult result) {
+        return (Integer) result.getRequest().getAttribute(QueryCountFilter.QUERY_COUNT);
+    }
+}
@@ -0,0 +1,77 @@
+package auth.proj.sam.service;
+
+import auth.proj.sam.model.Role;
+import auth.proj.sam.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiTokenServiceTests {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+    private static final MockEnvironment ENVIRONMENT = new MockEnvironment();
+
+    private final ApiTokenService tokens = new ApiTokenService(ENVIRONMENT, SECRET, 300, 3600);
+
+    @Test
+    void accessTokenCarriesTheUserWithoutALookup() {
+        ApiTokenService.Claims claims = tokens.parse(tokens.issue(user()).accessToken(), ApiTokenService.Type.ACCESS);
+
+        assertEquals(7L, claims.userId());
+        assertEquals("2025-00007", claims.username());
+        assertEquals(List.of("ROLE_STUDENT"), claims.roles());
+        assertEquals(User.AccountStatus.ACTIVE, claims.status());
+        assertNull(claims.passwordStamp());
+    }
+
+    @Test
+    void rejectsTamperedForeignAndMisusedTokens() {
+        ApiTokenService.TokenPair pair = tokens.issue(user());
+        String[] parts = pair.accessToken().split("\\.");
+        String forged = parts[0] + "." + parts[1].substring(0, parts[1].length() - 2) + "x" + parts[1].charAt(parts[1].length() - 1) + "." + parts[2];
+        String unsigned = "eyJhbGciOiJub25lIn0." + parts[1] + ".";
+
+        assertThrows(ApiTokenService.InvalidTokenException.class, () -> tokens.parse(forged, ApiTokenService.Type.ACCESS));
+        assertThrows(ApiTokenService.InvalidTokenException.class, () -> tokens.parse(unsigned, ApiTokenService.Type.ACCESS));
+        assertThrows(ApiTokenService.InvalidTokenException.class, () -> tokens.parse(pair.refreshToken(), ApiTokenService.Type.ACCESS));
+        assertThrows(ApiTokenService.InvalidTokenException.class, () -> tokens.parse(pair.accessToken(), ApiTokenService.Type.REFRESH));
+        assertThrows(ApiTokenService.InvalidTokenException.class,
+                () -> new ApiTokenService(ENVIRONMENT, SECRET.toUpperCase(), 300, 3600).parse(pair.accessToken(), ApiTokenService.Type.ACCESS));
+        assertThrows(ApiTokenService.InvalidTokenException.class,
+                () -> tokens.parse(new ApiTokenService(ENVIRONMENT, SECRET, -1, 3600).issue(user()).accessToken(), ApiTokenService.Type.ACCESS));
+    }
+
+    @Test
+    void refreshTokenStampChangesWithThePassword() {
+        User user = user();
+        ApiTokenService.Claims claims = tokens.parse(tokens.issue(user).refreshToken(), ApiTokenService.Type.REFRESH);
+        assertEquals(tokens.passwordStamp(user), claims.passwordStamp());
+
+        user.setPassword("{bcrypt}$2a$10$another");
+        assertNotEquals(tokens.passwordStamp(user), claims.passwordStamp());
+    }
+
+    @Test
+    void requiresASecretOutsideTheDevProfile() {
+        assertThrows(IllegalStateException.class, () -> new ApiTokenService(ENVIRONMENT, "", 300, 3600));
+        assertThrows(IllegalStateException.class, () -> new ApiTokenService(ENVIRONMENT, "too-short", 300, 3600));
+
+        MockEnvironment dev = new MockEnvironment();
+        dev.setActiveProfiles("dev");
+        ApiTokenService devTokens = new ApiTokenService(dev, "", 300, 3600);
+        assertEquals(7L, devTokens.parse(devTokens.issue(user()).accessToken(), ApiTokenService.Type.ACCESS).userId());
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setId(7L);
+        user.setUsername("2025-00007");
+        user.setPassword("{bcrypt}$2a$10$hash");
+        user.setRoles(Set.of(new Role("ROLE_STUDENT")));
+        return user;
+    }
+}
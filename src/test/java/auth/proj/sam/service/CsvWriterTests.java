@@ -0,0 +1,33 @@
+package auth.proj.sam.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvWriterTests {
+
+    private static String csv(Object... values) throws Exception {
+        StringWriter out = new StringWriter();
+        CsvWriter writer = new CsvWriter(out);
+        writer.writeRow(values);
+        writer.flush();
+        return out.toString();
+    }
+
+    @Test
+    void quotesOnlyFieldsThatNeedIt() throws Exception {
+        assertEquals("22-1-02000,Dela Cruz,,1.25\r\n", csv("22-1-02000", "Dela Cruz", null, 1.25));
+        assertEquals("\"Cruz, Juan\",\"say \"\"hi\"\"\",\"two\nlines\",\"cr\rhere\"\r\n",
+                csv("Cruz, Juan", "say \"hi\"", "two\nlines", "cr\rhere"));
+    }
+
+    @Test
+    void guardsCellsASpreadsheetWouldEvaluate() throws Exception {
+        assertEquals("'=1+1,'+1,'-2,'@SUM(A1)\r\n", csv("=1+1", "+1", "-2", "@SUM(A1)"));
+        // The guard goes inside the quotes when the field also needs quoting
+        assertEquals("\"'=HYPERLINK(\"\"http://x\"\")\"\r\n", csv("=HYPERLINK(\"http://x\")"));
+        assertEquals("a=b,1-2\r\n", csv("a=b", "1-2"));
+    }
+}
@@ -0,0 +1,124 @@
+package auth.proj.sam.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailServiceTests {
+
+    private HttpServer brevoStub;
+    private final List<String> requestBodies = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failuresBeforeSuccess = new AtomicInteger();
+    private EmailService emailService;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        brevoStub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        brevoStub.createContext("/v3/smtp/email", exchange -> {
+            requestBodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            String requestBody = requestBodies.get(requestBodies.size() - 1);
+            int status = failuresBeforeSuccess.getAndDecrement() > 0 ? 503
+                    : requestBody.contains("bounced@example.com") ? 400 : 201;
+            byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        brevoStub.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        if (emailService != null) {
+            emailService.stop();
+        }
+        brevoStub.stop(0);
+    }
+
+    @Test
+    void sendsQueuedEmailsOfTheSameTemplateAsOneBatch() throws Exception {
+        emailService = newService();
+        CompletableFuture<?>[] results = {
+                emailService.sendEmail("a@example.com", 3L, Map.of("code", "111")),
+                emailService.sendEmail("b@example.com", 3L, Map.of("code", "222")),
+                emailService.sendEmail("c@example.com", 3L, Map.of("code", "333"))
+        };
+        emailService.start();
+
+        CompletableFuture.allOf(results).get(5, TimeUnit.SECONDS);
+        assertEquals(1, requestBodies.size());
+        assertTrue(requestBodies.get(0).contains("\"messageVersions\""));
+        assertTrue(requestBodies.get(0).contains("c@example.com"));
+        assertEquals(3, emailService.getStats().sent());
+    }
+
+    @Test
+    void retriesServerErrorsWithBackoff() throws Exception {
+        failuresBeforeSuccess.set(2);
+        emailService = newService();
+        emailService.start();
+
+        emailService.sendEmail("a@example.com", 4L, Map.of("code", "111")).get(5, TimeUnit.SECONDS);
+        assertEquals(3, requestBodies.size());
+        assertEquals(2, emailService.getStats().retries());
+        assertEquals(0, emailService.getStats().failed());
+    }
+
+    @Test
+    void sendsARejectedBatchOneByOneAndFailsOnlyTheRejectedEmail() throws Exception {
+        emailService = newService();
+        CompletableFuture<Void> first = emailService.sendEmail("a@example.com", 3L, Map.of("code", "111"));
+        CompletableFuture<Void> bounced = emailService.sendEmail("bounced@example.com", 3L, Map.of("code", "222"));
+        CompletableFuture<Void> last = emailService.sendEmail("c@example.com", 3L, Map.of("code", "333"));
+        emailService.start();
+
+        first.get(5, TimeUnit.SECONDS);
+        last.get(5, TimeUnit.SECONDS);
+        assertThrows(ExecutionException.class, () -> bounced.get(5, TimeUnit.SECONDS));
+        // The batch, then one request per email; a 400 is not retried
+        assertEquals(4, requestBodies.size());
+        assertEquals(2, emailService.getStats().sent());
+        assertEquals(1, emailService.getStats().failed());
+        assertEquals(0, emailService.getStats().retries());
+    }
+
+    @Test
+    void failsTheBatchWhenTheWorkerHitsAnUnexpectedError() throws Exception {
+        // An unparsable API URL makes the worker throw while building the request
+        emailService = new EmailService("test-key", "not a url", 1, 10, 50, 100, 4, 10, 50, 1000, 1000);
+        emailService.start();
+
+        CompletableFuture<Void> result = emailService.sendEmail("a@example.com", 3L, Map.of("code", "111"));
+        assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertEquals(1, emailService.getStats().failed());
+    }
+
+    @Test
+    void stopFailsQueuedEmails() {
+        emailService = newService();
+        CompletableFuture<Void> queued = emailService.sendEmail("a@example.com", 3L, Map.of("code", "111"));
+        emailService.stop();
+
+        assertTrue(queued.isCompletedExceptionally());
+        assertTrue(emailService.sendEmail("b@example.com", 3L, Map.of("code", "222")).isCompletedExceptionally());
+        assertTrue(requestBodies.isEmpty());
+    }
+
+    private EmailService newService() {
+        String baseUrl = "http://127.0.0.1:" + brevoStub.getAddress().getPort();
+        return new EmailService("test-key", baseUrl, 1, 10, 50, 100, 4, 10, 50, 1000, 1000);
+    }
+}
@@ -0,0 +1,131 @@
+package auth.proj.sam.service;
+
+import auth.proj.sam.dto.GradeSubmissionDto;
+import auth.proj.sam.model.User;
+import auth.proj.sam.repository.SectionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class GradeEntryServiceTests {
+
+    private static final long SECTION = 10L;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private GradeEntryService gradeEntryService;
+    private final User teacher = new User();
+
+    // Just the columns submit reads and writes, on an embedded database in MySQL mode
+    @BeforeEach
+    void createSection() {
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:grades-" + UUID.randomUUID() + ";MODE=MySQL", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, username VARCHAR(32), data_version BIGINT NOT NULL DEFAULT 0)");
+        jdbcTemplate.execute("CREATE TABLE enrollments (id BIGINT PRIMARY KEY, student_id BIGINT, section_id BIGINT, "
+                + "grade VARCHAR(16), version BIGINT NOT NULL DEFAULT 0)");
+        jdbcTemplate.update("INSERT INTO users (id, username) VALUES (1, '22-1-00001'), (2, '22-1-00002'), (3, '22-1-00003')");
+        // 22-1-00003 takes another section
+        jdbcTemplate.update("INSERT INTO enrollments (id, student_id, section_id, grade, version) VALUES "
+                + "(101, 1, 10, '1.50', 3), (102, 2, 10, NULL, 0), (103, 3, 11, NULL, 0)");
+
+        teacher.setId(50L);
+        teacher.setUsername("T-0001");
+        SectionRepository sectionRepository = mock(SectionRepository.class);
+        when(sectionRepository.findTitleForTeacher(SECTION, 50L)).thenReturn(Optional.of("IT101 (BSIT 1-1)"));
+        gradeEntryService = new GradeEntryService(jdbcTemplate, sectionRepository, 1000);
+    }
+
+    @AfterEach
+    void dropSection() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void writesChangedGradesAndSkipsUnchangedOnes() {
+        GradeEntryService.Result result = gradeEntryService.submit(SECTION, teacher,
+                List.of(entry("22-1-00001", "1.5", 3L), entry("22-1-00002", "2", 0L)));
+
+        assertEquals(1, result.updated());
+        assertEquals(1, result.unchanged());
+        assertEquals(Map.of("GRADE", "1.50", "VERSION", 3L), enrollment(101));
+        assertEquals(Map.of("GRADE", "2.00", "VERSION", 1L), enrollment(102));
+        assertEquals(List.of(0L, 1L), dataVersions());
+    }
+
+    @Test
+    void rejectsAStaleVersionWithoutWritingAnything() {
+        GradeEntryService.GradeConflictException conflict = assertThrows(GradeEntryService.GradeConflictException.class,
+                () -> gradeEntryService.submit(SECTION, teacher,
+                        List.of(entry("22-1-00001", "1.00", 2L), entry("22-1-00002", "2.00", 0L))));
+
+        assertEquals(List.of(new GradeEntryService.Conflict("22-1-00001", "1.50", 3L)), conflict.getConflicts());
+        assertEquals(Map.of("GRADE", "1.50", "VERSION", 3L), enrollment(101));
+        assertNull(enrollment(102).get("GRADE"));
+        assertEquals(List.of(0L, 0L), dataVersions());
+    }
+
+    @Test
+    void rejectsInvalidDuplicateAndUnenrolledRows() {
+        GradeEntryService.InvalidGradesException invalid = assertThrows(GradeEntryService.InvalidGradesException.class,
+                () -> gradeEntryService.submit(SECTION, teacher, List.of(
+                        entry("22-1-00001", "3.5", 3L),
+                        entry("22-1-00002", "2.00", 0L),
+                        entry("22-1-00002", "2.25", 0L),
+                        entry("22-1-00003", "1.00", 0L))));
+
+        assertEquals(List.of(
+                "Row 1 (22-1-00001): '3.5' is not a valid grade.",
+                "Row 3 (22-1-00002): student appears more than once.",
+                "22-1-00003 is not enrolled in this section."), invalid.getErrors());
+        assertNull(enrollment(102).get("GRADE"));
+        assertEquals(List.of(0L, 0L), dataVersions());
+    }
+
+    private static GradeSubmissionDto.Entry entry(String studentId, String grade, Long version) {
+        GradeSubmissionDto.Entry entry = new GradeSubmissionDto.Entry();
+        entry.setStudentId(studentId);
+        entry.setGrade(grade);
+        entry.setVersion(version);
+        return entry;
+    }
+
+    private Map<String, Object> enrollment(long id) {
+        return jdbcTemplate.queryForMap("SELECT grade, version FROM enrollments WHERE id = ?", id);
+    }
+
+    private List<Long> dataVersions() {
+        return jdbcTemplate.queryForList("SELECT data_version FROM users WHERE id IN (1, 2) ORDER BY id", Long.class);
+    }
+
+    @Test
+    void normalizesGradesOnTheScale() {
+        assertEquals("1.00", GradeEntryService.normalizeGrade("1"));
+        assertEquals("1.50", GradeEntryService.normalizeGrade(" 1.5 "));
+        assertEquals("2.75", GradeEntryService.normalizeGrade("2.75"));
+        assertEquals("5.00", GradeEntryService.normalizeGrade("5.0"));
+        assertEquals("INC", GradeEntryService.normalizeGrade("inc"));
+        assertEquals("PASSED", GradeEntryService.normalizeGrade("Passed"));
+    }
+
+    @Test
+    void rejectsGradesOffTheScale() {
+        assertNull(GradeEntryService.normalizeGrade("0.75"));
+        assertNull(GradeEntryService.normalizeGrade("1.10"));
+        assertNull(GradeEntryService.normalizeGrade("1.255"));
+        assertNull(GradeEntryService.normalizeGrade("3.50"));
+        assertNull(GradeEntryService.normalizeGrade("4.5"));
+        assertNull(GradeEntryService.normalizeGrade("A"));
+        assertEquals(13, GradeEntryService.GRADE_SCALE.size());
+    }
+}
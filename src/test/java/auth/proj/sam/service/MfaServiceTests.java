@@ -0,0 +1,35 @@
+package auth.proj.sam.service;
+
+import auth.proj.sam.repository.UserRepository;
+import dev.samstevens.totp.code.DefaultCodeGenerator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class MfaServiceTests {
+
+    private final TotpVerifier verifier = new TotpVerifier(1, 100);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final MfaService mfaService = new MfaService(verifier, userRepository);
+    private final String secret = mfaService.generateNewSecret();
+
+    @Test
+    void acceptsACodeOnlyWhenItsTimeStepIsClaimed() throws Exception {
+        long step = verifier.currentTimeStep();
+        String code = new DefaultCodeGenerator().generate(secret, step);
+        // The first claim of the step succeeds; a replay, on this or another instance, updates no row
+        when(userRepository.claimMfaStep(1L, step)).thenReturn(1, 0);
+
+        assertTrue(mfaService.isTotpValid(1L, secret, code));
+        assertFalse(mfaService.isTotpValid(1L, secret, code));
+        verify(userRepository, times(2)).claimMfaStep(1L, step);
+    }
+
+    @Test
+    void rejectsAWrongCodeWithoutTouchingTheDatabase() {
+        assertFalse(mfaService.isTotpValid(1L, secret, "12a456"));
+        verify(userRepository, never()).claimMfaStep(anyLong(), anyLong());
+    }
+}
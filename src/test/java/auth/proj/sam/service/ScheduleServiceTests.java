@@ -0,0 +1,50 @@
+package auth.proj.sam.service;
+
+import auth.proj.sam.service.ScheduleService.Cell;
+import auth.proj.sam.service.ScheduleService.ClassTime;
+import auth.proj.sam.service.ScheduleService.Meeting;
+import auth.proj.sam.service.ScheduleService.Week;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScheduleServiceTests {
+
+    private final ScheduleService scheduleService = new ScheduleService(30, 7, 22, 100);
+
+    @Test
+    void parsesDaysAndTimesOfEachMeeting() {
+        assertEquals(List.of(new Meeting(0b10101, 8 * 60 + 30, 9 * 60 + 30), new Meeting(0b1000, 10 * 60 + 30, 12 * 60 + 30)),
+                ScheduleService.parse("MWF 8:30 AM - 9:30 AM R 10:30 AM - 12:30 PM"));
+        assertEquals(List.of(new Meeting(0b1010, 9 * 60 + 30, 11 * 60)), ScheduleService.parse("TTh 9:30 AM - 11:00 AM"));
+        assertEquals(List.of(new Meeting(0b100000, 7 * 60 + 30, 9 * 60 + 30)), ScheduleService.parse("Sat 7:30 AM - 9:30 AM"));
+        assertEquals(List.of(new Meeting(0b11, 13 * 60, 14 * 60 + 30)), ScheduleService.parse("MT 1 - 2:30 PM"));
+        assertEquals(List.of(), ScheduleService.parse("TBA"));
+        assertEquals(List.of(), ScheduleService.parse("MWF 9:30 AM - 8:30 AM"));
+        assertEquals(List.of(), ScheduleService.parse("MWF 8:30 AM - 9:30 AM Room 301"));
+    }
+
+    @Test
+    void laysOutBlocksAndReportsConflicts() {
+        Week week = scheduleService.layOut(List.of(
+                new ClassTime("IT101", "MWF 8:30 AM - 9:30 AM"),
+                new ClassTime("CS202", "MW 9:00 AM - 10:00 AM"),
+                new ClassTime("PE301", "TBA")));
+
+        Cell it101 = week.rows().get(3).cells().get(0);
+        assertEquals("08:30 AM", week.rows().get(3).label());
+        assertEquals("IT101", it101.code());
+        assertEquals(2, it101.rowspan());
+        assertTrue(it101.conflict());
+        assertTrue(week.rows().get(4).cells().get(0).covered());
+        assertEquals("IT101", week.rows().get(3).cells().get(4).code());
+        assertFalse(week.rows().get(3).cells().get(4).conflict());
+        assertEquals(List.of("CS202 overlaps IT101 on Monday at 09:00 AM.", "CS202 overlaps IT101 on Wednesday at 09:00 AM."),
+                week.conflicts());
+        assertEquals(List.of("PE301"), week.unscheduled());
+        assertTrue(scheduleService.overlaps("MWF 8:30 AM - 9:30 AM", "W 9:00 AM - 10:00 AM"));
+        assertFalse(scheduleService.overlaps("MWF 8:30 AM - 9:30 AM", "TTh 8:30 AM - 9:30 AM"));
+    }
+}
@@ -0,0 +1,25 @@
+package auth.proj.sam.service;
+
+import dev.samstevens.totp.code.DefaultCodeGenerator;
+import dev.samstevens.totp.secret.DefaultSecretGenerator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TotpVerifierTests {
+
+    private final TotpVerifier verifier = new TotpVerifier(1, 100);
+    private final String secret = new DefaultSecretGenerator().generate();
+
+    @Test
+    void matchesCodesFromTheTotpLibraryWithinTheDriftWindow() throws Exception {
+        long step = verifier.currentTimeStep();
+        DefaultCodeGenerator generator = new DefaultCodeGenerator();
+
+        assertEquals(step, verifier.matchingTimeStep(secret, generator.generate(secret, step), step));
+        assertEquals(step - 1, verifier.matchingTimeStep(secret, generator.generate(secret, step - 1), step));
+        assertEquals(-1, verifier.matchingTimeStep(secret, generator.generate(secret, step - 2), step));
+        assertEquals(-1, verifier.matchingTimeStep(secret, "12345", step));
+        assertEquals(-1, verifier.matchingTimeStep(secret, "12a456", step));
+    }
+}
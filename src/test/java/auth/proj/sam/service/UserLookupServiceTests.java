@@ -0,0 +1,94 @@
+package auth.proj.sam.service;
+
+import auth.proj.sam.model.User;
+import auth.proj.sam.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UserLookupServiceTests {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserLookupService userLookupService = new UserLookupService(userRepository, 100, 300);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @BeforeEach
+    void rowUnchanged() {
+        when(userRepository.findModifiedAt(1L)).thenReturn(Optional.of(LocalDateTime.of(2024, 6, 1, 8, 0)));
+    }
+
+    private User stored(String passwordHash) {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("22-1-00001");
+        user.setEmail("22-1-00001@example.com");
+        user.setPassword(passwordHash);
+        user.setModifiedAt(LocalDateTime.of(2024, 6, 1, 8, 0));
+        return user;
+    }
+
+    @Test
+    void handsOutCopiesThatDoNotShareState() {
+        when(userRepository.findByUsername("22-1-00001")).thenReturn(Optional.of(stored("hash-1")));
+
+        User first = userLookupService.findByUsername("22-1-00001").orElseThrow();
+        first.setMfaEnabled(true);
+        User second = userLookupService.findByUsername("22-1-00001").orElseThrow();
+
+        assertNotSame(first, second);
+        assertFalse(second.isMfaEnabled());
+        verify(userRepository, times(1)).findByUsername("22-1-00001");
+    }
+
+    @Test
+    void evictsAgainAfterCommit() {
+        when(userRepository.findByUsername("22-1-00001"))
+                .thenReturn(Optional.of(stored("hash-1")), Optional.of(stored("hash-1")), Optional.of(stored("hash-2")));
+        userLookupService.findByUsername("22-1-00001");
+
+        TransactionSynchronizationManager.initSynchronization();
+        userLookupService.evict(stored("hash-2"));
+        // A concurrent request reloads the row before the change commits
+        assertEquals("hash-1", userLookupService.findByUsername("22-1-00001").orElseThrow().getPassword());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals("hash-2", userLookupService.findByUsername("22-1-00001").orElseThrow().getPassword());
+    }
+
+    @Test
+    void reloadsWhenTheRowChangedElsewhere() {
+        User changed = stored("hash-2");
+        changed.setModifiedAt(LocalDateTime.of(2024, 6, 1, 9, 0));
+        when(userRepository.findByUsername("22-1-00001")).thenReturn(Optional.of(stored("hash-1")), Optional.of(changed));
+        userLookupService.findByUsername("22-1-00001");
+
+        // Changed through another instance, which cannot evict this one's entry
+        when(userRepository.findModifiedAt(1L)).thenReturn(Optional.of(changed.getModifiedAt()));
+        assertEquals("hash-2", userLookupService.findByUsername("22-1-00001").orElseThrow().getPassword());
+        assertEquals("hash-2", userLookupService.findByUsername("22-1-00001").orElseThrow().getPassword());
+        verify(userRepository, times(2)).findByUsername("22-1-00001");
+    }
+
+    @Test
+    void dropsTheEntryWhenTheRowIsGone() {
+        when(userRepository.findByUsername("22-1-00001")).thenReturn(Optional.of(stored("hash-1")), Optional.empty());
+        userLookupService.findByUsername("22-1-00001");
+
+        when(userRepository.findModifiedAt(1L)).thenReturn(Optional.empty());
+        assertTrue(userLookupService.findByUsername("22-1-00001").isEmpty());
+    }
+}
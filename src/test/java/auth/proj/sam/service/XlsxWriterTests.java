@@ -0,0 +1,69 @@
+package auth.proj.sam.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XlsxWriterTests {
+
+    private static Map<String, String> unzip(byte[] workbook) throws Exception {
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(workbook))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+
+    @Test
+    void writesAWorkbookWithOneSheetOfRows() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (XlsxWriter xlsx = new XlsxWriter(out, "IT101 [BSIT 1-1] 2025/2026, 1st Semester")) {
+            xlsx.writeRow("Student ID", "Grade");
+            xlsx.writeRow("22-1-02000", 1.25);
+            xlsx.writeRow("22-1-02001", null);
+        }
+
+        Map<String, String> entries = unzip(out.toByteArray());
+        assertEquals(6, entries.size());
+        assertTrue(entries.keySet().containsAll(List.of("[Content_Types].xml", "_rels/.rels", "xl/workbook.xml",
+                "xl/_rels/workbook.xml.rels", "xl/styles.xml", "xl/worksheets/sheet1.xml")));
+        // Forbidden characters replaced and the name cut to 31 characters
+        assertTrue(entries.get("xl/workbook.xml").contains("<sheet name=\"IT101  BSIT 1-1  2025 2026, 1st\""));
+
+        String sheet = entries.get("xl/worksheets/sheet1.xml");
+        assertTrue(sheet.contains("<row r=\"1\"><c t=\"inlineStr\" s=\"1\"><is><t xml:space=\"preserve\">Student ID</t></is></c>"));
+        assertTrue(sheet.contains("<row r=\"2\"><c t=\"inlineStr\"><is><t xml:space=\"preserve\">22-1-02000</t></is></c><c><v>1.25</v></c></row>"));
+        assertTrue(sheet.contains("<row r=\"3\"><c t=\"inlineStr\"><is><t xml:space=\"preserve\">22-1-02001</t></is></c><c/></row>"));
+        assertTrue(sheet.endsWith("</sheetData></worksheet>"));
+    }
+
+    @Test
+    void escapesMarkupAndDropsCharactersXmlCannotCarry() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (XlsxWriter xlsx = new XlsxWriter(out, "R&D <Term>")) {
+            xlsx.writeRow("Header");
+            xlsx.writeRow("Dela Cruz & \"Sons\" <b>", "tab\there\u0000\u0007", "=SUM(A1:A2)");
+        }
+
+        Map<String, String> entries = unzip(out.toByteArray());
+        assertTrue(entries.get("xl/workbook.xml").contains("<sheet name=\"R&amp;D &lt;Term&gt;\""));
+        String sheet = entries.get("xl/worksheets/sheet1.xml");
+        assertTrue(sheet.contains("<t xml:space=\"preserve\">Dela Cruz &amp; &quot;Sons&quot; &lt;b&gt;</t>"));
+        assertTrue(sheet.contains("<t xml:space=\"preserve\">tab\there</t>"));
+        // Inline strings are never evaluated, so a leading = stays plain text
+        assertTrue(sheet.contains("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">=SUM(A1:A2)</t></is></c>"));
+        assertFalse(sheet.contains("<f>"));
+    }
+}